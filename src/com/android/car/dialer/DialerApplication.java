@@ -20,9 +20,13 @@ import android.app.Application;
 
 import com.android.car.dialer.bluetooth.CallHistoryManager;
 import com.android.car.dialer.bluetooth.UiBluetoothMonitor;
+import com.android.car.dialer.notification.CallerIdCache;
 import com.android.car.dialer.notification.InCallNotificationController;
 import com.android.car.dialer.notification.MissedCallNotificationController;
+import com.android.car.dialer.telecom.PhoneAccountModel;
+import com.android.car.dialer.telecom.TelecomJournal;
 import com.android.car.dialer.telecom.UiCallManager;
+import com.android.car.dialer.ui.activecall.InCallUiWarmer;
 import com.android.car.telephony.common.InMemoryPhoneBook;
 
 public class DialerApplication extends Application {
@@ -31,10 +35,14 @@ public class DialerApplication extends Application {
     public void onCreate() {
         super.onCreate();
         InMemoryPhoneBook.init(this);
+        PhoneAccountModel.init(this);
         UiCallManager.init(this);
         UiBluetoothMonitor.init(this);
         CallHistoryManager.init(this);
+        CallerIdCache.init(this);
         InCallNotificationController.init(this);
         MissedCallNotificationController.init(this);
+        TelecomJournal.init(this);
+        InCallUiWarmer.init(this);
     }
 }
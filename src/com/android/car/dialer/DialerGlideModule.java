@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer;
+
+import android.content.Context;
+import android.content.res.Resources;
+
+import androidx.annotation.NonNull;
+
+import com.android.car.dialer.log.L;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+import com.bumptech.glide.request.RequestOptions;
+
+/**
+ * Glide configuration tuned for contact avatars.
+ *
+ * <p>Avatars are small, square and always clipped by
+ * {@link com.android.car.dialer.ui.view.ContactAvatarOutputlineProvider}, so they are decoded
+ * without alpha and only the downsampled result is written to the disk cache. The disk cache key
+ * is built by Glide from the photo uri and the requested pixel size.
+ *
+ * <p>Glide has a single memory cache per process, so there is no cache reserved for avatars and
+ * they share it with the other images. It keeps the size Glide computes for the device, and only
+ * grows it to hold the configured number of list sized avatars when it is smaller.
+ */
+@GlideModule
+public final class DialerGlideModule extends AppGlideModule {
+    private static final String TAG = "CD.GlideModule";
+
+    private static final String AVATAR_DISK_CACHE_NAME = "avatar_cache";
+    private static final int BYTES_PER_MEGABYTE = 1024 * 1024;
+    // Worst case of a decoded avatar, ARGB_8888 for images with an alpha channel.
+    private static final int MAX_BYTES_PER_PIXEL = 4;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        Resources resources = context.getResources();
+        int avatarSize = resources.getDimensionPixelSize(R.dimen.large_avatar_icon_size);
+        int avatarCount = resources.getInteger(R.integer.config_avatar_memory_cache_items);
+        long avatarCacheSize = (long) avatarSize * avatarSize * MAX_BYTES_PER_PIXEL * avatarCount;
+        long memoryCacheSize = Math.max(avatarCacheSize,
+                new MemorySizeCalculator.Builder(context).build().getMemoryCacheSize());
+        long diskCacheSize = (long) resources.getInteger(R.integer.config_avatar_disk_cache_mb)
+                * BYTES_PER_MEGABYTE;
+        L.d(TAG, "Memory cache: %d bytes, avatar disk cache: %d bytes", memoryCacheSize,
+                diskCacheSize);
+
+        builder.setMemoryCache(new LruResourceCache(memoryCacheSize))
+                .setDiskCache(new InternalCacheDiskCacheFactory(
+                        context, AVATAR_DISK_CACHE_NAME, diskCacheSize))
+                .setDefaultRequestOptions(new RequestOptions()
+                        .format(DecodeFormat.PREFER_RGB_565)
+                        .diskCacheStrategy(DiskCacheStrategy.RESOURCE));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
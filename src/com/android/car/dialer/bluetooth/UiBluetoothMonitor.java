@@ -19,19 +19,17 @@ package com.android.car.dialer.bluetooth;
 import android.bluetooth.BluetoothDevice;
 import android.content.Context;
 import android.telecom.PhoneAccountHandle;
-import android.telecom.TelecomManager;
-import android.text.TextUtils;
 
 import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.Transformations;
 
-import com.android.car.dialer.Constants;
 import com.android.car.dialer.livedata.BluetoothPairListLiveData;
 import com.android.car.dialer.livedata.BluetoothStateLiveData;
 import com.android.car.dialer.livedata.HfpDeviceListLiveData;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.telecom.PhoneAccountModel;
 
 import java.util.List;
 
@@ -44,7 +42,6 @@ public class UiBluetoothMonitor {
     private static UiBluetoothMonitor sUiBluetoothMonitor;
 
     private final Context mContext;
-    private final TelecomManager mTelecomManager;
 
     private BluetoothPairListLiveData mPairListLiveData;
     private BluetoothStateLiveData mBluetoothStateLiveData;
@@ -82,7 +79,6 @@ public class UiBluetoothMonitor {
 
     private UiBluetoothMonitor(Context applicationContext) {
         mContext = applicationContext;
-        mTelecomManager = mContext.getSystemService(TelecomManager.class);
 
         mPairListLiveData = new BluetoothPairListLiveData(mContext);
         mBluetoothStateLiveData = new BluetoothStateLiveData(mContext);
@@ -95,7 +91,7 @@ public class UiBluetoothMonitor {
             BluetoothDevice bluetoothDevice =
                     deviceList == null || deviceList.isEmpty() ? null : deviceList.get(0);
             PhoneAccountHandle phoneAccountHandle = getPhoneAccountHandleForDevice(bluetoothDevice);
-            mTelecomManager.setUserSelectedOutgoingPhoneAccount(phoneAccountHandle);
+            PhoneAccountModel.get().setUserSelectedOutgoingPhoneAccount(phoneAccountHandle);
         };
 
         mPairListLiveData.observeForever(mPairListObserver);
@@ -164,17 +160,6 @@ public class UiBluetoothMonitor {
         if (bluetoothDevice == null) {
             return null;
         }
-
-        List<PhoneAccountHandle> phoneAccountHandleList =
-                mTelecomManager.getCallCapablePhoneAccounts();
-        for (PhoneAccountHandle phoneAccountHandle : phoneAccountHandleList) {
-            if (Constants.HFP_CLIENT_CONNECTION_SERVICE_CLASS_NAME.equals(
-                    phoneAccountHandle.getComponentName().getClassName())) {
-                if (TextUtils.equals(phoneAccountHandle.getId(), bluetoothDevice.getAddress())) {
-                    return phoneAccountHandle;
-                }
-            }
-        }
-        return null;
+        return PhoneAccountModel.get().getHfpPhoneAccountHandle(bluetoothDevice.getAddress());
     }
 }
@@ -32,17 +32,21 @@ import com.android.car.dialer.telecom.UiCallManager;
 import java.util.List;
 
 /**
- * Provides the current connecting audio route.
+ * Provides the current connecting audio route. While it is active the {@link UiCallManager}
+ * follows the route from the HFP broadcasts and the HFP device list forwarded by this live data,
+ * so a broadcast doesn't cost any binder call.
  */
 public class AudioRouteLiveData extends MediatorLiveData<Integer> {
     private static final String TAG = "CD.AudioRouteLiveData";
 
     private final Context mContext;
     private final IntentFilter mAudioRouteChangeFilter;
+    private UiCallManager mUiCallManager;
 
     private final BroadcastReceiver mAudioRouteChangeReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
+            mUiCallManager.onHfpAudioStateChanged(intent);
             updateAudioRoute();
         }
     };
@@ -56,6 +60,10 @@ public class AudioRouteLiveData extends MediatorLiveData<Integer> {
 
     @Override
     protected void onActive() {
+        // Start tracking before super plugs in the HFP device list source, which delivers the
+        // current device list so tracking doesn't query it again.
+        mUiCallManager = UiCallManager.get();
+        mUiCallManager.startTrackingAudioRoute();
         super.onActive();
         updateAudioRoute();
         mContext.registerReceiver(mAudioRouteChangeReceiver, mAudioRouteChangeFilter);
@@ -65,10 +73,12 @@ public class AudioRouteLiveData extends MediatorLiveData<Integer> {
     protected void onInactive() {
         mContext.unregisterReceiver(mAudioRouteChangeReceiver);
         super.onInactive();
+        mUiCallManager.stopTrackingAudioRoute();
+        mUiCallManager = null;
     }
 
     private void updateAudioRoute() {
-        int audioRoute = UiCallManager.get().getAudioRoute();
+        int audioRoute = mUiCallManager.getAudioRoute();
         if (getValue() == null || audioRoute != getValue()) {
             L.d(TAG, "updateAudioRoute to %s", audioRoute);
             setValue(audioRoute);
@@ -76,6 +86,8 @@ public class AudioRouteLiveData extends MediatorLiveData<Integer> {
     }
 
     private void onHfpDeviceListChange(List<BluetoothDevice> bluetoothDeviceList) {
+        // The source is only observed while this live data is active.
+        mUiCallManager.onHfpDeviceListChanged(bluetoothDeviceList);
         updateAudioRoute();
     }
 }
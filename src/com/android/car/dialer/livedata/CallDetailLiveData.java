@@ -22,16 +22,19 @@ import android.telecom.InCallService;
 import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
 
+import com.android.car.dialer.telecom.CallEventCoalescer;
 import com.android.car.telephony.common.CallDetail;
 
 import java.util.List;
 
 /**
- * Represents the details of an active phone call.
+ * Represents the details of an active phone call. Details changes are published at most once per
+ * frame.
  */
 public class CallDetailLiveData extends LiveData<CallDetail> {
 
     private Call mTelecomCall;
+    private final Runnable mPublishDetail = () -> setTelecomCallDetail(mTelecomCall);
 
     private Call.Callback mCallback = new Call.Callback() {
         @Override
@@ -51,7 +54,7 @@ public class CallDetailLiveData extends LiveData<CallDetail> {
 
         @Override
         public void onDetailsChanged(Call telecomCall, Call.Details details) {
-            setTelecomCallDetail(mTelecomCall);
+            CallEventCoalescer.get().post(mPublishDetail);
         }
 
         @Override
@@ -79,6 +82,7 @@ public class CallDetailLiveData extends LiveData<CallDetail> {
             mTelecomCall.unregisterCallback(mCallback);
         }
         mTelecomCall = telecomCall;
+        CallEventCoalescer.get().cancel(mPublishDetail);
         setTelecomCallDetail(mTelecomCall);
         if (mTelecomCall != null) {
             mTelecomCall.registerCallback(mCallback);
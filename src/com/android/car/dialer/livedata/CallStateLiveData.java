@@ -21,14 +21,17 @@ import android.telecom.InCallService;
 
 import androidx.lifecycle.LiveData;
 
+import com.android.car.dialer.telecom.CallEventCoalescer;
+
 import java.util.List;
 
 /**
- * Represents an active phone call state.
+ * Represents an active phone call state. State changes are published at most once per frame.
  */
 public class CallStateLiveData extends LiveData<Integer> {
 
     private final Call mTelecomCall;
+    private final Runnable mPublishState = this::publishState;
 
     public CallStateLiveData(Call telecomCall) {
         mTelecomCall = telecomCall;
@@ -38,7 +41,7 @@ public class CallStateLiveData extends LiveData<Integer> {
     protected void onActive() {
         super.onActive();
 
-        setValue(mTelecomCall.getState());
+        publishState();
         mTelecomCall.registerCallback(mCallback);
     }
 
@@ -46,12 +49,17 @@ public class CallStateLiveData extends LiveData<Integer> {
     protected void onInactive() {
         super.onInactive();
         mTelecomCall.unregisterCallback(mCallback);
+        CallEventCoalescer.get().cancel(mPublishState);
+    }
+
+    private void publishState() {
+        setValue(mTelecomCall.getState());
     }
 
     private Call.Callback mCallback = new Call.Callback() {
         @Override
         public void onStateChanged(Call telecomCall, int state) {
-            setValue(state);
+            CallEventCoalescer.get().post(mPublishState);
         }
 
         @Override
@@ -0,0 +1,251 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.notification;
+
+import android.content.Context;
+import android.graphics.drawable.Icon;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+
+import com.android.car.dialer.log.L;
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.InMemoryPhoneBook;
+import com.android.car.telephony.common.TelecomUtils;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Resolves the caller identity of a number once and shares it between the incoming call
+ * notification and the in call page. Resolving starts as soon as telecom adds the call, and the
+ * cached identity, or the contact in the {@link InMemoryPhoneBook}, is available synchronously so
+ * the first heads up notification doesn't wait for the contact query. The cache is dropped when
+ * the contacts in the {@link InMemoryPhoneBook} change, so an edited or newly synced contact is
+ * resolved again. All the methods must be called on the main thread.
+ */
+public final class CallerIdCache {
+    private static final String TAG = "CD.CallerIdCache";
+    private static final int MAX_SIZE = 16;
+
+    private static CallerIdCache sCallerIdCache;
+
+    /**
+     * Initialized a globally accessible {@link CallerIdCache} which can be retrieved by {@link
+     * #get}. If this function is called a second time before calling {@link #tearDown()}, an
+     * {@link IllegalStateException} will be thrown.
+     *
+     * @param applicationContext Application context.
+     */
+    public static void init(Context applicationContext) {
+        if (sCallerIdCache == null) {
+            sCallerIdCache = new CallerIdCache(applicationContext);
+        } else {
+            throw new IllegalStateException("CallerIdCache has been initialized.");
+        }
+    }
+
+    /**
+     * Gets the global {@link CallerIdCache} instance. Make sure {@link #init(Context)} is called
+     * before calling this method.
+     */
+    public static CallerIdCache get() {
+        if (sCallerIdCache == null) {
+            throw new IllegalStateException(
+                    "Call CallerIdCache.init(Context) before calling this function");
+        }
+        return sCallerIdCache;
+    }
+
+    /** Tears down the {@link CallerIdCache} and stops following the contact changes. */
+    public static void tearDown() {
+        if (sCallerIdCache != null) {
+            if (sCallerIdCache.mContactsLiveData != null) {
+                sCallerIdCache.mContactsLiveData.removeObserver(sCallerIdCache.mContactsObserver);
+            }
+            sCallerIdCache = null;
+        }
+    }
+
+    @Nullable
+    private final LiveData<List<Contact>> mContactsLiveData;
+    private final Observer<List<Contact>> mContactsObserver = contacts -> clear();
+    private final Function<String, CompletableFuture<CallerId>> mCallerIdResolver;
+    private final Executor mMainExecutor;
+    // Access ordered, so the least recently shown caller is dropped first.
+    private final Map<String, CallerId> mCallerIds =
+            new LinkedHashMap<String, CallerId>(MAX_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CallerId> eldest) {
+                    return size() > MAX_SIZE;
+                }
+            };
+    private final Map<String, CompletableFuture<CallerId>> mPendingCallerIds = new HashMap<>();
+
+    private CallerIdCache(Context context) {
+        this(InMemoryPhoneBook.isInitialized() ? InMemoryPhoneBook.get().getContactsLiveData()
+                        : null,
+                number -> NotificationUtils.getCallerId(context, number),
+                context.getMainExecutor());
+    }
+
+    @VisibleForTesting
+    CallerIdCache(@Nullable LiveData<List<Contact>> contactsLiveData,
+            Function<String, CompletableFuture<CallerId>> callerIdResolver,
+            Executor mainExecutor) {
+        mContactsLiveData = contactsLiveData;
+        mCallerIdResolver = callerIdResolver;
+        mMainExecutor = mainExecutor;
+        if (mContactsLiveData != null) {
+            mContactsLiveData.observeForever(mContactsObserver);
+        }
+    }
+
+    /**
+     * Returns the caller identity of the number without blocking. It is the resolved identity if
+     * it is cached, otherwise one with only the display name of the matching contact in the {@link
+     * InMemoryPhoneBook}, or null if the number is not known yet.
+     */
+    @MainThread
+    @Nullable
+    public CallerId peek(@Nullable String number) {
+        CallerId callerId = mCallerIds.get(getKey(number));
+        if (callerId != null) {
+            return callerId;
+        }
+
+        if (number == null || !InMemoryPhoneBook.isInitialized()) {
+            return null;
+        }
+        Contact contact = InMemoryPhoneBook.get().lookupContactEntry(number);
+        return contact == null ? null : new CallerId(number, contact.getDisplayName(), null, null);
+    }
+
+    /**
+     * Returns the resolved caller identity of the number. Callers of the same number share the
+     * same query, and cancelling the returned future doesn't cancel it for the others.
+     */
+    @MainThread
+    @NonNull
+    public CompletableFuture<CallerId> resolve(@Nullable String number) {
+        String key = getKey(number);
+        CallerId callerId = mCallerIds.get(key);
+        if (callerId != null) {
+            return CompletableFuture.completedFuture(callerId);
+        }
+        CompletableFuture<CallerId> pendingCallerId = mPendingCallerIds.get(key);
+        if (pendingCallerId != null) {
+            return pendingCallerId.thenApply(resolved -> resolved);
+        }
+
+        L.d(TAG, "resolve %s", TelecomUtils.piiLog(number));
+        CompletableFuture<CallerId> future = new CompletableFuture<>();
+        mPendingCallerIds.put(key, future);
+        mCallerIdResolver.apply(number).whenCompleteAsync((resolved, throwable) -> {
+            // A refresh or a contact change replaces the pending query, and only the latest one
+            // is cached.
+            if (mPendingCallerIds.remove(key, future) && resolved != null) {
+                mCallerIds.put(key, resolved);
+            }
+            if (throwable != null) {
+                future.completeExceptionally(throwable);
+            } else {
+                future.complete(resolved);
+            }
+        }, mMainExecutor);
+        return future.thenApply(resolved -> resolved);
+    }
+
+    /** Drops the cached caller identity of the number and resolves it again. */
+    @MainThread
+    @NonNull
+    public CompletableFuture<CallerId> refresh(@Nullable String number) {
+        String key = getKey(number);
+        mCallerIds.remove(key);
+        mPendingCallerIds.remove(key);
+        return resolve(number);
+    }
+
+    /** Drops all the cached caller identities, called when the phone book changes. */
+    @MainThread
+    public void clear() {
+        mCallerIds.clear();
+        mPendingCallerIds.clear();
+    }
+
+    private static String getKey(@Nullable String number) {
+        return number == null ? "" : number;
+    }
+
+    /** The display name and avatar of a caller. */
+    public static final class CallerId {
+        private final String mNumber;
+        private final String mDisplayName;
+        @Nullable
+        private final TelecomUtils.PhoneNumberInfo mPhoneNumberInfo;
+        @Nullable
+        private final Icon mAvatarIcon;
+
+        CallerId(String number, String displayName,
+                @Nullable TelecomUtils.PhoneNumberInfo phoneNumberInfo,
+                @Nullable Icon avatarIcon) {
+            mNumber = number;
+            mDisplayName = displayName;
+            mPhoneNumberInfo = phoneNumberInfo;
+            mAvatarIcon = avatarIcon;
+        }
+
+        /** Returns the number of the caller. */
+        public String getNumber() {
+            return mNumber;
+        }
+
+        /** Returns the display name, which is the number for unknown callers. */
+        public String getDisplayName() {
+            return mDisplayName;
+        }
+
+        /** Returns the resolved phone number info, null if the identity is not resolved yet. */
+        @Nullable
+        public TelecomUtils.PhoneNumberInfo getPhoneNumberInfo() {
+            return mPhoneNumberInfo;
+        }
+
+        /**
+         * Returns the rounded avatar, or a letter tile if the caller has no avatar, for the
+         * notifications. Null if the identity is not resolved yet.
+         */
+        @Nullable
+        public Icon getAvatarIcon() {
+            return mAvatarIcon;
+        }
+
+        /** Returns if the identity is resolved instead of coming from the in memory phone book. */
+        public boolean isResolved() {
+            return mPhoneNumberInfo != null;
+        }
+    }
+}
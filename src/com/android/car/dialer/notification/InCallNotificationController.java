@@ -22,7 +22,6 @@ import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
-import android.graphics.drawable.Icon;
 import android.telecom.Call;
 import android.text.TextUtils;
 
@@ -30,6 +29,7 @@ import androidx.annotation.StringRes;
 
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.telecom.CallLatencyTracker;
 import com.android.car.telephony.common.CallDetail;
 import com.android.car.telephony.common.TelecomUtils;
 
@@ -126,9 +126,14 @@ public final class InCallNotificationController {
             mNotificationBuilder.setFullScreenIntent(
                     getFullscreenIntent(call), /* highPriority= */true);
         }
+        // The caller is usually resolved since the call was added, otherwise show the name of the
+        // contact in the phone book, or the number, until it is.
+        CallerIdCache callerIdCache = CallerIdCache.get();
+        CallerIdCache.CallerId callerId = callerIdCache.peek(number);
         mNotificationBuilder
-                .setLargeIcon((Icon) null)
-                .setContentTitle(TelecomUtils.getBidiWrappedNumber(number))
+                .setLargeIcon(callerId == null ? null : callerId.getAvatarIcon())
+                .setContentTitle(TelecomUtils.getBidiWrappedNumber(
+                        callerId == null ? number : callerId.getDisplayName()))
                 .setContentText(mContext.getString(R.string.notification_incoming_call))
                 .setActions(
                         getAction(call, R.string.answer_call,
@@ -139,14 +144,20 @@ public final class InCallNotificationController {
                 callId,
                 NOTIFICATION_ID,
                 mNotificationBuilder.build());
+        CallLatencyTracker.get().mark(call, CallLatencyTracker.MILESTONE_NOTIFICATION_POSTED);
 
-        mNotificationFuture = NotificationUtils.getDisplayNameAndRoundedAvatar(mContext, number)
-                .thenAcceptAsync((pair) -> {
+        if (callerId != null && callerId.isResolved()) {
+            mNotificationFuture = null;
+            return;
+        }
+        mNotificationFuture = callerIdCache.resolve(number)
+                .thenAcceptAsync((resolvedCallerId) -> {
                     // Check that the notification hasn't already been dismissed
                     if (mActiveInCallNotifications.contains(callId)) {
                         mNotificationBuilder
-                                .setLargeIcon(pair.second)
-                                .setContentTitle(TelecomUtils.getBidiWrappedNumber(pair.first));
+                                .setLargeIcon(resolvedCallerId.getAvatarIcon())
+                                .setContentTitle(TelecomUtils.getBidiWrappedNumber(
+                                        resolvedCallerId.getDisplayName()));
 
                         mNotificationManager.notify(
                                 callId,
@@ -22,12 +22,16 @@ import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.content.Context;
 import android.content.Intent;
+import android.graphics.drawable.Icon;
 import android.provider.CallLog;
+import android.telephony.PhoneNumberUtils;
 import android.text.TextUtils;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.StringRes;
+import androidx.annotation.VisibleForTesting;
+import androidx.core.util.Pair;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.Observer;
 
@@ -40,19 +44,28 @@ import com.android.car.dialer.ui.TelecomActivity;
 import com.android.car.telephony.common.PhoneCallLog;
 import com.android.car.telephony.common.TelecomUtils;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 /** Controller that manages the missed call notifications. */
 public final class MissedCallNotificationController {
     private static final String TAG = "CD.MissedCallNotification";
     private static final String CHANNEL_ID = "com.android.car.dialer.missedcall";
     // A random number that is used for notification id.
-    private static final int NOTIFICATION_ID = 20190520;
+    @VisibleForTesting
+    static final int NOTIFICATION_ID = 20190520;
+    private static final String GROUP_KEY = "com.android.car.dialer.missedcall.group";
+    // The missed call notification tags contain a '/', so they never clash with this one.
+    @VisibleForTesting
+    static final String SUMMARY_TAG = "summary";
 
     private static MissedCallNotificationController sMissedCallNotificationController;
 
@@ -96,11 +109,43 @@ public final class MissedCallNotificationController {
     private final NotificationManager mNotificationManager;
     private final LiveData<List<PhoneCallLog>> mUnreadMissedCallLiveData;
     private final Observer<List<PhoneCallLog>> mUnreadMissedCallObserver;
-    private final List<PhoneCallLog> mCurrentPhoneCallLogList;
-    private final Map<String, CompletableFuture<Void>> mUpdateFutures = new HashMap<>();
+    private final Function<String, CompletableFuture<Pair<String, Icon>>> mCallerLoader;
+    private final Function<String, CompletableFuture<String>> mCallerNameLoader;
+    private final Executor mMainExecutor;
+    // The shown missed call notifications by their tag.
+    private final Map<String, MissedCallNotification> mMissedCallNotifications = new HashMap<>();
+
+    private final boolean mIsGroupingEnabled;
+    private final int mMaxGroupedNotifications;
+    private int mSummaryCallerCount;
+    private int mSummaryCallCount;
+    private long mSummaryWhen;
+    private boolean mIsSummaryPosted;
 
     private MissedCallNotificationController(Context context) {
+        this(context, LiveDataFunctions.switchMapNonNull(
+                UiBluetoothMonitor.get().getFirstHfpConnectedDevice(),
+                device -> UnreadMissedCallLiveData.newInstance(context, device.getAddress())),
+                number -> NotificationUtils.getDisplayNameAndRoundedAvatar(context, number),
+                number -> TelecomUtils.getPhoneNumberInfo(context, number)
+                        .thenApply(info -> info.getDisplayName()),
+                context.getMainExecutor());
+    }
+
+    @VisibleForTesting
+    MissedCallNotificationController(Context context,
+            LiveData<List<PhoneCallLog>> unreadMissedCallLiveData,
+            Function<String, CompletableFuture<Pair<String, Icon>>> callerLoader,
+            Function<String, CompletableFuture<String>> callerNameLoader,
+            Executor mainExecutor) {
         mContext = context;
+        mCallerLoader = callerLoader;
+        mCallerNameLoader = callerNameLoader;
+        mMainExecutor = mainExecutor;
+        mIsGroupingEnabled = context.getResources().getBoolean(
+                R.bool.config_group_missed_call_notifications);
+        mMaxGroupedNotifications = context.getResources().getInteger(
+                R.integer.config_max_grouped_missed_call_notifications);
         mNotificationManager =
                 (NotificationManager) mContext.getSystemService(Context.NOTIFICATION_SERVICE);
         CharSequence name = mContext.getString(R.string.missed_call_notification_channel_name);
@@ -108,40 +153,121 @@ public final class MissedCallNotificationController {
                 NotificationManager.IMPORTANCE_DEFAULT);
         mNotificationManager.createNotificationChannel(notificationChannel);
 
-        mCurrentPhoneCallLogList = new ArrayList<>();
-        mUnreadMissedCallLiveData = LiveDataFunctions.switchMapNonNull(
-                UiBluetoothMonitor.get().getFirstHfpConnectedDevice(),
-                device-> UnreadMissedCallLiveData.newInstance(context, device.getAddress()));
+        mUnreadMissedCallLiveData = unreadMissedCallLiveData;
         mUnreadMissedCallObserver = this::updateNotifications;
         mUnreadMissedCallLiveData.observeForever(mUnreadMissedCallObserver);
     }
 
     /**
      * The phone call log list might be null when switching users if permission gets denied and
-     * throws exception.
+     * throws exception. Only the notifications of the callers whose missed calls changed are
+     * posted again. When the notifications are grouped, every caller still has a notification in
+     * the group but only the most recent callers have an avatar. The others are posted with their
+     * display name and get an avatar once they become the most recent ones.
      */
     private void updateNotifications(@Nullable List<PhoneCallLog> phoneCallLogs) {
         List<PhoneCallLog> updatedPhoneCallLogs =
                 phoneCallLogs == null ? Collections.emptyList() : phoneCallLogs;
+        Map<String, PhoneCallLog> updatedCallLogs = new LinkedHashMap<>();
         for (PhoneCallLog phoneCallLog : updatedPhoneCallLogs) {
-            showMissedCallNotification(phoneCallLog);
-            mCurrentPhoneCallLogList.remove(phoneCallLog);
+            updatedCallLogs.put(getTag(phoneCallLog), phoneCallLog);
+        }
+        Iterator<Map.Entry<String, MissedCallNotification>> iterator =
+                mMissedCallNotifications.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, MissedCallNotification> entry = iterator.next();
+            if (!updatedCallLogs.containsKey(entry.getKey())) {
+                L.d(TAG, "cancel missed call notification %s", entry.getKey());
+                entry.getValue().cancel();
+                iterator.remove();
+            }
         }
 
-        for (PhoneCallLog phoneCallLog : mCurrentPhoneCallLogList) {
-            cancelMissedCallNotification(phoneCallLog);
+        // The call logs are sorted by the most recent call first.
+        int index = 0;
+        for (Map.Entry<String, PhoneCallLog> entry : updatedCallLogs.entrySet()) {
+            String tag = entry.getKey();
+            PhoneCallLog phoneCallLog = entry.getValue();
+            boolean hasAvatar = !mIsGroupingEnabled || index++ < mMaxGroupedNotifications;
+            MissedCallNotification missedCallNotification = mMissedCallNotifications.get(tag);
+            if (missedCallNotification == null) {
+                missedCallNotification = new MissedCallNotification(tag);
+                mMissedCallNotifications.put(tag, missedCallNotification);
+            } else if (!missedCallNotification.hasChanged(phoneCallLog)
+                    && !missedCallNotification.needsAvatar(hasAvatar)) {
+                continue;
+            }
+            missedCallNotification.update(phoneCallLog, hasAvatar);
+            showMissedCallNotification(phoneCallLog, missedCallNotification, hasAvatar);
         }
-        mCurrentPhoneCallLogList.clear();
-        mCurrentPhoneCallLogList.addAll(updatedPhoneCallLogs);
+
+        updateSummaryNotification(updatedCallLogs.values());
     }
 
-    private void showMissedCallNotification(PhoneCallLog callLog) {
+    /** Posts the summary of the grouped notifications if its content changed. */
+    private void updateSummaryNotification(Collection<PhoneCallLog> phoneCallLogs) {
+        if (!mIsGroupingEnabled || phoneCallLogs.size() < 2) {
+            if (mIsSummaryPosted) {
+                mNotificationManager.cancel(SUMMARY_TAG, NOTIFICATION_ID);
+                mIsSummaryPosted = false;
+            }
+            mSummaryCallerCount = 0;
+            mSummaryCallCount = 0;
+            mSummaryWhen = 0;
+            return;
+        }
+
+        int callerCount = phoneCallLogs.size();
+        int callCount = 0;
+        long when = 0;
+        for (PhoneCallLog phoneCallLog : phoneCallLogs) {
+            callCount += phoneCallLog.getAllCallRecords().size();
+            when = Math.max(when, phoneCallLog.getLastCallEndTimestamp());
+        }
+        if (callerCount == mSummaryCallerCount && callCount == mSummaryCallCount
+                && when == mSummaryWhen) {
+            return;
+        }
+        mSummaryCallerCount = callerCount;
+        mSummaryCallCount = callCount;
+        mSummaryWhen = when;
+
+        L.d(TAG, "show missed call summary for %d callers", callerCount);
+        Notification notification = new Notification.Builder(mContext, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_phone)
+                .setColor(mContext.getColor(R.color.notification_app_icon_color))
+                .setContentTitle(mContext.getResources().getQuantityString(
+                        R.plurals.notification_missed_call, callCount, callCount))
+                .setContentText(mContext.getResources().getQuantityString(
+                        R.plurals.notification_missed_call_callers, callerCount, callerCount))
+                .setContentIntent(getContentPendingIntent())
+                .setDeleteIntent(getSummaryDeleteIntent())
+                .setGroup(GROUP_KEY)
+                .setGroupSummary(true)
+                .setGroupAlertBehavior(Notification.GROUP_ALERT_CHILDREN)
+                .setOnlyAlertOnce(true)
+                .setShowWhen(true)
+                .setWhen(when)
+                .setAutoCancel(false)
+                .build();
+        mNotificationManager.notify(SUMMARY_TAG, NOTIFICATION_ID, notification);
+        mIsSummaryPosted = true;
+    }
+
+    /**
+     * Posts the notification of a caller. Without an avatar only the display name is looked up,
+     * so the callers beyond the most recent ones don't decode a photo each.
+     */
+    private void showMissedCallNotification(PhoneCallLog callLog,
+            MissedCallNotification missedCallNotification, boolean hasAvatar) {
         L.d(TAG, "show missed call notification %s", callLog);
         String phoneNumber = callLog.getPhoneNumberString();
-        String tag = getTag(callLog);
-        cancelLoadingRunnable(tag);
-        CompletableFuture<Void> updateFuture = NotificationUtils.getDisplayNameAndRoundedAvatar(
-                mContext, phoneNumber)
+        String tag = missedCallNotification.mTag;
+        missedCallNotification.cancelUpdate();
+        CompletableFuture<Pair<String, Icon>> callerFuture = hasAvatar
+                ? mCallerLoader.apply(phoneNumber)
+                : mCallerNameLoader.apply(phoneNumber).thenApply(name -> new Pair<>(name, null));
+        missedCallNotification.mUpdateFuture = callerFuture
                 .thenAcceptAsync((pair) -> {
                     int callLogSize = callLog.getAllCallRecords().size();
                     Notification.Builder builder = new Notification.Builder(mContext, CHANNEL_ID)
@@ -157,6 +283,9 @@ public final class MissedCallNotificationController {
                             .setShowWhen(true)
                             .setWhen(callLog.getLastCallEndTimestamp())
                             .setAutoCancel(false);
+                    if (mIsGroupingEnabled) {
+                        builder.setGroup(GROUP_KEY);
+                    }
 
                     if (!TextUtils.isEmpty(phoneNumber)) {
                         builder.addAction(getAction(phoneNumber, tag, R.string.call_back,
@@ -168,35 +297,40 @@ public final class MissedCallNotificationController {
                             tag,
                             NOTIFICATION_ID,
                             builder.build());
-                }, mContext.getMainExecutor());
-        mUpdateFutures.put(tag, updateFuture);
-    }
-
-    private void cancelMissedCallNotification(PhoneCallLog phoneCallLog) {
-        L.d(TAG, "cancel missed call notification %s", phoneCallLog);
-        String tag = getTag(phoneCallLog);
-        cancelMissedCallNotification(tag);
+                }, mMainExecutor);
     }
 
     /**
      * Explicitly cancels the notification that in some circumstances the database update operation
-     * has a delay to notify the cursor to reload.
+     * has a delay to notify the cursor to reload. The notification is kept cancelled until the
+     * missed calls of the caller change.
      */
     void cancelMissedCallNotification(String tag) {
         if (TextUtils.isEmpty(tag)) {
             L.w(TAG, "Invalid notification tag, ignore canceling request.");
             return;
         }
-        cancelLoadingRunnable(tag);
-        mNotificationManager.cancel(tag, NOTIFICATION_ID);
+        if (SUMMARY_TAG.equals(tag)) {
+            onSummaryDismissed();
+            return;
+        }
+        MissedCallNotification missedCallNotification = mMissedCallNotifications.get(tag);
+        if (missedCallNotification != null) {
+            missedCallNotification.cancel();
+        } else {
+            mNotificationManager.cancel(tag, NOTIFICATION_ID);
+        }
     }
 
-    private void cancelLoadingRunnable(String tag) {
-        CompletableFuture<Void> completableFuture = mUpdateFutures.get(tag);
-        if (completableFuture != null) {
-            completableFuture.cancel(true);
+    /**
+     * Dismissing the summary dismisses the whole group, so all the notifications are kept
+     * cancelled until the missed calls change, like a notification cancelled on its own.
+     */
+    private void onSummaryDismissed() {
+        for (MissedCallNotification missedCallNotification : mMissedCallNotifications.values()) {
+            missedCallNotification.cancel();
         }
-        mUpdateFutures.remove(tag);
+        mIsSummaryPosted = false;
     }
 
     private PendingIntent getContentPendingIntent() {
@@ -229,6 +363,19 @@ public final class MissedCallNotificationController {
         return pendingIntent;
     }
 
+    /** Marks all the missed calls as read, the summary stands for all of them. */
+    private PendingIntent getSummaryDeleteIntent() {
+        Intent intent = new Intent(NotificationService.ACTION_READ_MISSED, null, mContext,
+                NotificationService.class);
+        intent.putExtra(NotificationService.EXTRA_NOTIFICATION_TAG, SUMMARY_TAG);
+        return PendingIntent.getService(
+                mContext,
+                // Unique id for PendingIntents with different extras
+                /* requestCode= */(int) System.currentTimeMillis(),
+                intent,
+                PendingIntent.FLAG_IMMUTABLE);
+    }
+
     private Notification.Action getAction(String phoneNumberString, String tag,
             @StringRes int actionText, String intentAction) {
         CharSequence text = mContext.getString(actionText);
@@ -248,7 +395,63 @@ public final class MissedCallNotificationController {
                 PendingIntent.FLAG_IMMUTABLE);
     }
 
+    /**
+     * Returns a tag which is stable for the missed calls of a caller on a phone account, unlike
+     * the hash code of the call log which changes when more calls are missed.
+     */
     private String getTag(@NonNull PhoneCallLog phoneCallLog) {
-        return String.valueOf(phoneCallLog.hashCode());
+        String phoneNumber = phoneCallLog.getPhoneNumberString();
+        if (TextUtils.isEmpty(phoneNumber)) {
+            // Unknown calls are not merged, each of them has its own notification.
+            return phoneCallLog.getAccountName() + "/id:" + phoneCallLog.getPhoneLogId();
+        }
+        return phoneCallLog.getAccountName() + "/" + PhoneNumberUtils.normalizeNumber(phoneNumber);
+    }
+
+    /** The content of a missed call notification, to tell if it needs to be posted again. */
+    private final class MissedCallNotification {
+        private final String mTag;
+        private int mCallCount;
+        private long mWhen;
+        private boolean mIsPosted;
+        private boolean mHasAvatar;
+        @Nullable
+        private CompletableFuture<Void> mUpdateFuture;
+
+        private MissedCallNotification(String tag) {
+            mTag = tag;
+        }
+
+        private boolean hasChanged(PhoneCallLog phoneCallLog) {
+            return mCallCount != phoneCallLog.getAllCallRecords().size()
+                    || mWhen != phoneCallLog.getLastCallEndTimestamp();
+        }
+
+        /** Returns if the posted notification lacks the avatar it should now have. */
+        private boolean needsAvatar(boolean hasAvatar) {
+            return mIsPosted && hasAvatar && !mHasAvatar;
+        }
+
+        private void update(PhoneCallLog phoneCallLog, boolean hasAvatar) {
+            mCallCount = phoneCallLog.getAllCallRecords().size();
+            mWhen = phoneCallLog.getLastCallEndTimestamp();
+            mIsPosted = true;
+            mHasAvatar = hasAvatar;
+        }
+
+        private void cancelUpdate() {
+            if (mUpdateFuture != null) {
+                mUpdateFuture.cancel(true);
+                mUpdateFuture = null;
+            }
+        }
+
+        private void cancel() {
+            cancelUpdate();
+            if (mIsPosted) {
+                mNotificationManager.cancel(mTag, NOTIFICATION_ID);
+                mIsPosted = false;
+            }
+        }
     }
 }
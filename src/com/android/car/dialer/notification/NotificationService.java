@@ -24,12 +24,11 @@ import android.telecom.Call;
 import android.text.TextUtils;
 
 import com.android.car.dialer.Constants;
+import com.android.car.dialer.telecom.CallRegistry;
 import com.android.car.dialer.telecom.UiCallManager;
 import com.android.car.dialer.ui.activecall.InCallActivity;
 import com.android.car.telephony.common.TelecomUtils;
 
-import java.util.List;
-
 /**
  * A {@link Service} that is used to handle actions from notifications to:
  * <ul><li>answer or inject an incoming call.
@@ -96,6 +95,7 @@ public class NotificationService extends Service {
                 if (!TextUtils.isEmpty(phoneNumber)) {
                     TelecomUtils.markCallLogAsRead(context, phoneNumber);
                 } else {
+                    // Without a call log id, e.g. from the summary, all missed calls are read.
                     long callLogId = intent.getLongExtra(EXTRA_CALL_LOG_ID, -1);
                     TelecomUtils.markCallLogAsRead(context, callLogId);
                 }
@@ -110,24 +110,16 @@ public class NotificationService extends Service {
     }
 
     private void answerCall(String callId) {
-        List<Call> callList = UiCallManager.get().getCallList();
-        for (Call call : callList) {
-            if (call.getDetails() != null
-                    && TextUtils.equals(call.getDetails().getTelecomCallId(), callId)) {
-                call.answer(/* videoState= */0);
-                return;
-            }
+        Call call = CallRegistry.get().findCall(callId);
+        if (call != null) {
+            call.answer(/* videoState= */0);
         }
     }
 
     private void declineCall(String callId) {
-        List<Call> callList = UiCallManager.get().getCallList();
-        for (Call call : callList) {
-            if (call.getDetails() != null
-                    && TextUtils.equals(call.getDetails().getTelecomCallId(), callId)) {
-                call.reject(false, /* textMessage= */"");
-                return;
-            }
+        Call call = CallRegistry.get().findCall(callId);
+        if (call != null) {
+            call.reject(false, /* textMessage= */"");
         }
     }
 }
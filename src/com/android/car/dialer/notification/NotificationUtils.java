@@ -39,6 +39,13 @@ final class NotificationUtils {
 
     static CompletableFuture<Pair<String, Icon>> getDisplayNameAndRoundedAvatar(Context context,
             String number) {
+        return getCallerId(context, number)
+                .thenApply((callerId) -> new Pair<>(callerId.getDisplayName(),
+                        callerId.getAvatarIcon()));
+    }
+
+    /** Resolves the {@link CallerIdCache.CallerId} of the number, without caching it. */
+    static CompletableFuture<CallerIdCache.CallerId> getCallerId(Context context, String number) {
         return TelecomUtils.getPhoneNumberInfo(context, number)
                 .thenApplyAsync((info) -> {
                     int size = context.getResources()
@@ -51,7 +58,8 @@ final class NotificationUtils {
                                 /* identifier */ info.getDisplayName(), size, cornerRadiusPercent);
                     }
 
-                    return new Pair<>(info.getDisplayName(), largeIcon);
+                    return new CallerIdCache.CallerId(number, info.getDisplayName(), info,
+                            largeIcon);
                 });
     }
 
@@ -22,37 +22,39 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 import androidx.room.TypeConverter;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.KeyStore;
-import java.security.KeyStoreException;
-import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
-import java.security.UnrecoverableKeyException;
-import java.security.cert.CertificateException;
+import java.util.Arrays;
 
-import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.KeyGenerator;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 
 /**
- * A converter that does the encryption and decryption using android KeyStore system. See
- * https://developer.android.com/training/articles/keystore
+ * Encrypts and decrypts the phone numbers stored by Room. The key store key is loaded once and
+ * each thread keeps its own {@link Cipher} and output buffer, so converting a row doesn't go
+ * through the key store again.
  */
 public class CipherConverter {
     private static final String TAG = "CD.CipherConverter";
     private static final String KEY_STORE_ALIAS = "cd-cipher-converter";
     private static final String ANDROID_KEY_STORE = "AndroidKeyStore";
+    private static final int GCM_TAG_LENGTH_BITS = 128;
+    private static final int INITIAL_BUFFER_SIZE = 64;
+
+    private static final Object sLock = new Object();
+    private static volatile SecretKey sSecretKey;
+
+    private static final ThreadLocal<Cipher> sCipher = new ThreadLocal<>();
+    private static final ThreadLocal<byte[]> sOutputBuffer =
+            ThreadLocal.withInitial(() -> new byte[INITIAL_BUFFER_SIZE]);
 
     /**
      * Decryption.
@@ -67,34 +69,20 @@ public class CipherConverter {
     @TypeConverter
     @Nullable
     public CipherWrapper<String> decrypt(@NonNull byte[] encryptedData) {
-        if (encryptedData.length == 0) {
-            return null;
-        }
-
         try {
-            KeyStore ks = getKeyStore();
-            SecretKey decryptionKey = (SecretKey) ks.getKey(KEY_STORE_ALIAS, null);
-
-            Cipher cipher = getCipherInstance();
-            ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(encryptedData);
-
-            int ivLength = byteArrayInputStream.read();
-
-            byte[] iv = new byte[ivLength];
-            byteArrayInputStream.read(iv, 0, ivLength);
-
-            byte[] encryptedPhoneNumber = new byte[encryptedData.length - ivLength - 1];
-            byteArrayInputStream.read(encryptedPhoneNumber);
-
-            cipher.init(Cipher.DECRYPT_MODE, decryptionKey, new GCMParameterSpec(128, iv));
-            byte[] decryptionResult = cipher.doFinal(encryptedPhoneNumber);
-            String decryptString = new String(decryptionResult, "UTF-8");
-            return new CipherWrapper(decryptString);
-        } catch (KeyStoreException | IOException | CertificateException | NoSuchAlgorithmException
-                | UnrecoverableKeyException | NoSuchPaddingException | BadPaddingException
-                | IllegalBlockSizeException | InvalidKeyException
-                | InvalidAlgorithmParameterException e) {
-            Log.e(TAG, e.toString());
+            Cipher cipher = initDecryption(encryptedData);
+            if (cipher == null) {
+                return null;
+            }
+            int encryptedOffset = getEncryptedOffset(encryptedData);
+            int encryptedLength = encryptedData.length - encryptedOffset;
+            byte[] outputBuffer = getOutputBuffer(cipher.getOutputSize(encryptedLength));
+            int decryptedLength = cipher.doFinal(encryptedData, encryptedOffset, encryptedLength,
+                    outputBuffer);
+            return new CipherWrapper<>(
+                    new String(outputBuffer, 0, decryptedLength, StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException | IOException e) {
+            onCipherException(e);
         }
         return null;
     }
@@ -109,12 +97,118 @@ public class CipherConverter {
     @NonNull
     @TypeConverter
     public byte[] encrypt(CipherWrapper<String> stringCipherWrapper) {
+        return encryptBytes(stringCipherWrapper.get().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decrypts data encrypted by {@link #encryptBytes}. Unlike {@link #decrypt}, the result is not
+     * decoded through the shared output buffer, so large data isn't kept in memory.
+     *
+     * @return the decrypted data, or null if the data is not valid or decryption fails.
+     */
+    @WorkerThread
+    @Nullable
+    byte[] decryptBytes(@NonNull byte[] encryptedData) {
         try {
-            KeyStore ks = getKeyStore();
-            SecretKey secretKey;
-            if (ks.containsAlias(KEY_STORE_ALIAS)) {
-                secretKey = (SecretKey) ks.getKey(KEY_STORE_ALIAS, null);
-            } else {
+            Cipher cipher = initDecryption(encryptedData);
+            if (cipher == null) {
+                return null;
+            }
+            int encryptedOffset = getEncryptedOffset(encryptedData);
+            return cipher.doFinal(encryptedData, encryptedOffset,
+                    encryptedData.length - encryptedOffset);
+        } catch (GeneralSecurityException | IOException e) {
+            onCipherException(e);
+        }
+        return null;
+    }
+
+    /**
+     * Encrypts the data in the same format as the phone numbers.
+     *
+     * @return byte array that includes the iv length, iv and encrypted data. Empty if encryption
+     * fails.
+     */
+    @WorkerThread
+    @NonNull
+    byte[] encryptBytes(@NonNull byte[] data) {
+        try {
+            SecretKey secretKey = getSecretKey(/* createIfMissing= */true);
+
+            Cipher cipher = getCipher();
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
+            byte[] iv = cipher.getIV();
+
+            // The result is written in place after the iv length and the iv.
+            int encryptedOffset = 1 + iv.length;
+            byte[] result = new byte[encryptedOffset + cipher.getOutputSize(data.length)];
+            result[0] = (byte) iv.length;
+            System.arraycopy(iv, 0, result, 1, iv.length);
+            int encryptedLength = cipher.doFinal(data, 0, data.length, result, encryptedOffset);
+            return encryptedOffset + encryptedLength == result.length
+                    ? result : Arrays.copyOf(result, encryptedOffset + encryptedLength);
+        } catch (GeneralSecurityException | IOException e) {
+            onCipherException(e);
+        }
+        return new byte[0];
+    }
+
+    /**
+     * Returns the cipher of this thread initialized to decrypt the data, or null if the data is not
+     * valid or there is no key.
+     */
+    @Nullable
+    private static Cipher initDecryption(@NonNull byte[] encryptedData)
+            throws GeneralSecurityException, IOException {
+        if (encryptedData.length == 0) {
+            return null;
+        }
+        if (getEncryptedOffset(encryptedData) > encryptedData.length) {
+            Log.e(TAG, "Invalid encrypted data");
+            return null;
+        }
+
+        SecretKey decryptionKey = getSecretKey(/* createIfMissing= */false);
+        if (decryptionKey == null) {
+            Log.e(TAG, "No key to decrypt");
+            return null;
+        }
+
+        int ivLength = encryptedData[0] & 0xFF;
+        Cipher cipher = getCipher();
+        cipher.init(Cipher.DECRYPT_MODE, decryptionKey,
+                new GCMParameterSpec(GCM_TAG_LENGTH_BITS, encryptedData, 1, ivLength));
+        return cipher;
+    }
+
+    private static int getEncryptedOffset(byte[] encryptedData) {
+        return 1 + (encryptedData[0] & 0xFF);
+    }
+
+    /** Sets the key used instead of the key store key. */
+    @VisibleForTesting
+    static void setSecretKey(@Nullable SecretKey secretKey) {
+        sSecretKey = secretKey;
+    }
+
+    @Nullable
+    private static SecretKey getSecretKey(boolean createIfMissing)
+            throws GeneralSecurityException, IOException {
+        SecretKey secretKey = sSecretKey;
+        if (secretKey != null) {
+            return secretKey;
+        }
+
+        synchronized (sLock) {
+            if (sSecretKey != null) {
+                return sSecretKey;
+            }
+
+            KeyStore keyStore = KeyStore.getInstance(ANDROID_KEY_STORE);
+            keyStore.load(null);
+            if (keyStore.containsAlias(KEY_STORE_ALIAS)) {
+                sSecretKey = (SecretKey) keyStore.getKey(KEY_STORE_ALIAS, null);
+            } else if (createIfMissing) {
                 KeyGenerator kpg = KeyGenerator.getInstance(KeyProperties.KEY_ALGORITHM_AES,
                         ANDROID_KEY_STORE);
                 KeyGenParameterSpec keyGenParameterSpec = new KeyGenParameterSpec.Builder(
@@ -124,39 +218,37 @@ public class CipherConverter {
                         .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
                         .build();
                 kpg.init(keyGenParameterSpec);
-                secretKey = kpg.generateKey();
+                sSecretKey = kpg.generateKey();
             }
+            return sSecretKey;
+        }
+    }
 
-            Cipher cipher = getCipherInstance();
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-            byte[] iv = cipher.getIV();
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            outputStream.write(iv.length);
-            outputStream.write(iv);
-            byte[] encryptionResult = cipher.doFinal(
-                    stringCipherWrapper.get().getBytes("UTF-8"));
-            outputStream.write(encryptionResult);
-            return outputStream.toByteArray();
-        } catch (KeyStoreException | IOException | CertificateException | NoSuchAlgorithmException
-                | UnrecoverableKeyException | NoSuchProviderException | NoSuchPaddingException
-                | BadPaddingException | IllegalBlockSizeException | InvalidKeyException
-                | InvalidAlgorithmParameterException e) {
-            Log.e(TAG, e.toString());
+    private static Cipher getCipher() throws GeneralSecurityException {
+        Cipher cipher = sCipher.get();
+        if (cipher == null) {
+            cipher = Cipher.getInstance(
+                    KeyProperties.KEY_ALGORITHM_AES + "/" + KeyProperties.BLOCK_MODE_GCM + "/"
+                            + KeyProperties.ENCRYPTION_PADDING_NONE);
+            sCipher.set(cipher);
         }
-        return new byte[0];
+        return cipher;
     }
 
-    private KeyStore getKeyStore()
-            throws KeyStoreException, IOException, CertificateException, NoSuchAlgorithmException {
-        KeyStore keyStore = KeyStore.getInstance(ANDROID_KEY_STORE);
-        keyStore.load(null);
-        return keyStore;
+    private static byte[] getOutputBuffer(int minSize) {
+        byte[] outputBuffer = sOutputBuffer.get();
+        if (outputBuffer.length < minSize) {
+            outputBuffer = new byte[Math.max(minSize, outputBuffer.length * 2)];
+            sOutputBuffer.set(outputBuffer);
+        }
+        return outputBuffer;
     }
 
-    private Cipher getCipherInstance()
-            throws NoSuchAlgorithmException, NoSuchPaddingException {
-        return Cipher.getInstance(
-                KeyProperties.KEY_ALGORITHM_AES + "/" + KeyProperties.BLOCK_MODE_GCM + "/"
-                        + KeyProperties.ENCRYPTION_PADDING_NONE);
+    private static void onCipherException(Exception e) {
+        Log.e(TAG, e.toString());
+        // The key might have been invalidated, load it again on the next call. The cipher of this
+        // thread might be left in an unusable state.
+        sSecretKey = null;
+        sCipher.remove();
     }
 }
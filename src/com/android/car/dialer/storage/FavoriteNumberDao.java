@@ -21,6 +21,7 @@ import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import java.util.List;
@@ -40,6 +41,17 @@ public interface FavoriteNumberDao {
     @Query("SELECT * FROM favorite_number_entity")
     LiveData<List<FavoriteNumberEntity>> loadAll();
 
+    /** Get all the favorite number entries, on the calling thread. */
+    @Query("SELECT * FROM favorite_number_entity")
+    List<FavoriteNumberEntity> getAll();
+
+    /**
+     * Get the favorite number entries of an account by the blind index of their phone number.
+     */
+    @Query("SELECT * FROM favorite_number_entity WHERE mPhoneNumberIndex = :phoneNumberIndex"
+            + " AND mAccountName IS :accountName")
+    List<FavoriteNumberEntity> findByNumber(String phoneNumberIndex, String accountName);
+
     /**
      * Update the given favorite number entry. Does nothing if the entry does not exist in database.
      */
@@ -54,6 +66,21 @@ public interface FavoriteNumberDao {
     @Delete
     void delete(FavoriteNumberEntity favoriteNumbers);
 
+    /** Delete multiple favorite number entries. */
+    @Delete
+    void deleteAll(List<FavoriteNumberEntity> favoriteNumbers);
+
+    /**
+     * Delete favorite number entries and update others in a single transaction, so the observers
+     * of the favorite numbers are notified once.
+     */
+    @Transaction
+    default void deleteAndUpdateAll(List<FavoriteNumberEntity> toDelete,
+            List<FavoriteNumberEntity> toUpdate) {
+        deleteAll(toDelete);
+        updateAll(toUpdate);
+    }
+
     /** Delete all the favorite numbers whose account name do not match any of the devices. */
     @Query("DELETE FROM favorite_number_entity WHERE mAccountName IS NOT NULL"
             + " AND mAccountName NOT IN (:pairedDeviceAddresses)")
@@ -16,15 +16,22 @@
 
 package com.android.car.dialer.storage;
 
+import android.content.ContentValues;
 import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.room.Database;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
 /** Defines the database for the {@link FavoriteNumberEntity}s. */
-@Database(entities = {FavoriteNumberEntity.class}, exportSchema = false, version = 1)
+@Database(entities = {FavoriteNumberEntity.class}, exportSchema = false, version = 2)
 @TypeConverters(CipherConverter.class)
 public abstract class FavoriteNumberDatabase extends RoomDatabase {
 
@@ -38,10 +45,49 @@ public abstract class FavoriteNumberDatabase extends RoomDatabase {
             synchronized (FavoriteNumberDatabase.class) {
                 if (sFavoriteNumberDatabase == null) {
                     sFavoriteNumberDatabase = Room.databaseBuilder(context.getApplicationContext(),
-                            FavoriteNumberDatabase.class, "favorite_number_database").build();
+                            FavoriteNumberDatabase.class, "favorite_number_database")
+                            .addMigrations(createMigration1To2(
+                                    new PhoneNumberBlindIndex(context)))
+                            .build();
                 }
             }
         }
         return sFavoriteNumberDatabase;
     }
+
+    /**
+     * Version 2 adds the blind index of the phone number, indexed together with the account name.
+     * The blind index of the existing entries is computed from their decrypted phone number.
+     */
+    @VisibleForTesting
+    static Migration createMigration1To2(PhoneNumberBlindIndex phoneNumberBlindIndex) {
+        return new Migration(1, 2) {
+            @Override
+            public void migrate(@NonNull SupportSQLiteDatabase database) {
+                database.execSQL("ALTER TABLE favorite_number_entity"
+                        + " ADD COLUMN mPhoneNumberIndex TEXT");
+                database.execSQL("CREATE INDEX IF NOT EXISTS"
+                        + " index_favorite_number_entity_mPhoneNumberIndex_mAccountName"
+                        + " ON favorite_number_entity (mPhoneNumberIndex, mAccountName)");
+
+                CipherConverter cipherConverter = new CipherConverter();
+                try (Cursor cursor = database.query(
+                        "SELECT mIndex, mPhoneNumber FROM favorite_number_entity")) {
+                    while (cursor.moveToNext()) {
+                        byte[] encryptedPhoneNumber = cursor.getBlob(1);
+                        CipherWrapper<String> phoneNumber = encryptedPhoneNumber == null
+                                ? null : cipherConverter.decrypt(encryptedPhoneNumber);
+                        if (phoneNumber == null) {
+                            continue;
+                        }
+                        ContentValues values = new ContentValues();
+                        values.put("mPhoneNumberIndex",
+                                phoneNumberBlindIndex.compute(phoneNumber.get()));
+                        database.update("favorite_number_entity", SQLiteDatabase.CONFLICT_NONE,
+                                values, "mIndex = ?", new Object[]{cursor.getInt(0)});
+                    }
+                }
+            }
+        };
+    }
 }
@@ -18,10 +18,12 @@ package com.android.car.dialer.storage;
 
 import androidx.annotation.Nullable;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 /** Favorite number entity */
-@Entity(tableName = "favorite_number_entity")
+@Entity(tableName = "favorite_number_entity",
+        indices = {@Index(value = {"mPhoneNumberIndex", "mAccountName"})})
 public class FavoriteNumberEntity {
     @PrimaryKey(autoGenerate = true)
     private int mIndex;
@@ -33,6 +35,10 @@ public class FavoriteNumberEntity {
 
     private CipherWrapper<String> mPhoneNumber;
 
+    /** Blind index of the phone number, see {@link PhoneNumberBlindIndex}. */
+    @Nullable
+    private String mPhoneNumberIndex;
+
     private String mAccountName;
 
     private String mAccountType;
@@ -70,6 +76,15 @@ public class FavoriteNumberEntity {
         return mPhoneNumber;
     }
 
+    public void setPhoneNumberIndex(@Nullable String phoneNumberIndex) {
+        mPhoneNumberIndex = phoneNumberIndex;
+    }
+
+    @Nullable
+    public String getPhoneNumberIndex() {
+        return mPhoneNumberIndex;
+    }
+
     public void setAccountName(String accountName) {
         mAccountName = accountName;
     }
@@ -22,13 +22,17 @@ import android.content.ContentUris;
 import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.provider.ContactsContract;
 import android.text.TextUtils;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.annotation.WorkerThread;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
-import androidx.lifecycle.MutableLiveData;
 
 import com.android.car.dialer.log.L;
 import com.android.car.telephony.common.Contact;
@@ -37,8 +41,13 @@ import com.android.car.telephony.common.InMemoryPhoneBook;
 import com.android.car.telephony.common.PhoneNumber;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -50,6 +59,30 @@ import java.util.concurrent.Future;
  */
 public class FavoriteNumberRepository {
     private static final String TAG = "CD.FavRepository";
+    /** The columns {@link Contact#fromCursor} reads for a phone number row. */
+    public static final String[] PHONE_PROJECTION = {
+            ContactsContract.Data._ID,
+            ContactsContract.Data.CONTACT_ID,
+            ContactsContract.Data.RAW_CONTACT_ID,
+            ContactsContract.Data.LOOKUP_KEY,
+            ContactsContract.Data.MIMETYPE,
+            ContactsContract.Data.STARRED,
+            ContactsContract.Data.DISPLAY_NAME_PRIMARY,
+            ContactsContract.Data.DISPLAY_NAME_ALTERNATIVE,
+            ContactsContract.Data.PHONEBOOK_LABEL_PRIMARY,
+            ContactsContract.Data.PHONEBOOK_LABEL_ALTERNATIVE,
+            ContactsContract.Data.PHOTO_URI,
+            ContactsContract.Data.PHOTO_THUMBNAIL_URI,
+            ContactsContract.Data.IS_PRIMARY,
+            ContactsContract.Data.IS_SUPER_PRIMARY,
+            ContactsContract.Data.DATA_VERSION,
+            ContactsContract.RawContacts.ACCOUNT_NAME,
+            ContactsContract.RawContacts.ACCOUNT_TYPE,
+            ContactsContract.CommonDataKinds.Phone.NUMBER,
+            ContactsContract.CommonDataKinds.Phone.TYPE,
+            ContactsContract.CommonDataKinds.Phone.LABEL};
+    // Stays well below the SQLite limit of bound arguments per statement.
+    private static final int MAX_LOOKUP_KEYS_PER_QUERY = 500;
     private static ExecutorService sSerializedExecutor;
 
     static {
@@ -73,16 +106,25 @@ public class FavoriteNumberRepository {
     }
 
     private final Context mContext;
+    private final ExecutorService mSerializedExecutor;
     private final FavoriteNumberDao mFavoriteNumberDao;
+    private final PhoneNumberBlindIndex mPhoneNumberBlindIndex;
     private final LiveData<List<FavoriteNumberEntity>> mFavoriteNumbers;
     private final LiveData<List<Contact>> mFavoriteContacts;
     private Future<?> mConvertAllRunnableFuture;
 
     private FavoriteNumberRepository(Context context) {
-        mContext = context.getApplicationContext();
+        this(context, FavoriteNumberDatabase.getDatabase(context).favoriteNumberDao(),
+                new PhoneNumberBlindIndex(context), sSerializedExecutor);
+    }
 
-        FavoriteNumberDatabase db = FavoriteNumberDatabase.getDatabase(mContext);
-        mFavoriteNumberDao = db.favoriteNumberDao();
+    @VisibleForTesting
+    FavoriteNumberRepository(Context context, FavoriteNumberDao favoriteNumberDao,
+            PhoneNumberBlindIndex phoneNumberBlindIndex, ExecutorService serializedExecutor) {
+        mContext = context.getApplicationContext();
+        mSerializedExecutor = serializedExecutor;
+        mFavoriteNumberDao = favoriteNumberDao;
+        mPhoneNumberBlindIndex = phoneNumberBlindIndex;
         mFavoriteNumbers = mFavoriteNumberDao.loadAll();
 
         mFavoriteContacts = new FavoriteContactLiveData(mContext);
@@ -106,27 +148,105 @@ public class FavoriteNumberRepository {
      * Add a phone number to favorite.
      */
     public void addToFavorite(Contact contact, PhoneNumber phoneNumber) {
-        FavoriteNumberEntity favoriteNumber = new FavoriteNumberEntity();
-        favoriteNumber.setContactId(contact.getId());
-        favoriteNumber.setContactLookupKey(contact.getLookupKey());
-        favoriteNumber.setPhoneNumber(new CipherWrapper<>(
-                phoneNumber.getRawNumber()));
-        favoriteNumber.setAccountName(phoneNumber.getAccountName());
-        favoriteNumber.setAccountType(phoneNumber.getAccountType());
-        sSerializedExecutor.execute(() -> mFavoriteNumberDao.insert(favoriteNumber));
+        addToFavorite(contact, Collections.singletonList(phoneNumber));
+    }
+
+    /**
+     * Add phone numbers of a contact to favorite. They are inserted in a single transaction, so the
+     * favorite list is updated once.
+     */
+    public void addToFavorite(Contact contact, Collection<PhoneNumber> phoneNumbers) {
+        List<FavoriteNumberEntity> favoriteNumbers = new ArrayList<>(phoneNumbers.size());
+        for (PhoneNumber phoneNumber : phoneNumbers) {
+            FavoriteNumberEntity favoriteNumber = new FavoriteNumberEntity();
+            favoriteNumber.setContactId(contact.getId());
+            favoriteNumber.setContactLookupKey(contact.getLookupKey());
+            favoriteNumber.setPhoneNumber(new CipherWrapper<>(
+                    phoneNumber.getRawNumber()));
+            favoriteNumber.setAccountName(phoneNumber.getAccountName());
+            favoriteNumber.setAccountType(phoneNumber.getAccountType());
+            favoriteNumbers.add(favoriteNumber);
+        }
+        if (favoriteNumbers.isEmpty()) {
+            return;
+        }
+        mSerializedExecutor.execute(() -> {
+            for (FavoriteNumberEntity favoriteNumber : favoriteNumbers) {
+                favoriteNumber.setPhoneNumberIndex(mPhoneNumberBlindIndex.compute(
+                        favoriteNumber.getPhoneNumber().get()));
+            }
+            mFavoriteNumberDao.insertAll(favoriteNumbers);
+        });
     }
 
     /**
      * Remove a phone number from favorite.
      */
     public void removeFromFavorite(Contact contact, PhoneNumber phoneNumber) {
-        List<FavoriteNumberEntity> favoriteNumbers = mFavoriteNumbers.getValue();
-        if (favoriteNumbers == null) {
+        removeFromFavorite(contact, Collections.singletonList(phoneNumber));
+    }
+
+    /**
+     * Remove phone numbers of a contact from favorite. The entries are deleted and the stale
+     * indexes found on the way are rewritten in a single transaction, so the favorite list is
+     * updated once.
+     */
+    public void removeFromFavorite(Contact contact, Collection<PhoneNumber> phoneNumbers) {
+        List<PhoneNumber> phoneNumberList = new ArrayList<>(phoneNumbers);
+        mSerializedExecutor.execute(() -> {
+            List<FavoriteNumberEntity> toDelete = new ArrayList<>();
+            List<FavoriteNumberEntity> staleIndexEntries = new ArrayList<>();
+            for (PhoneNumber phoneNumber : phoneNumberList) {
+                collectFavoriteEntries(contact, phoneNumber, toDelete, staleIndexEntries);
+            }
+            if (!toDelete.isEmpty() || !staleIndexEntries.isEmpty()) {
+                // Updating the deleted entries does nothing.
+                mFavoriteNumberDao.deleteAndUpdateAll(toDelete, staleIndexEntries);
+            }
+        });
+    }
+
+    /**
+     * Adds the favorite entries of the phone number to {@code results}. Looks up the entries by
+     * the blind index of the number first. If none matches, the stored index of the entry may be
+     * stale: the key was regenerated, the region changed the normalized number or the index was
+     * never computed. All the entries are then matched by decrypting their number, and the ones
+     * whose index changed are added to {@code staleIndexEntries} with their index rewritten.
+     */
+    @WorkerThread
+    private void collectFavoriteEntries(Contact contact, PhoneNumber phoneNumber,
+            List<FavoriteNumberEntity> results, List<FavoriteNumberEntity> staleIndexEntries) {
+        String phoneNumberIndex = mPhoneNumberBlindIndex.compute(phoneNumber.getRawNumber());
+        List<FavoriteNumberEntity> candidates = phoneNumberIndex == null
+                ? Collections.emptyList()
+                : mFavoriteNumberDao.findByNumber(phoneNumberIndex, phoneNumber.getAccountName());
+        boolean found = false;
+        for (FavoriteNumberEntity favoriteNumberEntity : candidates) {
+            if (TextUtils.equals(favoriteNumberEntity.getContactLookupKey(),
+                    contact.getLookupKey())
+                    && TextUtils.equals(favoriteNumberEntity.getAccountType(),
+                    phoneNumber.getAccountType())) {
+                results.add(favoriteNumberEntity);
+                found = true;
+            }
+        }
+        if (found) {
             return;
         }
-        for (FavoriteNumberEntity favoriteNumberEntity : favoriteNumbers) {
+
+        L.d(TAG, "No favorite entry by blind index, matching all entries");
+        for (FavoriteNumberEntity favoriteNumberEntity : mFavoriteNumberDao.getAll()) {
+            if (favoriteNumberEntity.getPhoneNumber() == null) {
+                continue;
+            }
+            String currentIndex = mPhoneNumberBlindIndex.compute(
+                    favoriteNumberEntity.getPhoneNumber().get());
+            if (!TextUtils.equals(currentIndex, favoriteNumberEntity.getPhoneNumberIndex())) {
+                favoriteNumberEntity.setPhoneNumberIndex(currentIndex);
+                staleIndexEntries.add(favoriteNumberEntity);
+            }
             if (matches(favoriteNumberEntity, contact, phoneNumber)) {
-                sSerializedExecutor.execute(() -> mFavoriteNumberDao.delete(favoriteNumberEntity));
+                results.add(favoriteNumberEntity);
             }
         }
     }
@@ -136,12 +256,13 @@ public class FavoriteNumberRepository {
      */
     public void cleanup(Set<BluetoothDevice> pairedDevices) {
         L.d(TAG, "remove entries for unpaired devices except %s", pairedDevices);
-        sSerializedExecutor.execute(() -> {
+        mSerializedExecutor.execute(() -> {
             List<String> pairedDeviceAddresses = new ArrayList<>();
             for (BluetoothDevice device : pairedDevices) {
                 pairedDeviceAddresses.add(device.getAddress());
             }
             mFavoriteNumberDao.cleanup(pairedDeviceAddresses);
+            FavoriteTileCache.get(mContext).cleanup(new HashSet<>(pairedDeviceAddresses));
         });
     }
 
@@ -149,26 +270,29 @@ public class FavoriteNumberRepository {
      * Convert the {@link FavoriteNumberEntity}s to {@link Contact}s and update contact id and
      * contact lookup key for all the entities that are out of date.
      */
-    private void convertToContacts(Context context, final MutableLiveData<List<Contact>> results) {
+    private void convertToContacts(Context context, final FavoriteContactLiveData results) {
         if (mConvertAllRunnableFuture != null) {
             mConvertAllRunnableFuture.cancel(false);
         }
 
-        mConvertAllRunnableFuture = sSerializedExecutor.submit(() -> {
+        mConvertAllRunnableFuture = mSerializedExecutor.submit(() -> {
             // Don't set null value to trigger unnecessary update when results are null.
             if (mFavoriteNumbers.getValue() == null) {
                 if (results.getValue() != null) {
-                    results.postValue(Collections.emptyList());
+                    results.postFavoriteContacts(Collections.emptyList());
                 }
                 return;
             }
 
+            long startTime = SystemClock.elapsedRealtime();
             ContentResolver cr = context.getContentResolver();
             List<FavoriteNumberEntity> outOfDateList = new ArrayList<>();
             List<Contact> favoriteContacts = new ArrayList<>();
             List<FavoriteNumberEntity> favoriteNumbers = mFavoriteNumbers.getValue();
-            for (FavoriteNumberEntity favoriteNumber : favoriteNumbers) {
-                Contact contact = lookupContact(cr, favoriteNumber);
+            Contact[] contacts = lookupContacts(cr, favoriteNumbers);
+            for (int i = 0; i < favoriteNumbers.size(); i++) {
+                FavoriteNumberEntity favoriteNumber = favoriteNumbers.get(i);
+                Contact contact = contacts[i];
                 if (contact != null) {
                     favoriteContacts.add(contact);
                     if (favoriteNumber.getContactId() != contact.getId()
@@ -180,13 +304,108 @@ public class FavoriteNumberRepository {
                     }
                 }
             }
-            results.postValue(favoriteContacts);
+            L.d(TAG, "Resolved %d of %d favorites in %d ms", favoriteContacts.size(),
+                    favoriteNumbers.size(), SystemClock.elapsedRealtime() - startTime);
+            results.postFavoriteContacts(favoriteContacts);
             if (!outOfDateList.isEmpty()) {
                 mFavoriteNumberDao.updateAll(outOfDateList);
             }
         });
     }
 
+    /**
+     * Resolves the contacts of all the favorite entities. The contacts of each device are queried
+     * by their lookup keys in batches, only the entities whose lookup key is no longer valid are
+     * resolved one by one.
+     *
+     * @return the contacts at the index of their favorite entity, null if it can't be resolved.
+     */
+    @WorkerThread
+    private Contact[] lookupContacts(ContentResolver cr,
+            List<FavoriteNumberEntity> favoriteNumbers) {
+        Contact[] contacts = new Contact[favoriteNumbers.size()];
+        boolean[] found = new boolean[favoriteNumbers.size()];
+
+        // Favorite indexes by lookup key, by account name. The same lookup key can be used by
+        // the phone books downloaded from different devices.
+        Map<String, Map<String, List<Integer>>> indexesByAccount = new HashMap<>();
+        for (int i = 0; i < favoriteNumbers.size(); i++) {
+            FavoriteNumberEntity favoriteNumber = favoriteNumbers.get(i);
+            String lookupKey = favoriteNumber.getContactLookupKey();
+            if (!TextUtils.isEmpty(lookupKey) && favoriteNumber.getAccountName() != null) {
+                indexesByAccount
+                        .computeIfAbsent(favoriteNumber.getAccountName(), key -> new HashMap<>())
+                        .computeIfAbsent(lookupKey, key -> new ArrayList<>())
+                        .add(i);
+            }
+        }
+
+        for (Map.Entry<String, Map<String, List<Integer>>> entry : indexesByAccount.entrySet()) {
+            Map<String, List<Integer>> indexesByLookupKey = entry.getValue();
+            List<String> lookupKeys = new ArrayList<>(indexesByLookupKey.keySet());
+            for (int start = 0; start < lookupKeys.size(); start += MAX_LOOKUP_KEYS_PER_QUERY) {
+                List<String> batch = lookupKeys.subList(start,
+                        Math.min(start + MAX_LOOKUP_KEYS_PER_QUERY, lookupKeys.size()));
+                lookupContactsOfAccount(cr, entry.getKey(), batch, indexesByLookupKey,
+                        favoriteNumbers, contacts, found);
+            }
+        }
+
+        // Lookup keys change when contacts are aggregated differently, refresh them through the
+        // lookup uri.
+        for (int i = 0; i < favoriteNumbers.size(); i++) {
+            if (!found[i]) {
+                contacts[i] = lookupContact(cr, favoriteNumbers.get(i));
+            }
+        }
+        return contacts;
+    }
+
+    /**
+     * Queries the phone number rows of a batch of lookup keys of one account, and sets the contact
+     * of the favorite entities using them.
+     */
+    @WorkerThread
+    private void lookupContactsOfAccount(ContentResolver cr, String accountName,
+            List<String> lookupKeys, Map<String, List<Integer>> indexesByLookupKey,
+            List<FavoriteNumberEntity> favoriteNumbers, Contact[] contacts, boolean[] found) {
+        String selection = ContactsContract.RawContacts.ACCOUNT_NAME + " = ? AND "
+                + ContactsContract.CommonDataKinds.Phone.LOOKUP_KEY + " IN ("
+                + TextUtils.join(",", Collections.nCopies(lookupKeys.size(), "?")) + ")";
+        List<String> selectionArgs = new ArrayList<>(lookupKeys.size() + 1);
+        selectionArgs.add(accountName);
+        selectionArgs.addAll(lookupKeys);
+        try (Cursor cursor = cr.query(
+                ContactsContract.CommonDataKinds.Phone.CONTENT_URI,
+                PHONE_PROJECTION,
+                selection,
+                selectionArgs.toArray(new String[0]),
+                /* orderBy= */null)) {
+            if (cursor == null) {
+                return;
+            }
+            int lookupKeyColumn = cursor.getColumnIndex(
+                    ContactsContract.CommonDataKinds.Phone.LOOKUP_KEY);
+            Set<String> resolvedLookupKeys = new HashSet<>();
+            while (cursor.moveToNext()) {
+                String lookupKey = cursor.getString(lookupKeyColumn);
+                // Like a query by contact id, the first row of a contact is used.
+                if (!resolvedLookupKeys.add(lookupKey)) {
+                    continue;
+                }
+                List<Integer> indexes = indexesByLookupKey.get(lookupKey);
+                if (indexes == null) {
+                    continue;
+                }
+                for (int index : indexes) {
+                    found[index] = true;
+                    contacts[index] = toFavoriteContact(Contact.fromCursor(mContext, cursor),
+                            favoriteNumbers.get(index));
+                }
+            }
+        }
+    }
+
     @WorkerThread
     private Contact lookupContact(ContentResolver cr, FavoriteNumberEntity favoriteNumber) {
         Uri lookupUri = ContactsContract.Contacts.getLookupUri(
@@ -200,30 +419,40 @@ public class FavoriteNumberRepository {
 
         try (Cursor cursor = cr.query(
                 ContactsContract.CommonDataKinds.Phone.CONTENT_URI,
-                /* projection= */null,
+                PHONE_PROJECTION,
                 /* selection= */ ContactsContract.CommonDataKinds.Phone.CONTACT_ID + " = ?",
                 new String[]{String.valueOf(contactId)},
                 /* orderBy= */null)) {
             if (cursor != null) {
                 if (cursor.moveToFirst()) {
-                    Contact contact = Contact.fromCursor(mContext, cursor);
-                    contact.getNumbers().clear();
-                    Contact inMemoryContact = InMemoryPhoneBook.get().lookupContactByKey(
-                            contact.getLookupKey(), contact.getAccountName());
-                    for (PhoneNumber inMemoryPhoneNumber : inMemoryContact.getNumbers()) {
-                        if (numberMatches(favoriteNumber, inMemoryPhoneNumber)) {
-                            contact.getNumbers().add(inMemoryPhoneNumber);
-                        }
-                    }
-                    if (!contact.getNumbers().isEmpty()) {
-                        return contact;
-                    }
+                    return toFavoriteContact(Contact.fromCursor(mContext, cursor),
+                            favoriteNumber);
                 }
             }
         }
         return null;
     }
 
+    /**
+     * Keeps only the phone numbers of the favorite entity on the contact, joined against the
+     * {@link InMemoryPhoneBook}. Returns null if none of them matches.
+     */
+    @Nullable
+    private Contact toFavoriteContact(Contact contact, FavoriteNumberEntity favoriteNumber) {
+        contact.getNumbers().clear();
+        Contact inMemoryContact = InMemoryPhoneBook.get().lookupContactByKey(
+                contact.getLookupKey(), contact.getAccountName());
+        if (inMemoryContact == null) {
+            return null;
+        }
+        for (PhoneNumber inMemoryPhoneNumber : inMemoryContact.getNumbers()) {
+            if (numberMatches(favoriteNumber, inMemoryPhoneNumber)) {
+                contact.getNumbers().add(inMemoryPhoneNumber);
+            }
+        }
+        return contact.getNumbers().isEmpty() ? null : contact;
+    }
+
     private boolean matches(FavoriteNumberEntity favoriteNumber, Contact contact,
             PhoneNumber phoneNumber) {
         if (TextUtils.equals(favoriteNumber.getContactLookupKey(), contact.getLookupKey())) {
@@ -250,6 +479,13 @@ public class FavoriteNumberRepository {
     }
 
     private class FavoriteContactLiveData extends MediatorLiveData<List<Contact>> {
+        private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+        /**
+         * The phone numbers flagged as favorite once the last posted value is applied. Only
+         * accessed on the serialized executor.
+         */
+        private Set<PhoneNumber> mFavoritePhoneNumbers = newIdentitySet();
+
         private FavoriteContactLiveData(Context context) {
             super();
             addSource(InMemoryPhoneBook.get().getContactsLiveData(),
@@ -259,25 +495,46 @@ public class FavoriteNumberRepository {
                     favoriteContacts.size()));
         }
 
-        @Override
-        public void setValue(List<Contact> contacts) {
-            // Clean up the old favorite bit and update the new favorite bit.
-            List<Contact> currentList = getValue();
-            if (currentList != null) {
-                for (Contact contact : currentList) {
-                    for (PhoneNumber phoneNumber : contact.getNumbers()) {
-                        phoneNumber.setIsFavorite(false);
-                    }
-                }
+        /**
+         * Computes which phone numbers change their favorite bit and posts the new favorite contacts
+         * together with these changes. The phone numbers are shared with the {@link
+         * InMemoryPhoneBook}, so only the changed bits are updated and observers never see a
+         * cleared bit for a number that stays favorite.
+         */
+        @WorkerThread
+        private void postFavoriteContacts(List<Contact> contacts) {
+            Set<PhoneNumber> favoritePhoneNumbers = newIdentitySet();
+            for (Contact contact : contacts) {
+                favoritePhoneNumbers.addAll(contact.getNumbers());
             }
 
-            for (Contact contact : contacts) {
-                for (PhoneNumber phoneNumber : contact.getNumbers()) {
-                    phoneNumber.setIsFavorite(true);
+            List<PhoneNumber> addedPhoneNumbers = new ArrayList<>();
+            for (PhoneNumber phoneNumber : favoritePhoneNumbers) {
+                if (!mFavoritePhoneNumbers.contains(phoneNumber)) {
+                    addedPhoneNumbers.add(phoneNumber);
+                }
+            }
+            List<PhoneNumber> removedPhoneNumbers = new ArrayList<>();
+            for (PhoneNumber phoneNumber : mFavoritePhoneNumbers) {
+                if (!favoritePhoneNumbers.contains(phoneNumber)) {
+                    removedPhoneNumbers.add(phoneNumber);
                 }
             }
+            mFavoritePhoneNumbers = favoritePhoneNumbers;
 
-            super.setValue(contacts);
+            mMainHandler.post(() -> {
+                for (PhoneNumber phoneNumber : removedPhoneNumbers) {
+                    phoneNumber.setIsFavorite(false);
+                }
+                for (PhoneNumber phoneNumber : addedPhoneNumbers) {
+                    phoneNumber.setIsFavorite(true);
+                }
+                setValue(contacts);
+            });
         }
     }
+
+    private static Set<PhoneNumber> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<>());
+    }
 }
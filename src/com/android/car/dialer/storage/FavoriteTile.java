@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.storage;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import androidx.annotation.Nullable;
+
+/**
+ * A pre-resolved favorite tile, persisted by {@link FavoriteTileCache} so favorites can be shown
+ * before the phone book is loaded.
+ */
+public final class FavoriteTile {
+    private final String mSection;
+    @Nullable
+    private final String mDisplayName;
+    @Nullable
+    private final String mDisplayNameAlt;
+    @Nullable
+    private final String mInitials;
+    @Nullable
+    private final String mLabel;
+    @Nullable
+    private final String mNumber;
+    @Nullable
+    private final String mLookupKey;
+    @Nullable
+    private final String mAccountName;
+    @Nullable
+    private final String mAvatarUri;
+    @Nullable
+    private final byte[] mAvatarData;
+    @Nullable
+    private final Bitmap mAvatar;
+
+    /**
+     * @param section        the header of the section the tile is listed in.
+     * @param displayName    the display name of the contact.
+     * @param displayNameAlt the alternative display name of the contact.
+     * @param initials       the initials shown when there is no avatar.
+     * @param label          the secondary text of the tile.
+     * @param number         the number called when the tile is clicked, null if the contact has
+     *                       several numbers and none of them is primary.
+     * @param lookupKey      the lookup key of the contact.
+     * @param accountName    the account of the contact.
+     * @param avatarUri      the uri of the full size avatar of the contact.
+     */
+    public FavoriteTile(String section, @Nullable String displayName,
+            @Nullable String displayNameAlt, @Nullable String initials, @Nullable String label,
+            @Nullable String number, @Nullable String lookupKey, @Nullable String accountName,
+            @Nullable String avatarUri) {
+        this(section, displayName, displayNameAlt, initials, label, number, lookupKey, accountName,
+                avatarUri, null, null);
+    }
+
+    FavoriteTile(String section, @Nullable String displayName,
+            @Nullable String displayNameAlt, @Nullable String initials, @Nullable String label,
+            @Nullable String number, @Nullable String lookupKey, @Nullable String accountName,
+            @Nullable String avatarUri, @Nullable byte[] avatarData, @Nullable Bitmap avatar) {
+        mSection = section;
+        mDisplayName = displayName;
+        mDisplayNameAlt = displayNameAlt;
+        mInitials = initials;
+        mLabel = label;
+        mNumber = number;
+        mLookupKey = lookupKey;
+        mAccountName = accountName;
+        mAvatarUri = avatarUri;
+        mAvatarData = avatarData;
+        mAvatar = avatar;
+    }
+
+    /**
+     * Returns a copy of this tile with the given encoded downsampled avatar. The avatar is only
+     * decoded if {@code decode} is true, tiles which are only persisted don't need it.
+     */
+    FavoriteTile withAvatarData(@Nullable byte[] avatarData, boolean decode) {
+        Bitmap avatar = decode && avatarData != null
+                ? BitmapFactory.decodeByteArray(avatarData, 0, avatarData.length) : null;
+        return new FavoriteTile(mSection, mDisplayName, mDisplayNameAlt, mInitials, mLabel,
+                mNumber, mLookupKey, mAccountName, mAvatarUri, avatarData, avatar);
+    }
+
+    /** Returns the header of the section the tile is listed in. */
+    public String getSection() {
+        return mSection;
+    }
+
+    /** Returns the display name of the contact, null if the contact has no name. */
+    @Nullable
+    public String getDisplayName() {
+        return mDisplayName;
+    }
+
+    /** Returns the alternative display name of the contact, null if the contact has no name. */
+    @Nullable
+    public String getDisplayNameAlt() {
+        return mDisplayNameAlt;
+    }
+
+    /** Returns the initials shown when there is no avatar. */
+    @Nullable
+    public String getInitials() {
+        return mInitials;
+    }
+
+    /** Returns the secondary text of the tile. */
+    @Nullable
+    public String getLabel() {
+        return mLabel;
+    }
+
+    /** Returns the number to call, or null if the contact has to be loaded to pick one. */
+    @Nullable
+    public String getNumber() {
+        return mNumber;
+    }
+
+    /** Returns the lookup key of the contact. */
+    @Nullable
+    public String getLookupKey() {
+        return mLookupKey;
+    }
+
+    /** Returns the account of the contact. */
+    @Nullable
+    public String getAccountName() {
+        return mAccountName;
+    }
+
+    /** Returns the uri of the full size avatar of the contact. */
+    @Nullable
+    String getAvatarUri() {
+        return mAvatarUri;
+    }
+
+    /** Returns the encoded downsampled avatar. */
+    @Nullable
+    byte[] getAvatarData() {
+        return mAvatarData;
+    }
+
+    /** Returns the downsampled avatar, null if the contact has no avatar. */
+    @Nullable
+    public Bitmap getAvatar() {
+        return mAvatar;
+    }
+}
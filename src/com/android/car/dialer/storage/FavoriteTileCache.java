@@ -0,0 +1,310 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.storage;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.util.AtomicFile;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.car.dialer.R;
+import com.android.car.dialer.log.L;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persists a snapshot of the favorite tiles of each device, so favorites can be shown as soon as
+ * the device reconnects instead of after the phone book is loaded. The snapshot is encrypted with
+ * the {@link CipherConverter} key and the avatars are downsampled to the tile size.
+ */
+public class FavoriteTileCache {
+    private static final String TAG = "CD.FavTileCache";
+    private static final String DIRECTORY = "favorite_tiles";
+    private static final int FORMAT_VERSION = 2;
+    private static final int AVATAR_QUALITY = 90;
+
+    private static volatile FavoriteTileCache sFavoriteTileCache;
+
+    /**
+     * Returns the single instance of the {@link FavoriteTileCache}.
+     */
+    public static FavoriteTileCache get(final Context context) {
+        if (sFavoriteTileCache == null) {
+            synchronized (FavoriteTileCache.class) {
+                if (sFavoriteTileCache == null) {
+                    sFavoriteTileCache = new FavoriteTileCache(context);
+                }
+            }
+        }
+        return sFavoriteTileCache;
+    }
+
+    private final Context mContext;
+    private final File mDirectory;
+    private final CipherConverter mCipherConverter = new CipherConverter();
+    private final int mAvatarSize;
+    // Downsampled avatars by their full size uri, so saving doesn't decode unchanged avatars.
+    private final Map<String, byte[]> mAvatarDataCache = new HashMap<>();
+
+    @VisibleForTesting
+    FavoriteTileCache(Context context) {
+        mContext = context.getApplicationContext();
+        mDirectory = new File(mContext.getNoBackupFilesDir(), DIRECTORY);
+        mAvatarSize = mContext.getResources().getDimensionPixelSize(
+                R.dimen.large_avatar_icon_size);
+    }
+
+    /**
+     * Loads the tiles of the device. Returns an empty list if there is no snapshot for the device
+     * or it can't be read.
+     */
+    @WorkerThread
+    @NonNull
+    public synchronized List<FavoriteTile> load(@NonNull String deviceAddress) {
+        File file = getFile(deviceAddress);
+        if (!file.exists()) {
+            return Collections.emptyList();
+        }
+
+        try {
+            byte[] data = mCipherConverter.decryptBytes(new AtomicFile(file).readFully());
+            if (data == null) {
+                return Collections.emptyList();
+            }
+            List<FavoriteTile> tiles = readTiles(
+                    new DataInputStream(new ByteArrayInputStream(data)));
+            for (FavoriteTile tile : tiles) {
+                if (tile.getAvatarUri() != null && tile.getAvatarData() != null) {
+                    mAvatarDataCache.put(tile.getAvatarUri(), tile.getAvatarData());
+                }
+            }
+            L.d(TAG, "Loaded %d favorite tiles", tiles.size());
+            return tiles;
+        } catch (IOException e) {
+            L.w(TAG, "Failed to load the favorite tiles: %s", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Replaces the snapshot of the device with the given tiles. The avatars are loaded and
+     * downsampled from the avatar uri of each tile.
+     */
+    @WorkerThread
+    public synchronized void save(@NonNull String deviceAddress, @NonNull List<FavoriteTile> tiles) {
+        Map<String, byte[]> avatarDataCache = new HashMap<>();
+        List<FavoriteTile> tilesWithAvatar = new ArrayList<>(tiles.size());
+        for (FavoriteTile tile : tiles) {
+            String avatarUri = tile.getAvatarUri();
+            byte[] avatarData = null;
+            if (avatarUri != null) {
+                avatarData = mAvatarDataCache.containsKey(avatarUri)
+                        ? mAvatarDataCache.get(avatarUri) : loadAvatarData(avatarUri);
+                avatarDataCache.put(avatarUri, avatarData);
+            }
+            tilesWithAvatar.add(tile.withAvatarData(avatarData, /* decode= */false));
+        }
+        mAvatarDataCache.putAll(avatarDataCache);
+
+        AtomicFile file = new AtomicFile(getFile(deviceAddress));
+        FileOutputStream outputStream = null;
+        try {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            writeTiles(new DataOutputStream(byteArrayOutputStream), tilesWithAvatar);
+            byte[] encryptedData = mCipherConverter.encryptBytes(
+                    byteArrayOutputStream.toByteArray());
+            if (encryptedData.length == 0) {
+                return;
+            }
+
+            mDirectory.mkdirs();
+            outputStream = file.startWrite();
+            outputStream.write(encryptedData);
+            file.finishWrite(outputStream);
+            L.d(TAG, "Saved %d favorite tiles", tiles.size());
+        } catch (IOException e) {
+            L.w(TAG, "Failed to save the favorite tiles: %s", e);
+            if (outputStream != null) {
+                file.failWrite(outputStream);
+            }
+        }
+    }
+
+    /** Deletes the snapshots of the devices that are no longer paired. */
+    @WorkerThread
+    public synchronized void cleanup(@NonNull Set<String> pairedDeviceAddresses) {
+        File[] files = mDirectory.listFiles();
+        if (files == null) {
+            return;
+        }
+        Set<String> pairedFileNames = new HashSet<>();
+        for (String deviceAddress : pairedDeviceAddresses) {
+            pairedFileNames.add(getFile(deviceAddress).getName());
+        }
+        for (File file : files) {
+            if (!pairedFileNames.contains(file.getName())) {
+                file.delete();
+            }
+        }
+        mAvatarDataCache.clear();
+    }
+
+    /** The file name is a hash of the device address, so the address isn't stored in clear. */
+    private File getFile(String deviceAddress) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(
+                    deviceAddress.getBytes(StandardCharsets.UTF_8));
+            StringBuilder fileName = new StringBuilder();
+            for (byte b : hash) {
+                fileName.append(String.format("%02x", b));
+            }
+            return new File(mDirectory, fileName.toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Nullable
+    private byte[] loadAvatarData(String avatarUri) {
+        Uri uri = Uri.parse(avatarUri);
+        try {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inJustDecodeBounds = true;
+            try (InputStream inputStream = mContext.getContentResolver().openInputStream(uri)) {
+                BitmapFactory.decodeStream(inputStream, null, options);
+            }
+            int sampleSize = 1;
+            while (Math.min(options.outWidth, options.outHeight) / (sampleSize * 2)
+                    >= mAvatarSize) {
+                sampleSize *= 2;
+            }
+
+            options.inJustDecodeBounds = false;
+            options.inSampleSize = sampleSize;
+            Bitmap bitmap;
+            try (InputStream inputStream = mContext.getContentResolver().openInputStream(uri)) {
+                bitmap = BitmapFactory.decodeStream(inputStream, null, options);
+            }
+            if (bitmap == null) {
+                return null;
+            }
+
+            float scale = (float) mAvatarSize / Math.min(bitmap.getWidth(), bitmap.getHeight());
+            if (scale < 1) {
+                Bitmap scaledBitmap = Bitmap.createScaledBitmap(bitmap,
+                        Math.round(bitmap.getWidth() * scale),
+                        Math.round(bitmap.getHeight() * scale), /* filter= */true);
+                bitmap.recycle();
+                bitmap = scaledBitmap;
+            }
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            bitmap.compress(Bitmap.CompressFormat.JPEG, AVATAR_QUALITY, outputStream);
+            bitmap.recycle();
+            return outputStream.toByteArray();
+        } catch (IOException | SecurityException e) {
+            L.w(TAG, "Failed to load the avatar: %s", e);
+            return null;
+        }
+    }
+
+    private static void writeTiles(DataOutputStream outputStream, List<FavoriteTile> tiles)
+            throws IOException {
+        outputStream.writeInt(FORMAT_VERSION);
+        outputStream.writeInt(tiles.size());
+        for (FavoriteTile tile : tiles) {
+            writeNullableString(outputStream, tile.getSection());
+            writeNullableString(outputStream, tile.getDisplayName());
+            writeNullableString(outputStream, tile.getDisplayNameAlt());
+            writeNullableString(outputStream, tile.getInitials());
+            writeNullableString(outputStream, tile.getLabel());
+            writeNullableString(outputStream, tile.getNumber());
+            writeNullableString(outputStream, tile.getLookupKey());
+            writeNullableString(outputStream, tile.getAccountName());
+            writeNullableString(outputStream, tile.getAvatarUri());
+            byte[] avatarData = tile.getAvatarData();
+            outputStream.writeInt(avatarData == null ? -1 : avatarData.length);
+            if (avatarData != null) {
+                outputStream.write(avatarData);
+            }
+        }
+        outputStream.flush();
+    }
+
+    private static List<FavoriteTile> readTiles(DataInputStream inputStream) throws IOException {
+        if (inputStream.readInt() != FORMAT_VERSION) {
+            return Collections.emptyList();
+        }
+        int count = inputStream.readInt();
+        List<FavoriteTile> tiles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            FavoriteTile tile = new FavoriteTile(
+                    readNullableString(inputStream),
+                    readNullableString(inputStream),
+                    readNullableString(inputStream),
+                    readNullableString(inputStream),
+                    readNullableString(inputStream),
+                    readNullableString(inputStream),
+                    readNullableString(inputStream),
+                    readNullableString(inputStream),
+                    readNullableString(inputStream));
+            int avatarLength = inputStream.readInt();
+            byte[] avatarData = null;
+            if (avatarLength >= 0) {
+                avatarData = new byte[avatarLength];
+                inputStream.readFully(avatarData);
+            }
+            tiles.add(tile.withAvatarData(avatarData, /* decode= */true));
+        }
+        return tiles;
+    }
+
+    private static void writeNullableString(DataOutputStream outputStream,
+            @Nullable String value) throws IOException {
+        outputStream.writeBoolean(value != null);
+        if (value != null) {
+            outputStream.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    private static String readNullableString(DataInputStream inputStream) throws IOException {
+        return inputStream.readBoolean() ? inputStream.readUTF() : null;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.storage;
+
+import android.content.Context;
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+import android.text.TextUtils;
+import android.util.Base64;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.android.car.dialer.log.L;
+import com.android.car.telephony.common.I18nPhoneNumberWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+
+/**
+ * Computes the blind index of a phone number: a keyed HMAC of its normalized form. Favorite
+ * numbers are stored encrypted, the blind index lets them be looked up by number with a SQL query
+ * instead of decrypting every row. The key never leaves the Android key store.
+ */
+class PhoneNumberBlindIndex {
+    private static final String TAG = "CD.BlindIndex";
+    private static final String KEY_STORE_ALIAS = "cd-phone-number-blind-index";
+    private static final String ANDROID_KEY_STORE = "AndroidKeyStore";
+
+    private final Context mContext;
+    /**
+     * An initialized Mac per thread. Mac instances aren't thread safe and creating one looks up the
+     * provider, so each thread computing indexes reuses its own. doFinal resets it for the next
+     * number.
+     */
+    private final ThreadLocal<Mac> mMac = new ThreadLocal<>();
+    private volatile SecretKey mSecretKey;
+
+    PhoneNumberBlindIndex(Context context) {
+        mContext = context.getApplicationContext();
+    }
+
+    /** Creates a blind index keyed with the given key instead of the key store key. */
+    @VisibleForTesting
+    PhoneNumberBlindIndex(Context context, SecretKey secretKey) {
+        this(context);
+        mSecretKey = secretKey;
+    }
+
+    /**
+     * Returns the blind index of the E.164 form of the phone number, or the raw number if it can't
+     * be parsed. Returns null if the number is empty or the index can't be computed.
+     */
+    @WorkerThread
+    @Nullable
+    String compute(@Nullable String rawNumber) {
+        if (TextUtils.isEmpty(rawNumber)) {
+            return null;
+        }
+
+        String normalizedNumber = I18nPhoneNumberWrapper.Factory.INSTANCE.get(mContext,
+                rawNumber).getNumber();
+        try {
+            byte[] hash = getMac().doFinal(normalizedNumber.getBytes(StandardCharsets.UTF_8));
+            return Base64.encodeToString(hash, Base64.NO_WRAP);
+        } catch (GeneralSecurityException | IOException e) {
+            L.e(TAG, "Failed to compute the blind index: %s", e);
+            mMac.remove();
+        }
+        return null;
+    }
+
+    private Mac getMac() throws GeneralSecurityException, IOException {
+        Mac mac = mMac.get();
+        if (mac == null) {
+            mac = Mac.getInstance(KeyProperties.KEY_ALGORITHM_HMAC_SHA256);
+            mac.init(getSecretKey());
+            mMac.set(mac);
+        }
+        return mac;
+    }
+
+    private synchronized SecretKey getSecretKey() throws GeneralSecurityException, IOException {
+        if (mSecretKey != null) {
+            return mSecretKey;
+        }
+
+        KeyStore keyStore = KeyStore.getInstance(ANDROID_KEY_STORE);
+        keyStore.load(null);
+        if (keyStore.containsAlias(KEY_STORE_ALIAS)) {
+            mSecretKey = (SecretKey) keyStore.getKey(KEY_STORE_ALIAS, null);
+        } else {
+            KeyGenerator keyGenerator = KeyGenerator.getInstance(
+                    KeyProperties.KEY_ALGORITHM_HMAC_SHA256, ANDROID_KEY_STORE);
+            keyGenerator.init(new KeyGenParameterSpec.Builder(KEY_STORE_ALIAS,
+                    KeyProperties.PURPOSE_SIGN).build());
+            mSecretKey = keyGenerator.generateKey();
+        }
+        return mSecretKey;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothHeadsetClient;
+import android.bluetooth.BluetoothProfile;
+import android.content.Intent;
+import android.telecom.CallAudioState;
+
+import androidx.annotation.Nullable;
+
+import com.android.car.dialer.bluetooth.BluetoothHeadsetClientProvider;
+import com.android.car.dialer.log.L;
+
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the audio route of Bluetooth calls while it is observed. It follows the HFP device list
+ * and the HFP audio state broadcasts forwarded by the observer, and only queries the audio state
+ * of a device it has no broadcast for, so {@link UiCallManager#getAudioRoute()} is served from
+ * memory instead of making two binder calls. When telecom reports that the call audio moved to
+ * another route the audio state is queried again, so a route change is not lost with a missed
+ * broadcast. Whether the call is a Bluetooth call is read from the {@link PhoneAccountModel}.
+ * The binder calls made and avoided are counted.
+ */
+class AudioRouteState {
+    private static final String TAG = "CD.AudioRouteState";
+    private static final int ROUTE_UNKNOWN = -1;
+
+    private final BluetoothHeadsetClientProvider mBluetoothHeadsetClientProvider;
+
+    private int mTrackingCount;
+    @Nullable
+    private BluetoothDevice mFirstConnectedDevice;
+    // The HFP audio state of each connected device by address.
+    private final Map<String, Integer> mAudioStates = new HashMap<>();
+    // The last route reported by telecom, ROUTE_UNKNOWN until the first report.
+    private int mCallAudioRoute = ROUTE_UNKNOWN;
+
+    private long mBinderCallCount;
+    private long mAvoidedBinderCallCount;
+
+    AudioRouteState(BluetoothHeadsetClientProvider bluetoothHeadsetClientProvider) {
+        mBluetoothHeadsetClientProvider = bluetoothHeadsetClientProvider;
+    }
+
+    /**
+     * Starts following the audio route. The route is known once the observer forwards the current
+     * HFP device list to {@link #onHfpDeviceListChanged(List)}, which it receives from the
+     * already observed device list live data instead of querying the Bluetooth stack again.
+     */
+    void startTracking() {
+        mTrackingCount++;
+    }
+
+    /** Stops following the audio route, the state is stale until tracking starts again. */
+    void stopTracking() {
+        if (mTrackingCount > 0 && --mTrackingCount == 0) {
+            mAudioStates.clear();
+            mFirstConnectedDevice = null;
+            mCallAudioRoute = ROUTE_UNKNOWN;
+        }
+    }
+
+    /** Returns if the audio route is followed and can be read from this state. */
+    boolean isTracking() {
+        return mTrackingCount > 0;
+    }
+
+    /** Updates the connected devices, queries the audio state of a newly connected device. */
+    void onHfpDeviceListChanged(@Nullable List<BluetoothDevice> devices) {
+        if (!isTracking()) {
+            return;
+        }
+        mFirstConnectedDevice = devices == null || devices.isEmpty() ? null : devices.get(0);
+        Map<String, Integer> audioStates = new HashMap<>();
+        if (devices != null) {
+            for (BluetoothDevice device : devices) {
+                Integer audioState = mAudioStates.get(device.getAddress());
+                if (audioState != null) {
+                    audioStates.put(device.getAddress(), audioState);
+                }
+            }
+        }
+        mAudioStates.clear();
+        mAudioStates.putAll(audioStates);
+        if (mFirstConnectedDevice != null
+                && !mAudioStates.containsKey(mFirstConnectedDevice.getAddress())) {
+            queryAudioState(mFirstConnectedDevice);
+        }
+    }
+
+    /** Updates the audio state of a device from a HFP audio state changed broadcast. */
+    void onHfpAudioStateChanged(Intent intent) {
+        if (!isTracking()) {
+            return;
+        }
+        BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
+        int audioState = intent.getIntExtra(BluetoothProfile.EXTRA_STATE, -1);
+        if (device == null || audioState == -1) {
+            L.w(TAG, "Audio state changed without a device or state");
+            if (mFirstConnectedDevice != null) {
+                queryAudioState(mFirstConnectedDevice);
+            }
+            return;
+        }
+        mAudioStates.put(device.getAddress(), audioState);
+    }
+
+    /**
+     * Updates the audio state of the first connected device when telecom reports that the call
+     * audio moved to another route. A change of the mute state alone keeps the cached state.
+     */
+    void onCallAudioStateChanged(@Nullable CallAudioState callAudioState) {
+        if (!isTracking() || callAudioState == null) {
+            return;
+        }
+        int previousRoute = mCallAudioRoute;
+        mCallAudioRoute = callAudioState.getRoute();
+        if (previousRoute != ROUTE_UNKNOWN && previousRoute != mCallAudioRoute
+                && mFirstConnectedDevice != null) {
+            L.d(TAG, "Call audio route changed from %d to %d", previousRoute, mCallAudioRoute);
+            queryAudioState(mFirstConnectedDevice);
+        }
+    }
+
+    /** Returns the audio route of a Bluetooth call. Only valid while {@link #isTracking()}. */
+    int getBluetoothAudioRoute() {
+        // Without the proxy the uncached lookup makes no binder call either.
+        if (mBluetoothHeadsetClientProvider.get() == null) {
+            return CallAudioState.ROUTE_EARPIECE;
+        }
+        // getConnectedDevices
+        mAvoidedBinderCallCount++;
+        if (mFirstConnectedDevice == null) {
+            return CallAudioState.ROUTE_EARPIECE;
+        }
+
+        Integer audioState = mAudioStates.get(mFirstConnectedDevice.getAddress());
+        if (audioState != null) {
+            // getAudioState
+            mAvoidedBinderCallCount++;
+        }
+        return audioState != null && audioState == BluetoothHeadsetClient.STATE_AUDIO_CONNECTED
+                ? CallAudioState.ROUTE_BLUETOOTH
+                : CallAudioState.ROUTE_EARPIECE;
+    }
+
+    /** Returns the number of binder calls avoided by reading the state from memory. */
+    long getAvoidedBinderCallCount() {
+        return mAvoidedBinderCallCount;
+    }
+
+    /** Returns the number of binder calls made to keep the state up to date. */
+    long getBinderCallCount() {
+        return mBinderCallCount;
+    }
+
+    void dump(PrintWriter writer) {
+        writer.printf("AudioRouteState: tracking: %b, binder calls: %d, avoided: %d%n",
+                isTracking(), mBinderCallCount, mAvoidedBinderCallCount);
+    }
+
+    private void queryAudioState(BluetoothDevice device) {
+        BluetoothHeadsetClient bluetoothHeadsetClient = mBluetoothHeadsetClientProvider.get();
+        if (bluetoothHeadsetClient == null) {
+            return;
+        }
+        mBinderCallCount++;
+        mAudioStates.put(device.getAddress(), bluetoothHeadsetClient.getAudioState(device));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import android.view.Choreographer;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import java.io.PrintWriter;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Coalesces the {@link android.telecom.Call.Callback} events which arrive in bursts during
+ * conference merges and HFP reconnects. Consumers post a publisher for each event instead of
+ * publishing right away, and every pending publisher runs once on the next display frame, so the
+ * in call UI does at most one pass per frame. All the methods must be called on the main thread.
+ */
+public final class CallEventCoalescer {
+    private static CallEventCoalescer sCallEventCoalescer;
+
+    /** Returns the process wide {@link CallEventCoalescer}. */
+    @MainThread
+    public static CallEventCoalescer get() {
+        if (sCallEventCoalescer == null) {
+            sCallEventCoalescer = new CallEventCoalescer();
+        }
+        return sCallEventCoalescer;
+    }
+
+    private final Choreographer.FrameCallback mFrameCallback = frameTimeNanos -> publish();
+    // Swapped on every frame, so publishers posted while publishing run on the next frame.
+    private Set<Runnable> mPendingPublishers = new LinkedHashSet<>();
+    private Set<Runnable> mPublishingPublishers = new LinkedHashSet<>();
+    private boolean mIsFrameScheduled;
+
+    private long mRawEventCount;
+    private long mPublishedEventCount;
+    private long mFrameCount;
+
+    private CallEventCoalescer() {
+    }
+
+    /**
+     * Records a call event and runs the publisher on the next frame. Posting the same publisher
+     * again before the frame doesn't run it twice, so publishers should read the latest state
+     * when they run.
+     */
+    public void post(@NonNull Runnable publisher) {
+        mRawEventCount++;
+        mPendingPublishers.add(publisher);
+        if (!mIsFrameScheduled) {
+            mIsFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    /** Drops the pending run of the publisher, for consumers that just published or went away. */
+    public void cancel(@NonNull Runnable publisher) {
+        mPendingPublishers.remove(publisher);
+    }
+
+    /** Returns the number of call events posted. */
+    public long getRawEventCount() {
+        return mRawEventCount;
+    }
+
+    /** Returns the number of times a publisher ran. */
+    public long getPublishedEventCount() {
+        return mPublishedEventCount;
+    }
+
+    /** Dumps the counters. */
+    public void dump(PrintWriter writer) {
+        writer.printf("CallEventCoalescer: raw events: %d, published events: %d, frames: %d%n",
+                mRawEventCount, mPublishedEventCount, mFrameCount);
+    }
+
+    private void publish() {
+        mIsFrameScheduled = false;
+        mFrameCount++;
+
+        Set<Runnable> publishers = mPendingPublishers;
+        mPendingPublishers = mPublishingPublishers;
+        mPublishingPublishers = publishers;
+        for (Runnable publisher : publishers) {
+            mPublishedEventCount++;
+            publisher.run();
+        }
+        publishers.clear();
+    }
+}
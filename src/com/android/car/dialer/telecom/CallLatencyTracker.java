@@ -0,0 +1,270 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import android.os.SystemClock;
+import android.os.Trace;
+import android.telecom.Call;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.car.dialer.log.L;
+
+import java.io.PrintWriter;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Timestamps the milestones of a call from {@link InCallServiceImpl#onCallAdded(Call)} until the
+ * user sees it, and aggregates the time from the call being added to each milestone into
+ * histograms. The histograms are printed by {@code adb shell dumpsys activity service
+ * com.android.car.dialer/.telecom.InCallServiceImpl}, and each call is also traced as an async
+ * section for systrace. All the methods must be called on the main thread.
+ */
+public final class CallLatencyTracker {
+    private static final String TAG = "CD.CallLatencyTracker";
+    private static final String TRACE_SECTION = "CD.IncomingCall";
+    // Calls which are never shown, e.g. when the HUN is disabled, are dropped when removed. This
+    // bounds the calls that are not removed by telecom either.
+    private static final int MAX_TRACKED_CALLS = 8;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({
+            MILESTONE_CALL_ADDED,
+            MILESTONE_ROUTED,
+            MILESTONE_NOTIFICATION_POSTED,
+            MILESTONE_CALLER_ID_RESOLVED,
+            MILESTONE_ACTIVITY_CREATED,
+            MILESTONE_FIRST_FRAME
+    })
+    public @interface Milestone {
+    }
+
+    public static final int MILESTONE_CALL_ADDED = 0;
+    public static final int MILESTONE_ROUTED = 1;
+    public static final int MILESTONE_NOTIFICATION_POSTED = 2;
+    public static final int MILESTONE_CALLER_ID_RESOLVED = 3;
+    public static final int MILESTONE_ACTIVITY_CREATED = 4;
+    public static final int MILESTONE_FIRST_FRAME = 5;
+    private static final String[] MILESTONE_NAMES = {
+            "call added",
+            "routed",
+            "notification posted",
+            "caller id resolved",
+            "activity created",
+            "first frame drawn"
+    };
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({
+            ROUTE_CALLBACK,
+            ROUTE_PROJECTION,
+            ROUTE_NOTIFICATION,
+            ROUTE_FULL_SCREEN,
+            ROUTE_NONE
+    })
+    public @interface Route {
+    }
+
+    /** The call is handled by an {@link InCallServiceImpl.ActiveCallListChangedCallback}. */
+    public static final int ROUTE_CALLBACK = 0;
+    /** The call UI is suppressed by the {@link ProjectionCallHandler}. */
+    public static final int ROUTE_PROJECTION = 1;
+    /** The ringing call is presented in a HUN. */
+    public static final int ROUTE_NOTIFICATION = 2;
+    /** The in call page is launched. */
+    public static final int ROUTE_FULL_SCREEN = 3;
+    /** The call is not presented by Dialer, e.g. it is disconnected. */
+    public static final int ROUTE_NONE = 4;
+    private static final String[] ROUTE_NAMES = {
+            "callback", "projection", "notification", "full screen", "none"
+    };
+
+    private static CallLatencyTracker sCallLatencyTracker;
+
+    /** Returns the process wide {@link CallLatencyTracker}. */
+    @MainThread
+    public static CallLatencyTracker get() {
+        if (sCallLatencyTracker == null) {
+            sCallLatencyTracker = new CallLatencyTracker();
+        }
+        return sCallLatencyTracker;
+    }
+
+    // The tracked calls in the order they were added.
+    private final Map<Call, TrackedCall> mTrackedCalls = new LinkedHashMap<>();
+    private final LatencyHistogram[] mHistograms = new LatencyHistogram[MILESTONE_NAMES.length];
+    private final int[] mRouteCounts = new int[ROUTE_NAMES.length];
+    private int mNextTraceCookie;
+
+    @VisibleForTesting
+    CallLatencyTracker() {
+        for (int i = 0; i < mHistograms.length; i++) {
+            mHistograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /** Starts tracking the call. Called by {@link InCallServiceImpl} when telecom adds it. */
+    public void onCallAdded(@NonNull Call call) {
+        if (mTrackedCalls.containsKey(call)) {
+            return;
+        }
+        if (mTrackedCalls.size() >= MAX_TRACKED_CALLS) {
+            stopTracking(mTrackedCalls.keySet().iterator().next());
+        }
+        TrackedCall trackedCall = new TrackedCall(mNextTraceCookie++);
+        mTrackedCalls.put(call, trackedCall);
+        Trace.beginAsyncSection(TRACE_SECTION, trackedCall.mTraceCookie);
+        mark(call, MILESTONE_CALL_ADDED);
+    }
+
+    /** Stops tracking the call. */
+    public void onCallRemoved(@NonNull Call call) {
+        stopTracking(call);
+    }
+
+    /** Records how the {@link InCallRouter} routed the call. */
+    public void onCallRouted(@NonNull Call call, @Route int route) {
+        L.d(TAG, "routed to %s", ROUTE_NAMES[route]);
+        mRouteCounts[route]++;
+        mark(call, MILESTONE_ROUTED);
+    }
+
+    /** Records a milestone of the call, only the first time the call reaches it. */
+    public void mark(@NonNull Call call, @Milestone int milestone) {
+        TrackedCall trackedCall = mTrackedCalls.get(call);
+        if (trackedCall == null || trackedCall.mTimestamps[milestone] >= 0) {
+            return;
+        }
+        long[] timestamps = trackedCall.mTimestamps;
+        long now = SystemClock.elapsedRealtime();
+        timestamps[milestone] = now;
+        if (milestone != MILESTONE_CALL_ADDED) {
+            long latencyMs = now - timestamps[MILESTONE_CALL_ADDED];
+            L.d(TAG, "%s after %d ms", MILESTONE_NAMES[milestone], latencyMs);
+            mHistograms[milestone].add(latencyMs);
+        }
+        if (milestone == MILESTONE_FIRST_FRAME) {
+            stopTracking(call);
+        }
+    }
+
+    /**
+     * Records a milestone of the in call page, which presents all the calls that are not shown
+     * yet.
+     */
+    public void markPendingCalls(@Milestone int milestone) {
+        // Copied, marking the first frame stops tracking the call.
+        for (Call call : mTrackedCalls.keySet().toArray(new Call[0])) {
+            mark(call, milestone);
+        }
+    }
+
+    /** Returns the number of latencies recorded for the milestone. */
+    @VisibleForTesting
+    int getCount(@Milestone int milestone) {
+        return mHistograms[milestone].mCount;
+    }
+
+    /** Returns the number of calls routed to the route. */
+    @VisibleForTesting
+    int getRouteCount(@Route int route) {
+        return mRouteCounts[route];
+    }
+
+    /** Dumps the route counts and latency histograms. */
+    public void dump(PrintWriter writer) {
+        writer.println("CallLatencyTracker:");
+        writer.print("  routes:");
+        for (int i = 0; i < ROUTE_NAMES.length; i++) {
+            writer.printf(" %s=%d", ROUTE_NAMES[i], mRouteCounts[i]);
+        }
+        writer.println();
+        writer.println("  latency since call added:");
+        for (int i = MILESTONE_CALL_ADDED + 1; i < MILESTONE_NAMES.length; i++) {
+            writer.printf("    %s: ", MILESTONE_NAMES[i]);
+            mHistograms[i].dump(writer);
+        }
+    }
+
+    private void stopTracking(Call call) {
+        TrackedCall trackedCall = mTrackedCalls.remove(call);
+        if (trackedCall != null) {
+            Trace.endAsyncSection(TRACE_SECTION, trackedCall.mTraceCookie);
+        }
+    }
+
+    private static final class TrackedCall {
+        private final int mTraceCookie;
+        // The elapsed realtime of each milestone, -1 until the call reaches it.
+        private final long[] mTimestamps = new long[MILESTONE_NAMES.length];
+
+        TrackedCall(int traceCookie) {
+            mTraceCookie = traceCookie;
+            Arrays.fill(mTimestamps, -1);
+        }
+    }
+
+    /** A histogram of latencies with fixed, roughly exponential, buckets. */
+    private static final class LatencyHistogram {
+        private static final long[] BUCKET_UPPER_BOUNDS_MS =
+                {10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+
+        // The last bucket holds the latencies above the last upper bound.
+        private final int[] mBucketCounts = new int[BUCKET_UPPER_BOUNDS_MS.length + 1];
+        private int mCount;
+        private long mSumMs;
+        private long mMaxMs;
+
+        void add(long latencyMs) {
+            int bucket = 0;
+            while (bucket < BUCKET_UPPER_BOUNDS_MS.length
+                    && latencyMs > BUCKET_UPPER_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            mBucketCounts[bucket]++;
+            mCount++;
+            mSumMs += latencyMs;
+            mMaxMs = Math.max(mMaxMs, latencyMs);
+        }
+
+        void dump(PrintWriter writer) {
+            if (mCount == 0) {
+                writer.println("n=0");
+                return;
+            }
+            writer.printf("n=%d mean=%dms max=%dms", mCount, mSumMs / mCount, mMaxMs);
+            for (int i = 0; i < mBucketCounts.length; i++) {
+                if (mBucketCounts[i] == 0) {
+                    continue;
+                }
+                if (i < BUCKET_UPPER_BOUNDS_MS.length) {
+                    writer.printf(" <=%dms:%d", BUCKET_UPPER_BOUNDS_MS[i], mBucketCounts[i]);
+                } else {
+                    writer.printf(" >%dms:%d", BUCKET_UPPER_BOUNDS_MS[i - 1], mBucketCounts[i]);
+                }
+            }
+            writer.println();
+        }
+    }
+}
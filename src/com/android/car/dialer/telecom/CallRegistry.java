@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import android.telecom.Call;
+import android.telecom.CallAudioState;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+
+import com.android.car.dialer.log.L;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The calls of the process, fed by the {@link InCallRouter} and shared by every consumer instead
+ * of each one binding to the {@link InCallServiceImpl} and filtering the call list on its own.
+ * Calls are indexed by their telecom call id, and the ongoing, incoming and conference calls are
+ * published as an immutable {@link Snapshot} which is only replaced when one of them changes.
+ * All the methods must be called on the main thread.
+ */
+public final class CallRegistry {
+    private static final String TAG = "CD.CallRegistry";
+
+    private static CallRegistry sCallRegistry;
+
+    /** Returns the process wide {@link CallRegistry}. */
+    @MainThread
+    public static CallRegistry get() {
+        if (sCallRegistry == null) {
+            sCallRegistry = new CallRegistry();
+        }
+        return sCallRegistry;
+    }
+
+    private final List<Call> mCalls = new ArrayList<>();
+    private final Map<String, Call> mCallsById = new HashMap<>();
+    private final MutableLiveData<Snapshot> mSnapshotLiveData = new MutableLiveData<>();
+    private final LiveData<List<Call>> mCallListLiveData;
+    private final LiveData<List<Call>> mOngoingCallListLiveData;
+    private final LiveData<Call> mIncomingCallLiveData;
+    private final MutableLiveData<CallAudioState> mCallAudioStateLiveData = new MutableLiveData<>();
+    private Snapshot mSnapshot = Snapshot.EMPTY;
+
+    private final Call.Callback mCallCallback = new Call.Callback() {
+        @Override
+        public void onStateChanged(Call call, int state) {
+            TelecomJournal.get().record(call, TelecomJournal.EVENT_STATE_CHANGED, state);
+            updateSnapshot();
+        }
+
+        @Override
+        public void onParentChanged(Call call, Call parent) {
+            updateSnapshot();
+        }
+    };
+
+    private CallRegistry() {
+        mSnapshotLiveData.setValue(mSnapshot);
+        mCallListLiveData = Transformations.map(mSnapshotLiveData, Snapshot::getCalls);
+        mOngoingCallListLiveData = Transformations.map(mSnapshotLiveData,
+                Snapshot::getOngoingCalls);
+        mIncomingCallLiveData = Transformations.map(mSnapshotLiveData, Snapshot::getIncomingCall);
+    }
+
+    /** Called by the {@link InCallRouter} when telecom adds a call. */
+    public void onCallAdded(@NonNull Call call) {
+        if (mCalls.contains(call)) {
+            return;
+        }
+        mCalls.add(call);
+        String callId = getTelecomCallId(call);
+        if (callId != null) {
+            mCallsById.put(callId, call);
+        }
+        TelecomJournal.get().record(call, TelecomJournal.EVENT_CALL_ADDED, call.getState());
+        call.registerCallback(mCallCallback);
+        updateSnapshot();
+    }
+
+    /** Called by the {@link InCallRouter} when telecom removes a call. */
+    public void onCallRemoved(@NonNull Call call) {
+        if (!mCalls.remove(call)) {
+            return;
+        }
+        mCallsById.values().remove(call);
+        TelecomJournal.get().record(call, TelecomJournal.EVENT_CALL_REMOVED, call.getState());
+        call.unregisterCallback(mCallCallback);
+        updateSnapshot();
+    }
+
+    /** Called by the {@link InCallServiceImpl} when the call audio state changes. */
+    public void onCallAudioStateChanged(CallAudioState callAudioState) {
+        if (callAudioState != null) {
+            TelecomJournal.get().record(TelecomJournal.EVENT_AUDIO_ROUTE_CHANGED,
+                    callAudioState.getRoute(), callAudioState.isMuted() ? 1 : 0);
+        }
+        mCallAudioStateLiveData.setValue(callAudioState);
+    }
+
+    /** Removes all the calls, called when the {@link InCallServiceImpl} is destroyed. */
+    public void clear() {
+        for (Call call : mCalls) {
+            call.unregisterCallback(mCallCallback);
+        }
+        mCalls.clear();
+        mCallsById.clear();
+        updateSnapshot();
+    }
+
+    /** Returns the call with the given telecom call id, null if there is no such call. */
+    @Nullable
+    public Call findCall(@Nullable String telecomCallId) {
+        return telecomCallId == null ? null : mCallsById.get(telecomCallId);
+    }
+
+    /** Returns the current {@link Snapshot}. */
+    @NonNull
+    public Snapshot getSnapshot() {
+        return mSnapshot;
+    }
+
+    /** Returns the {@link LiveData} of the {@link Snapshot}. */
+    @NonNull
+    public LiveData<Snapshot> getSnapshotLiveData() {
+        return mSnapshotLiveData;
+    }
+
+    /** Returns the {@link LiveData} which monitors the call list. */
+    @NonNull
+    public LiveData<List<Call>> getCallListLiveData() {
+        return mCallListLiveData;
+    }
+
+    /** Returns the {@link LiveData} which monitors the calls that are not ringing. */
+    @NonNull
+    public LiveData<List<Call>> getOngoingCallListLiveData() {
+        return mOngoingCallListLiveData;
+    }
+
+    /** Returns the {@link LiveData} which monitors the ringing call. */
+    @NonNull
+    public LiveData<Call> getIncomingCallLiveData() {
+        return mIncomingCallLiveData;
+    }
+
+    /** Returns the {@link LiveData} which monitors the call audio state change. */
+    @NonNull
+    public LiveData<CallAudioState> getCallAudioStateLiveData() {
+        return mCallAudioStateLiveData;
+    }
+
+    private void updateSnapshot() {
+        List<Call> ongoingCalls = new ArrayList<>();
+        List<Call> conferenceCalls = new ArrayList<>();
+        Call incomingCall = null;
+        for (Call call : mCalls) {
+            int state = call.getState();
+            // Keep a declined call incoming until it is removed to avoid flashing the in call page.
+            if (state == Call.STATE_RINGING || state == Call.STATE_DISCONNECTED
+                    && call == mSnapshot.getIncomingCall()) {
+                if (incomingCall == null) {
+                    incomingCall = call;
+                }
+                continue;
+            }
+            ongoingCalls.add(call);
+            if (call.getParent() != null) {
+                conferenceCalls.add(call);
+            }
+        }
+
+        if (mCalls.equals(mSnapshot.getCalls())
+                && ongoingCalls.equals(mSnapshot.getOngoingCalls())
+                && conferenceCalls.equals(mSnapshot.getConferenceCalls())
+                && incomingCall == mSnapshot.getIncomingCall()) {
+            return;
+        }
+        mSnapshot = new Snapshot(new ArrayList<>(mCalls), ongoingCalls, incomingCall,
+                conferenceCalls);
+        L.d(TAG, "snapshot: %s", mSnapshot);
+        mSnapshotLiveData.setValue(mSnapshot);
+    }
+
+    @Nullable
+    private static String getTelecomCallId(Call call) {
+        Call.Details details = call.getDetails();
+        return details == null ? null : details.getTelecomCallId();
+    }
+
+    /** An immutable view of the calls at one point in time. */
+    public static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(Collections.emptyList(),
+                Collections.emptyList(), null, Collections.emptyList());
+
+        private final List<Call> mCalls;
+        private final List<Call> mOngoingCalls;
+        @Nullable
+        private final Call mIncomingCall;
+        private final List<Call> mConferenceCalls;
+
+        private Snapshot(List<Call> calls, List<Call> ongoingCalls, @Nullable Call incomingCall,
+                List<Call> conferenceCalls) {
+            mCalls = Collections.unmodifiableList(calls);
+            mOngoingCalls = Collections.unmodifiableList(ongoingCalls);
+            mIncomingCall = incomingCall;
+            mConferenceCalls = Collections.unmodifiableList(conferenceCalls);
+        }
+
+        /** Returns all the calls in the order they were added. */
+        @NonNull
+        public List<Call> getCalls() {
+            return mCalls;
+        }
+
+        /** Returns the calls that are not ringing. */
+        @NonNull
+        public List<Call> getOngoingCalls() {
+            return mOngoingCalls;
+        }
+
+        /** Returns the first ringing call, null if there is none. */
+        @Nullable
+        public Call getIncomingCall() {
+            return mIncomingCall;
+        }
+
+        /** Returns the ongoing calls that are part of a conference. */
+        @NonNull
+        public List<Call> getConferenceCalls() {
+            return mConferenceCalls;
+        }
+
+        @Override
+        public String toString() {
+            return "ongoing: " + mOngoingCalls.size() + ", incoming: " + (mIncomingCall != null)
+                    + ", conference: " + mConferenceCalls.size();
+        }
+    }
+}
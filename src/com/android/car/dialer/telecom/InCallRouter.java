@@ -26,9 +26,11 @@ import androidx.preference.PreferenceManager;
 import com.android.car.dialer.Constants;
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.notification.CallerIdCache;
 import com.android.car.dialer.notification.InCallNotificationController;
 import com.android.car.dialer.ui.activecall.InCallActivity;
 import com.android.car.dialer.ui.activecall.InCallViewModel;
+import com.android.car.telephony.common.CallDetail;
 
 import java.util.ArrayList;
 
@@ -47,10 +49,16 @@ class InCallRouter {
     private final ArrayList<InCallServiceImpl.ActiveCallListChangedCallback>
             mActiveCallListChangedCallbacks = new ArrayList<>();
     private final ProjectionCallHandler mProjectionCallHandler;
+    private final CallRegistry mCallRegistry;
+    private final CallerIdCache mCallerIdCache;
+    private final CallLatencyTracker mCallLatencyTracker;
 
     InCallRouter(Context context) {
         mContext = context;
+        mCallRegistry = CallRegistry.get();
         mInCallNotificationController = InCallNotificationController.get();
+        mCallerIdCache = CallerIdCache.get();
+        mCallLatencyTracker = CallLatencyTracker.get();
         mProjectionCallHandler = new ProjectionCallHandler(context);
     }
 
@@ -62,39 +70,56 @@ class InCallRouter {
     void stop() {
         mActiveCallListChangedCallbacks.remove(mProjectionCallHandler);
         mProjectionCallHandler.stop();
+        mCallRegistry.clear();
     }
 
     /**
      * Routes the added call to the correct path:
      * <ul>
-     * <li> First dispatches it to the {@link InCallServiceImpl.ActiveCallListChangedCallback}s.
+     * <li> Adds it to the {@link CallRegistry} and starts resolving the caller.
+     * <li> Then dispatches it to the {@link InCallServiceImpl.ActiveCallListChangedCallback}s.
      * <li> If the ringing call is not handled by callbacks, it will show a HUN.
      * <li> If the call is in other state and not handled by callbacks, it will try to launch the in
      * call page.
      */
     void onCallAdded(Call call) {
-        boolean isHandled = routeToActiveCallListChangedCallback(call);
-        if (isHandled) {
+        mCallRegistry.onCallAdded(call);
+        // Resolve the caller while the call is being routed, for the HUN and the in call page.
+        if (call.getDetails() != null) {
+            mCallerIdCache.resolve(CallDetail.fromTelecomCallDetail(call.getDetails()).getNumber())
+                    .thenRunAsync(() -> mCallLatencyTracker.mark(call,
+                            CallLatencyTracker.MILESTONE_CALLER_ID_RESOLVED),
+                            mContext.getMainExecutor());
+        }
+        int handledBy = routeToActiveCallListChangedCallback(call);
+        if (handledBy != CallLatencyTracker.ROUTE_NONE) {
+            onCallRouted(call, handledBy);
             return;
         }
 
         int state = call.getState();
         if (state == Call.STATE_RINGING) {
+            onCallRouted(call, CallLatencyTracker.ROUTE_NOTIFICATION);
             routeToNotification(call);
             // Otherwise, no operations. Incoming call will be displayed outside of Dialer app
             // such as cluster.
         } else if (state != Call.STATE_DISCONNECTED) {
             // Don't launch the in call page if state is disconnected.
             // Otherwise, the InCallActivity finishes right after onCreate() and flashes.
+            onCallRouted(call, CallLatencyTracker.ROUTE_FULL_SCREEN);
             routeToFullScreenIncomingCallPage(false);
+        } else {
+            onCallRouted(call, CallLatencyTracker.ROUTE_NONE);
         }
     }
 
     /**
-     * Called by {@link InCallServiceImpl#onCallRemoved(Call)}. It notifies the {@link
-     * InCallServiceImpl.ActiveCallListChangedCallback}s to update the active call list.
+     * Called by {@link InCallServiceImpl#onCallRemoved(Call)}. It removes the call from the {@link
+     * CallRegistry} and notifies the {@link InCallServiceImpl.ActiveCallListChangedCallback}s to
+     * update the active call list.
      */
     void onCallRemoved(Call call) {
+        mCallRegistry.onCallRemoved(call);
         for (InCallServiceImpl.ActiveCallListChangedCallback callback :
                 mActiveCallListChangedCallbacks) {
             callback.onTelecomCallRemoved(call);
@@ -112,19 +137,30 @@ class InCallRouter {
         mActiveCallListChangedCallbacks.remove(callback);
     }
 
+    private void onCallRouted(Call call, @CallLatencyTracker.Route int route) {
+        mCallLatencyTracker.onCallRouted(call, route);
+        TelecomJournal.get().record(call, TelecomJournal.EVENT_ROUTED, route);
+    }
+
     /**
      * Dispatches the call to {@link InCallServiceImpl.ActiveCallListChangedCallback}.
+     *
+     * @return the {@link CallLatencyTracker.Route} of the callbacks that handled the call, {@link
+     * CallLatencyTracker#ROUTE_NONE} if none of them did.
      */
-    private boolean routeToActiveCallListChangedCallback(Call call) {
-        boolean isHandled = false;
+    @CallLatencyTracker.Route
+    private int routeToActiveCallListChangedCallback(Call call) {
+        int handledBy = CallLatencyTracker.ROUTE_NONE;
         for (InCallServiceImpl.ActiveCallListChangedCallback callback :
                 mActiveCallListChangedCallbacks) {
             if (callback.onTelecomCallAdded(call)) {
-                isHandled = true;
+                handledBy = callback == mProjectionCallHandler
+                        ? CallLatencyTracker.ROUTE_PROJECTION
+                        : CallLatencyTracker.ROUTE_CALLBACK;
             }
         }
 
-        return isHandled;
+        return handledBy;
     }
 
     /**
@@ -25,6 +25,8 @@ import android.telecom.InCallService;
 
 import com.android.car.dialer.log.L;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -85,6 +87,9 @@ public class InCallServiceImpl extends InCallService {
     @Override
     public void onCallAdded(Call telecomCall) {
         L.d(TAG, "onCallAdded: %s", telecomCall);
+        CallLatencyTracker.get().onCallAdded(telecomCall);
+        // The outgoing account might have been selected by another app since it was read.
+        PhoneAccountModel.get().invalidateUserSelectedOutgoingPhoneAccount();
         mInCallRouter.onCallAdded(telecomCall);
     }
 
@@ -92,6 +97,7 @@ public class InCallServiceImpl extends InCallService {
     public void onCallRemoved(Call telecomCall) {
         L.d(TAG, "onCallRemoved: %s", telecomCall);
         mInCallRouter.onCallRemoved(telecomCall);
+        CallLatencyTracker.get().onCallRemoved(telecomCall);
     }
 
     @Override
@@ -113,6 +119,7 @@ public class InCallServiceImpl extends InCallService {
 
     @Override
     public void onCallAudioStateChanged(CallAudioState audioState) {
+        CallRegistry.get().onCallAudioStateChanged(audioState);
         for (CallAudioStateCallback callback : mCallAudioStateCallbacks) {
             callback.onCallAudioStateChanged(audioState);
         }
@@ -124,6 +131,14 @@ public class InCallServiceImpl extends InCallService {
         mInCallRouter.routeToFullScreenIncomingCallPage(showDialpad);
     }
 
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        CallEventCoalescer.get().dump(writer);
+        CallLatencyTracker.get().dump(writer);
+        UiCallManager.get().dump(writer);
+        TelecomJournal.get().dump(writer);
+    }
+
     public void addCallAudioStateChangedCallback(CallAudioStateCallback callback) {
         mCallAudioStateCallbacks.add(callback);
     }
@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import android.bluetooth.BluetoothHeadsetClient;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.Uri;
+import android.telecom.PhoneAccount;
+import android.telecom.PhoneAccountHandle;
+import android.telecom.TelecomManager;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.car.dialer.Constants;
+import com.android.car.dialer.log.L;
+
+import java.io.PrintWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in memory model of the call capable phone accounts, so the UI doesn't query {@link
+ * TelecomManager} every time it checks the capabilities of the accounts. The accounts are loaded
+ * on the first lookup and loaded again after telecom broadcasts that an account was registered or
+ * unregistered, which it sends to the default dialer. The user selected outgoing phone account is
+ * cached as well. Telecom doesn't broadcast when it changes, so it is read again when the
+ * accounts change, when a HFP device connects or disconnects and when a call is added through
+ * {@link #invalidateUserSelectedOutgoingPhoneAccount()}, which covers a selection made by another
+ * app before the call. All the methods must be called on the main thread.
+ */
+public final class PhoneAccountModel {
+    private static final String TAG = "CD.PhoneAccountModel";
+
+    /** The scheme of the address of the phone accounts registered for a HFP device. */
+    @VisibleForTesting
+    static final String HFP_CLIENT_SCHEME = "hfpc";
+
+    private static PhoneAccountModel sPhoneAccountModel;
+
+    /**
+     * Initialized a globally accessible {@link PhoneAccountModel} which can be retrieved by {@link
+     * #get}. If this function is called a second time before calling {@link #tearDown()}, an
+     * {@link IllegalStateException} will be thrown.
+     *
+     * @param applicationContext Application context.
+     */
+    public static void init(Context applicationContext) {
+        if (sPhoneAccountModel == null) {
+            sPhoneAccountModel = new PhoneAccountModel(applicationContext);
+        } else {
+            throw new IllegalStateException("PhoneAccountModel has been initialized.");
+        }
+    }
+
+    /**
+     * Gets the global {@link PhoneAccountModel} instance. Make sure {@link #init(Context)} is
+     * called before calling this method.
+     */
+    public static PhoneAccountModel get() {
+        if (sPhoneAccountModel == null) {
+            throw new IllegalStateException(
+                    "Call PhoneAccountModel.init(Context) before calling this function");
+        }
+        return sPhoneAccountModel;
+    }
+
+    /** Tears down the {@link PhoneAccountModel} and stops listening to the account changes. */
+    public static void tearDown() {
+        if (sPhoneAccountModel != null) {
+            sPhoneAccountModel.mContext.unregisterReceiver(
+                    sPhoneAccountModel.mPhoneAccountChangeReceiver);
+            sPhoneAccountModel = null;
+        }
+    }
+
+    private final Context mContext;
+    private final BroadcastReceiver mPhoneAccountChangeReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            L.d(TAG, "onReceive: %s", intent.getAction());
+            if (BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED.equals(
+                    intent.getAction())) {
+                invalidateUserSelectedOutgoingPhoneAccount();
+            } else {
+                invalidate();
+            }
+        }
+    };
+
+    private boolean mIsLoaded;
+    private final Map<PhoneAccountHandle, PhoneAccount> mPhoneAccounts = new HashMap<>();
+    // The HFP phone accounts by the address of their Bluetooth device.
+    private final Map<String, PhoneAccountHandle> mHfpPhoneAccountHandles = new HashMap<>();
+    // The Bluetooth device address of the phone accounts with a HFP client address.
+    private final Map<PhoneAccountHandle, String> mHfpBluetoothAddresses = new HashMap<>();
+    // The union of the capabilities of all the accounts.
+    private int mCapabilities;
+    private boolean mIsUserSelectedOutgoingPhoneAccountLoaded;
+    @Nullable
+    private PhoneAccountHandle mUserSelectedOutgoingPhoneAccount;
+    private int mLoadCount;
+
+    @VisibleForTesting
+    PhoneAccountModel(Context context) {
+        mContext = context;
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(TelecomManager.ACTION_PHONE_ACCOUNT_REGISTERED);
+        filter.addAction(TelecomManager.ACTION_PHONE_ACCOUNT_UNREGISTERED);
+        filter.addAction(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED);
+        mContext.registerReceiver(mPhoneAccountChangeReceiver, filter);
+    }
+
+    /** Returns the call capable phone account of the handle, null if there is no such account. */
+    @MainThread
+    @Nullable
+    public PhoneAccount getPhoneAccount(@Nullable PhoneAccountHandle phoneAccountHandle) {
+        ensureLoaded();
+        return phoneAccountHandle == null ? null : mPhoneAccounts.get(phoneAccountHandle);
+    }
+
+    /** Returns the HFP phone account of the Bluetooth device with the address. */
+    @MainThread
+    @Nullable
+    public PhoneAccountHandle getHfpPhoneAccountHandle(@Nullable String bluetoothAddress) {
+        ensureLoaded();
+        return bluetoothAddress == null ? null : mHfpPhoneAccountHandles.get(bluetoothAddress);
+    }
+
+    /**
+     * Returns the Bluetooth address of the HFP device the phone account is registered for, null
+     * if the account doesn't have a HFP client address.
+     */
+    @MainThread
+    @Nullable
+    public String getHfpBluetoothAddress(@Nullable PhoneAccountHandle phoneAccountHandle) {
+        ensureLoaded();
+        return phoneAccountHandle == null ? null : mHfpBluetoothAddresses.get(phoneAccountHandle);
+    }
+
+    /**
+     * Returns if any call capable phone account has the capability, one of the {@code
+     * PhoneAccount.CAPABILITY_} constants.
+     */
+    @MainThread
+    public boolean hasCapability(int capability) {
+        ensureLoaded();
+        return (mCapabilities & capability) == capability;
+    }
+
+    /** Returns the phone account selected to place the outgoing calls. */
+    @MainThread
+    @Nullable
+    public PhoneAccountHandle getUserSelectedOutgoingPhoneAccount() {
+        ensureLoaded();
+        if (!mIsUserSelectedOutgoingPhoneAccountLoaded) {
+            mIsUserSelectedOutgoingPhoneAccountLoaded = true;
+            mUserSelectedOutgoingPhoneAccount = mContext.getSystemService(TelecomManager.class)
+                    .getUserSelectedOutgoingPhoneAccount();
+        }
+        return mUserSelectedOutgoingPhoneAccount;
+    }
+
+    /** Selects the phone account to place the outgoing calls. */
+    @MainThread
+    public void setUserSelectedOutgoingPhoneAccount(
+            @Nullable PhoneAccountHandle phoneAccountHandle) {
+        mContext.getSystemService(TelecomManager.class)
+                .setUserSelectedOutgoingPhoneAccount(phoneAccountHandle);
+        mIsUserSelectedOutgoingPhoneAccountLoaded = true;
+        mUserSelectedOutgoingPhoneAccount = phoneAccountHandle;
+    }
+
+    /** Returns if the outgoing calls are placed through a HFP phone account. */
+    @MainThread
+    public boolean isBluetoothCall() {
+        return isHfpPhoneAccount(getUserSelectedOutgoingPhoneAccount());
+    }
+
+    /** Drops the loaded accounts, they are loaded again on the next lookup. */
+    @MainThread
+    public void invalidate() {
+        mIsLoaded = false;
+        mIsUserSelectedOutgoingPhoneAccountLoaded = false;
+    }
+
+    /**
+     * Drops the user selected outgoing phone account, it is read again on the next lookup while
+     * the other accounts are kept.
+     */
+    @MainThread
+    public void invalidateUserSelectedOutgoingPhoneAccount() {
+        mIsUserSelectedOutgoingPhoneAccountLoaded = false;
+    }
+
+    void dump(PrintWriter writer) {
+        writer.printf("PhoneAccountModel: loaded: %b, loads: %d, accounts: %d, hfp accounts: %d%n",
+                mIsLoaded, mLoadCount, mPhoneAccounts.size(), mHfpPhoneAccountHandles.size());
+    }
+
+    private void ensureLoaded() {
+        if (mIsLoaded) {
+            return;
+        }
+        mIsLoaded = true;
+        mLoadCount++;
+        mPhoneAccounts.clear();
+        mHfpPhoneAccountHandles.clear();
+        mHfpBluetoothAddresses.clear();
+        mCapabilities = 0;
+
+        TelecomManager telecomManager = mContext.getSystemService(TelecomManager.class);
+        List<PhoneAccountHandle> phoneAccountHandles = telecomManager.getCallCapablePhoneAccounts();
+        for (PhoneAccountHandle phoneAccountHandle : phoneAccountHandles) {
+            PhoneAccount phoneAccount = telecomManager.getPhoneAccount(phoneAccountHandle);
+            if (phoneAccount == null) {
+                continue;
+            }
+            mPhoneAccounts.put(phoneAccountHandle, phoneAccount);
+            mCapabilities |= phoneAccount.getCapabilities();
+            if (isHfpPhoneAccount(phoneAccountHandle)) {
+                // The id of a HFP phone account is the address of its Bluetooth device.
+                mHfpPhoneAccountHandles.put(phoneAccountHandle.getId(), phoneAccountHandle);
+            }
+            Uri address = phoneAccount.getAddress();
+            if (address != null && HFP_CLIENT_SCHEME.equals(address.getScheme())) {
+                mHfpBluetoothAddresses.put(phoneAccountHandle, address.getSchemeSpecificPart());
+            }
+        }
+        L.d(TAG, "Loaded %d phone accounts", mPhoneAccounts.size());
+    }
+
+    /** Returns if the phone account is registered by the HFP client connection service. */
+    public static boolean isHfpPhoneAccount(@Nullable PhoneAccountHandle phoneAccountHandle) {
+        return phoneAccountHandle != null && phoneAccountHandle.getComponentName() != null
+                && Constants.HFP_CLIENT_CONNECTION_SERVICE_CLASS_NAME.equals(
+                        phoneAccountHandle.getComponentName().getClassName());
+    }
+}
@@ -20,12 +20,9 @@ import android.car.Car;
 import android.car.CarProjectionManager;
 import android.car.projection.ProjectionStatus;
 import android.content.Context;
-import android.net.Uri;
 import android.os.Bundle;
 import android.os.Parcelable;
 import android.telecom.Call;
-import android.telecom.PhoneAccount;
-import android.telecom.PhoneAccountHandle;
 import android.telecom.TelecomManager;
 
 import androidx.annotation.Nullable;
@@ -34,13 +31,14 @@ import androidx.annotation.VisibleForTesting;
 import com.android.car.dialer.log.L;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 class ProjectionCallHandler implements InCallServiceImpl.ActiveCallListChangedCallback,
         CarProjectionManager.ProjectionStatusListener {
     private static final String TAG = "CD.ProjectionCallHandler";
 
-    @VisibleForTesting static final String HFP_CLIENT_SCHEME = "hfpc";
     @VisibleForTesting static final String PROJECTION_STATUS_EXTRA_HANDLES_PHONE_UI =
             "android.car.projection.HANDLES_PHONE_UI";
     @VisibleForTesting static final String PROJECTION_STATUS_EXTRA_DEVICE_STATE =
@@ -53,7 +51,9 @@ class ProjectionCallHandler implements InCallServiceImpl.ActiveCallListChangedCa
     private CarProjectionManager mCarProjectionManager;
 
     private int mProjectionState = ProjectionStatus.PROJECTION_STATE_INACTIVE;
-    private List<ProjectionStatus> mProjectionDetails = Collections.emptyList();
+    // Worked out from the projection status when it changes, so adding a call is a lookup.
+    private boolean mSuppressAllDevices;
+    private Set<String> mSuppressedBluetoothAddresses = Collections.emptySet();
 
     ProjectionCallHandler(Context context) {
         this(context, context.getSystemService(TelecomManager.class),
@@ -93,7 +93,7 @@ class ProjectionCallHandler implements InCallServiceImpl.ActiveCallListChangedCa
     public void onProjectionStatusChanged(
             int state, String packageName, List<ProjectionStatus> details) {
         mProjectionState = state;
-        mProjectionDetails = details;
+        updateSuppressedBluetoothDevices(details);
     }
 
     @Override
@@ -116,7 +116,8 @@ class ProjectionCallHandler implements InCallServiceImpl.ActiveCallListChangedCa
             return false;
         }
 
-        return shouldSuppressCallUiForBluetoothDevice(bluetoothAddress);
+        L.d(TAG, "shouldSuppressCallUiFor(%s)", bluetoothAddress);
+        return mSuppressAllDevices || mSuppressedBluetoothAddresses.contains(bluetoothAddress);
     }
 
     @Override
@@ -130,24 +131,17 @@ class ProjectionCallHandler implements InCallServiceImpl.ActiveCallListChangedCa
         if (details == null) {
             return null;
         }
-
-        PhoneAccountHandle accountHandle = details.getAccountHandle();
-        PhoneAccount account = mTelecomManager.getPhoneAccount(accountHandle);
-        if (account == null) {
-            return null;
-        }
-
-        Uri address = account.getAddress();
-        if (address == null || !HFP_CLIENT_SCHEME.equals(address.getScheme())) {
-            return null;
-        }
-
-        return address.getSchemeSpecificPart();
+        return PhoneAccountModel.get().getHfpBluetoothAddress(details.getAccountHandle());
     }
 
-    private boolean shouldSuppressCallUiForBluetoothDevice(String bluetoothAddress) {
-        L.d(TAG, "shouldSuppressCallUiFor(%s)", bluetoothAddress);
-        for (ProjectionStatus status : mProjectionDetails) {
+    /**
+     * Works out the Bluetooth devices whose calls are handled by a projecting app, and if the
+     * calls of all the devices are.
+     */
+    private void updateSuppressedBluetoothDevices(List<ProjectionStatus> details) {
+        boolean suppressAllDevices = false;
+        Set<String> suppressedBluetoothAddresses = new HashSet<>();
+        for (ProjectionStatus status : details) {
             if (!status.isActive()) {
                 // Don't suppress UI for packages that aren't actively projecting.
                 L.d(TAG, "skip non-projecting package %s", status.getPackageName());
@@ -183,22 +177,23 @@ class ProjectionCallHandler implements InCallServiceImpl.ActiveCallListChangedCa
                 if (projectingBluetoothDevice == null) {
                     L.i(TAG, "Suppressing in-call UI - device %s is projecting, and does not "
                             + "specify a Bluetooth address", device);
-                    return true;
+                    suppressAllDevices = true;
                 } else if (!(projectingBluetoothDevice instanceof BluetoothDevice)) {
                     L.e(TAG, "Device %s has bad EXTRA_DEVICE value %s - treating as unspecified",
                             device, projectingBluetoothDevice);
-                    return true;
-                } else if (bluetoothAddress.equals(
-                        ((BluetoothDevice) projectingBluetoothDevice).getAddress())) {
-                    L.i(TAG, "Suppressing in-call UI - device %s is projecting, and call is coming "
+                    suppressAllDevices = true;
+                } else {
+                    String bluetoothAddress =
+                            ((BluetoothDevice) projectingBluetoothDevice).getAddress();
+                    L.i(TAG, "Suppressing in-call UI - device %s is projecting, for calls coming "
                             + "from device's Bluetooth address %s", device, bluetoothAddress);
-                    return true;
+                    suppressedBluetoothAddresses.add(bluetoothAddress);
                 }
             }
         }
 
-        // No projecting apps want to suppress this device, so let it through.
-        return false;
+        mSuppressAllDevices = suppressAllDevices;
+        mSuppressedBluetoothAddresses = suppressedBluetoothAddresses;
     }
 
     interface CarProjectionManagerProvider {
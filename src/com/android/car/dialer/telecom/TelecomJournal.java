@@ -0,0 +1,324 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.telecom.Call;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.car.dialer.log.L;
+import com.android.car.telephony.common.WorkerExecutor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * A fixed size journal of the telecom events, kept in a memory mapped file so it survives the
+ * process and can be read after a failure on a vehicle. Each event is a fixed size binary record
+ * written in place into a ring buffer, which costs a few stores and no system call. It records
+ * the calls being added and removed, their state transitions, how they are routed and the audio
+ * route changes, with the elapsed realtime of the event. The file is mapped on a worker thread so
+ * the application start doesn't wait for the disk; the events recorded until then are kept in
+ * memory and appended to the journal once it is mapped. The records are decoded by {@link
+ * #decode(ByteBuffer)} and printed by the {@link InCallServiceImpl} dump. All the methods must be
+ * called on the main thread.
+ */
+public final class TelecomJournal {
+    private static final String TAG = "CD.TelecomJournal";
+    private static final String FILE_NAME = "telecom_journal";
+
+    private static final int MAGIC = 0x43444a31;
+    private static final int FORMAT_VERSION = 1;
+    // magic, version, next record index, record count.
+    private static final int HEADER_SIZE = 16;
+    private static final int OFFSET_NEXT_INDEX = 8;
+    private static final int OFFSET_RECORD_COUNT = 12;
+    // elapsed realtime (long), call key (int), event (short), value (short), extra (int).
+    @VisibleForTesting
+    static final int RECORD_SIZE = 20;
+    @VisibleForTesting
+    static final int CAPACITY = 4096;
+    private static final int JOURNAL_SIZE = HEADER_SIZE + CAPACITY * RECORD_SIZE;
+
+    /** The journal was opened, the extra is the wall clock time in seconds. */
+    public static final short EVENT_OPENED = 0;
+    /** A call was added, the value is its state. */
+    public static final short EVENT_CALL_ADDED = 1;
+    /** A call was removed, the value is its state. */
+    public static final short EVENT_CALL_REMOVED = 2;
+    /** The state of a call changed, the value is the new state. */
+    public static final short EVENT_STATE_CHANGED = 3;
+    /** A call was routed, the value is the {@link CallLatencyTracker.Route}. */
+    public static final short EVENT_ROUTED = 4;
+    /** The call audio route changed, the value is the route and the extra is the mute state. */
+    public static final short EVENT_AUDIO_ROUTE_CHANGED = 5;
+    private static final String[] EVENT_NAMES = {
+            "opened", "added", "removed", "state", "routed", "audio route"
+    };
+
+    private static TelecomJournal sTelecomJournal;
+
+    /**
+     * Initialized a globally accessible {@link TelecomJournal} which can be retrieved by {@link
+     * #get}. If this function is called a second time before calling {@link #tearDown()}, an
+     * {@link IllegalStateException} will be thrown.
+     *
+     * @param applicationContext Application context.
+     */
+    public static void init(Context applicationContext) {
+        if (sTelecomJournal == null) {
+            sTelecomJournal = new TelecomJournal(
+                    new File(applicationContext.getNoBackupFilesDir(), FILE_NAME),
+                    WorkerExecutor.getInstance().getSingleThreadExecutor(),
+                    applicationContext.getMainExecutor());
+        } else {
+            throw new IllegalStateException("TelecomJournal has been initialized.");
+        }
+    }
+
+    /**
+     * Gets the global {@link TelecomJournal} instance. Make sure {@link #init(Context)} is called
+     * before calling this method.
+     */
+    public static TelecomJournal get() {
+        if (sTelecomJournal == null) {
+            throw new IllegalStateException(
+                    "Call TelecomJournal.init(Context) before calling this function");
+        }
+        return sTelecomJournal;
+    }
+
+    public static void tearDown() {
+        sTelecomJournal = null;
+    }
+
+    // In memory until the file is mapped, then the mapped journal.
+    private ByteBuffer mBuffer;
+    private int mNextIndex;
+    private int mRecordCount;
+
+    /** Creates a journal which maps the file right away, or is kept in memory without a file. */
+    @VisibleForTesting
+    TelecomJournal(@Nullable File file) {
+        this(file, Runnable::run, Runnable::run);
+    }
+
+    @VisibleForTesting
+    TelecomJournal(@Nullable File file, Executor mappingExecutor, Executor mainExecutor) {
+        mBuffer = ByteBuffer.allocate(JOURNAL_SIZE);
+        mBuffer.putInt(0, MAGIC);
+        mBuffer.putInt(4, FORMAT_VERSION);
+        record(0, EVENT_OPENED, 0, (int) (System.currentTimeMillis() / 1000));
+        if (file != null) {
+            CompletableFuture.supplyAsync(() -> map(file), mappingExecutor)
+                    .thenAcceptAsync(this::onJournalMapped, mainExecutor);
+        }
+    }
+
+    /** Records an event of the call. */
+    @MainThread
+    public void record(@NonNull Call call, short event, int value) {
+        record(getCallKey(call), event, value, 0);
+    }
+
+    /** Records an event which is not specific to a call. */
+    @MainThread
+    public void record(short event, int value, int extra) {
+        record(0, event, value, extra);
+    }
+
+    /**
+     * Returns the records from the oldest to the newest. Until the file is mapped, only the
+     * records of this process are returned.
+     */
+    @NonNull
+    public List<Record> getRecords() {
+        return decode(mBuffer);
+    }
+
+    /** Dumps the records from the oldest to the newest. */
+    public void dump(PrintWriter writer) {
+        List<Record> records = getRecords();
+        writer.printf("TelecomJournal: %d records%n", records.size());
+        for (Record record : records) {
+            writer.print("  ");
+            writer.println(record);
+        }
+    }
+
+    private void record(int callKey, short event, int value, int extra) {
+        int offset = HEADER_SIZE + mNextIndex * RECORD_SIZE;
+        mBuffer.putLong(offset, SystemClock.elapsedRealtime());
+        mBuffer.putInt(offset + 8, callKey);
+        mBuffer.putShort(offset + 12, event);
+        mBuffer.putShort(offset + 14, (short) value);
+        mBuffer.putInt(offset + 16, extra);
+
+        mNextIndex = (mNextIndex + 1) % CAPACITY;
+        mRecordCount = Math.min(mRecordCount + 1, CAPACITY);
+        mBuffer.putInt(OFFSET_NEXT_INDEX, mNextIndex);
+        mBuffer.putInt(OFFSET_RECORD_COUNT, mRecordCount);
+    }
+
+    /** Appends the records kept in memory to the mapped journal and writes to it from now on. */
+    private void onJournalMapped(@Nullable ByteBuffer journal) {
+        if (journal == null) {
+            return;
+        }
+        int nextIndex = 0;
+        int recordCount = 0;
+        if (journal.getInt(0) == MAGIC && journal.getInt(4) == FORMAT_VERSION) {
+            nextIndex = Math.floorMod(journal.getInt(OFFSET_NEXT_INDEX), CAPACITY);
+            recordCount = Math.min(Math.max(journal.getInt(OFFSET_RECORD_COUNT), 0), CAPACITY);
+        } else {
+            journal.putInt(0, MAGIC);
+            journal.putInt(4, FORMAT_VERSION);
+        }
+
+        int index = Math.floorMod(mNextIndex - mRecordCount, CAPACITY);
+        for (int i = 0; i < mRecordCount; i++) {
+            int offset = HEADER_SIZE + index * RECORD_SIZE;
+            int journalOffset = HEADER_SIZE + nextIndex * RECORD_SIZE;
+            for (int j = 0; j < RECORD_SIZE; j++) {
+                journal.put(journalOffset + j, mBuffer.get(offset + j));
+            }
+            index = (index + 1) % CAPACITY;
+            nextIndex = (nextIndex + 1) % CAPACITY;
+            recordCount = Math.min(recordCount + 1, CAPACITY);
+        }
+        journal.putInt(OFFSET_NEXT_INDEX, nextIndex);
+        journal.putInt(OFFSET_RECORD_COUNT, recordCount);
+
+        mBuffer = journal;
+        mNextIndex = nextIndex;
+        mRecordCount = recordCount;
+    }
+
+    /**
+     * Decodes the records of a journal, from the oldest to the newest. Returns an empty list if
+     * the buffer doesn't hold a journal.
+     */
+    @NonNull
+    public static List<Record> decode(@NonNull ByteBuffer buffer) {
+        if (buffer.capacity() < JOURNAL_SIZE
+                || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            return Collections.emptyList();
+        }
+        int nextIndex = Math.floorMod(buffer.getInt(OFFSET_NEXT_INDEX), CAPACITY);
+        int recordCount = Math.min(Math.max(buffer.getInt(OFFSET_RECORD_COUNT), 0), CAPACITY);
+
+        List<Record> records = new ArrayList<>(recordCount);
+        int index = Math.floorMod(nextIndex - recordCount, CAPACITY);
+        for (int i = 0; i < recordCount; i++) {
+            int offset = HEADER_SIZE + index * RECORD_SIZE;
+            records.add(new Record(
+                    buffer.getLong(offset),
+                    buffer.getInt(offset + 8),
+                    buffer.getShort(offset + 12),
+                    buffer.getShort(offset + 14),
+                    buffer.getInt(offset + 16)));
+            index = (index + 1) % CAPACITY;
+        }
+        return records;
+    }
+
+    /** Maps the journal file, returns null if it can't be mapped. */
+    @Nullable
+    private static ByteBuffer map(File file) {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            // The mapping stays valid after the file is closed.
+            return randomAccessFile.getChannel()
+                    .map(FileChannel.MapMode.READ_WRITE, 0, JOURNAL_SIZE);
+        } catch (IOException e) {
+            L.w(TAG, "Failed to map the journal, keeping it in memory: %s", e);
+            return null;
+        }
+    }
+
+    /** Returns a key that correlates the records of a call without recording its identity. */
+    private static int getCallKey(Call call) {
+        Call.Details details = call.getDetails();
+        return details == null || details.getTelecomCallId() == null
+                ? System.identityHashCode(call)
+                : details.getTelecomCallId().hashCode();
+    }
+
+    /** A decoded journal record. */
+    public static final class Record {
+        private final long mElapsedRealtime;
+        private final int mCallKey;
+        private final short mEvent;
+        private final short mValue;
+        private final int mExtra;
+
+        Record(long elapsedRealtime, int callKey, short event, short value, int extra) {
+            mElapsedRealtime = elapsedRealtime;
+            mCallKey = callKey;
+            mEvent = event;
+            mValue = value;
+            mExtra = extra;
+        }
+
+        /** Returns the {@link SystemClock#elapsedRealtime()} of the event. */
+        public long getElapsedRealtime() {
+            return mElapsedRealtime;
+        }
+
+        /** Returns the key of the call, 0 for the events that are not specific to a call. */
+        public int getCallKey() {
+            return mCallKey;
+        }
+
+        /** Returns the event, one of the {@code EVENT_} constants. */
+        public short getEvent() {
+            return mEvent;
+        }
+
+        /** Returns the value of the event. */
+        public int getValue() {
+            return mValue;
+        }
+
+        /** Returns the extra of the event. */
+        public int getExtra() {
+            return mExtra;
+        }
+
+        @Override
+        public String toString() {
+            String event = mEvent >= 0 && mEvent < EVENT_NAMES.length
+                    ? EVENT_NAMES[mEvent]
+                    : "unknown(" + mEvent + ")";
+            return String.format("%d call=%08x %s value=%d extra=%d", mElapsedRealtime, mCallKey,
+                    event, mValue, mExtra);
+        }
+    }
+}
@@ -27,19 +27,21 @@ import android.os.IBinder;
 import android.telecom.Call;
 import android.telecom.CallAudioState;
 import android.telecom.PhoneAccount;
-import android.telecom.PhoneAccountHandle;
 import android.telecom.TelecomManager;
 import android.text.TextUtils;
 import android.widget.Toast;
 
+import androidx.annotation.MainThread;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.Observer;
 
-import com.android.car.dialer.Constants;
 import com.android.car.dialer.R;
 import com.android.car.dialer.bluetooth.BluetoothHeadsetClientProvider;
 import com.android.car.dialer.log.L;
 import com.android.car.telephony.common.TelecomUtils;
 
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -57,6 +59,10 @@ public class UiCallManager {
     private TelecomManager mTelecomManager;
     private InCallServiceImpl mInCallService;
     private BluetoothHeadsetClientProvider mBluetoothHeadsetClientProvider;
+    private AudioRouteState mAudioRouteState;
+    private PhoneAccountModel mPhoneAccountModel;
+    private final Observer<CallAudioState> mCallAudioStateObserver =
+            callAudioState -> mAudioRouteState.onCallAudioStateChanged(callAudioState);
 
     /**
      * Initialized a globally accessible {@link UiCallManager} which can be retrieved by
@@ -104,6 +110,9 @@ public class UiCallManager {
         context.bindService(intent, mInCallServiceConnection, Context.BIND_AUTO_CREATE);
 
         mBluetoothHeadsetClientProvider = BluetoothHeadsetClientProvider.singleton(context);
+        mAudioRouteState = new AudioRouteState(mBluetoothHeadsetClientProvider);
+        mPhoneAccountModel = PhoneAccountModel.get();
+        CallRegistry.get().getCallAudioStateLiveData().observeForever(mCallAudioStateObserver);
     }
 
     private final ServiceConnection mInCallServiceConnection = new ServiceConnection() {
@@ -127,6 +136,7 @@ public class UiCallManager {
      * {@link UiCallManager}.
      */
     public void tearDown() {
+        CallRegistry.get().getCallAudioStateLiveData().removeObserver(mCallAudioStateObserver);
         if (mInCallService != null) {
             mContext.unbindService(mInCallServiceConnection);
             mInCallService = null;
@@ -190,14 +200,38 @@ public class UiCallManager {
     }
 
     public boolean isBluetoothCall() {
-        PhoneAccountHandle phoneAccountHandle =
-                mTelecomManager.getUserSelectedOutgoingPhoneAccount();
-        if (phoneAccountHandle != null && phoneAccountHandle.getComponentName() != null) {
-            return Constants.HFP_CLIENT_CONNECTION_SERVICE_CLASS_NAME.equals(
-                    phoneAccountHandle.getComponentName().getClassName());
-        } else {
-            return false;
-        }
+        return mPhoneAccountModel.isBluetoothCall();
+    }
+
+    /**
+     * Starts following the audio route from the HFP broadcasts and the call audio state reported
+     * to the {@link CallRegistry}, so {@link #getAudioRoute()} reads it from memory instead of
+     * querying the Bluetooth stack. The observer of the audio route must forward the broadcasts
+     * to {@link #onHfpAudioStateChanged(Intent)} and the HFP device list, starting with the
+     * current one, to {@link #onHfpDeviceListChanged(List)} until it calls
+     * {@link #stopTrackingAudioRoute()}.
+     */
+    @MainThread
+    public void startTrackingAudioRoute() {
+        mAudioRouteState.startTracking();
+    }
+
+    /** Stops following the audio route, see {@link #startTrackingAudioRoute()}. */
+    @MainThread
+    public void stopTrackingAudioRoute() {
+        mAudioRouteState.stopTracking();
+    }
+
+    /** Updates the followed audio route from a HFP audio state changed broadcast. */
+    @MainThread
+    public void onHfpAudioStateChanged(Intent intent) {
+        mAudioRouteState.onHfpAudioStateChanged(intent);
+    }
+
+    /** Updates the followed audio route when the HFP connected devices change. */
+    @MainThread
+    public void onHfpDeviceListChanged(@Nullable List<BluetoothDevice> devices) {
+        mAudioRouteState.onHfpDeviceListChanged(devices);
     }
 
     /**
@@ -206,7 +240,10 @@ public class UiCallManager {
      * The available routes are defined in {@link CallAudioState}.
      */
     public int getAudioRoute() {
-        if (isBluetoothCall()) {
+        boolean isBluetoothCall = isBluetoothCall();
+        if (mAudioRouteState.isTracking() && isBluetoothCall) {
+            return mAudioRouteState.getBluetoothAudioRoute();
+        } else if (!mAudioRouteState.isTracking() && isBluetoothCall) {
             BluetoothHeadsetClient bluetoothHeadsetClient = mBluetoothHeadsetClientProvider.get();
             List<BluetoothDevice> devices = bluetoothHeadsetClient != null
                     ? bluetoothHeadsetClient.getConnectedDevices()
@@ -310,22 +347,16 @@ public class UiCallManager {
 
     /** Check if emergency call is supported by any phone account. */
     public boolean isEmergencyCallSupported() {
-        List<PhoneAccountHandle> phoneAccountHandleList =
-                mTelecomManager.getCallCapablePhoneAccounts();
-        for (PhoneAccountHandle phoneAccountHandle : phoneAccountHandleList) {
-            PhoneAccount phoneAccount = mTelecomManager.getPhoneAccount(phoneAccountHandle);
-            L.d(TAG, "phoneAccount: %s", phoneAccount);
-            if (phoneAccount != null && phoneAccount.hasCapabilities(
-                    PhoneAccount.CAPABILITY_PLACE_EMERGENCY_CALLS)) {
-                return true;
-            }
-        }
-        return false;
+        return mPhoneAccountModel.hasCapability(PhoneAccount.CAPABILITY_PLACE_EMERGENCY_CALLS);
     }
 
-
     /** Return the current active call list from delegated {@link InCallServiceImpl} */
     public List<Call> getCallList() {
         return mInCallService == null ? Collections.emptyList() : mInCallService.getCalls();
     }
+
+    void dump(PrintWriter writer) {
+        mAudioRouteState.dump(writer);
+        mPhoneAccountModel.dump(writer);
+    }
 }
@@ -17,6 +17,7 @@
 package com.android.car.dialer.ui;
 
 import android.app.SearchManager;
+import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.os.Bundle;
@@ -25,6 +26,7 @@ import android.telecom.Call;
 import android.telephony.PhoneNumberUtils;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
 import androidx.lifecycle.LiveData;
@@ -38,8 +40,12 @@ import com.android.car.dialer.log.L;
 import com.android.car.dialer.notification.NotificationService;
 import com.android.car.dialer.telecom.UiCallManager;
 import com.android.car.dialer.ui.activecall.InCallActivity;
+import com.android.car.dialer.ui.calllog.CallLogAdapter;
 import com.android.car.dialer.ui.common.DialerBaseFragment;
+import com.android.car.dialer.ui.common.SharedRecycledViewPool;
+import com.android.car.dialer.ui.contact.ContactListAdapter;
 import com.android.car.dialer.ui.dialpad.DialpadFragment;
+import com.android.car.dialer.ui.favorite.FavoriteAdapter;
 import com.android.car.dialer.ui.search.ContactResultsFragment;
 import com.android.car.dialer.ui.settings.DialerSettingsActivity;
 import com.android.car.dialer.ui.warning.OverlayFragment;
@@ -66,6 +72,8 @@ public class TelecomActivity extends FragmentActivity implements
     // View objects for this activity.
     private TelecomPageTab.Factory mTabFactory;
     private ToolbarController mCarUiToolbar;
+    private SharedRecycledViewPool mRecycledViewPool;
+    private boolean mHasPrewarmedListItems;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -77,6 +85,8 @@ public class TelecomActivity extends FragmentActivity implements
 
         mCarUiToolbar = CarUi.requireToolbar(this);
 
+        mRecycledViewPool = new SharedRecycledViewPool(this);
+
         setupTabLayout();
 
         TelecomActivityViewModel viewModel = ViewModelProviders.of(this).get(
@@ -89,6 +99,9 @@ public class TelecomActivity extends FragmentActivity implements
         hasHfpDeviceConnectedLiveData.observe(this, hasHfpDeviceConnected -> {
             if (!Boolean.TRUE.equals(hasHfpDeviceConnected)) {
                 new OverlayFragment().show(getSupportFragmentManager(), null);
+            } else {
+                // Lists get populated once the phone is connected.
+                prewarmListItems();
             }
         });
 
@@ -101,6 +114,12 @@ public class TelecomActivity extends FragmentActivity implements
         handleIntent();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mRecycledViewPool.release();
+    }
+
     @Override
     protected void onNewIntent(Intent i) {
         super.onNewIntent(i);
@@ -250,6 +269,37 @@ public class TelecomActivity extends FragmentActivity implements
                 .commit();
     }
 
+    @Nullable
+    @Override
+    public SharedRecycledViewPool getSharedRecycledViewPool() {
+        return mRecycledViewPool;
+    }
+
+    /**
+     * Pre-inflates a screenful of list items for each of the list tabs in the background, so the
+     * first frame after switching tabs doesn't have to inflate them.
+     */
+    private void prewarmListItems() {
+        if (mHasPrewarmedListItems) {
+            return;
+        }
+        mHasPrewarmedListItems = true;
+
+        // The adapters only inflate the view holders, they are created with the context of the
+        // pool which gives each background inflation its own LayoutInflater.
+        Context inflaterContext = mRecycledViewPool.getInflaterContext();
+        int rowCount = getResources().getDisplayMetrics().heightPixels
+                / getResources().getDimensionPixelSize(R.dimen.list_item_height) + 1;
+        int columnCount = getResources().getInteger(R.integer.favorite_fragment_grid_column);
+
+        mRecycledViewPool.prewarm(new ContactListAdapter(inflaterContext, null),
+                ContactListAdapter.TYPE_CONTACT, rowCount);
+        mRecycledViewPool.prewarm(new CallLogAdapter(inflaterContext, null),
+                CallLogAdapter.EntryType.TYPE_CALLLOG, rowCount);
+        mRecycledViewPool.prewarm(new FavoriteAdapter(),
+                FavoriteAdapter.TYPE_CONTACT, rowCount * columnCount);
+    }
+
     @Override
     public boolean onNavigateUp() {
         if (isBackNavigationAvailable()) {
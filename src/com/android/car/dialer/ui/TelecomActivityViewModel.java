@@ -32,7 +32,7 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.android.car.dialer.bluetooth.UiBluetoothMonitor;
 import com.android.car.dialer.log.L;
-import com.android.car.dialer.telecom.LocalCallHandler;
+import com.android.car.dialer.telecom.CallRegistry;
 import com.android.car.dialer.ui.common.SingleLiveEvent;
 
 import java.util.List;
@@ -51,8 +51,6 @@ public class TelecomActivityViewModel extends AndroidViewModel {
 
     private final LiveData<Boolean> mHasHfpDeviceConnectedLiveData;
 
-    private final LocalCallHandler mLocalCallHandler;
-
     public TelecomActivityViewModel(Application application) {
         super(application);
         mApplicationContext = application.getApplicationContext();
@@ -66,8 +64,6 @@ public class TelecomActivityViewModel extends AndroidViewModel {
         }
 
         mHasHfpDeviceConnectedLiveData = UiBluetoothMonitor.get().hasHfpDeviceConnected();
-
-        mLocalCallHandler = new LocalCallHandler(mApplicationContext);
     }
 
     /**
@@ -100,12 +96,7 @@ public class TelecomActivityViewModel extends AndroidViewModel {
 
     /** Returns the live data which monitors the ongoing call list. */
     public LiveData<List<Call>> getOngoingCallListLiveData() {
-        return mLocalCallHandler.getOngoingCallListLiveData();
-    }
-
-    @Override
-    protected void onCleared() {
-        mLocalCallHandler.tearDown();
+        return CallRegistry.get().getOngoingCallListLiveData();
     }
 
     /**
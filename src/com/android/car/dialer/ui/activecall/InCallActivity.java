@@ -19,6 +19,8 @@ package com.android.car.dialer.ui.activecall;
 import android.content.Intent;
 import android.os.Bundle;
 import android.telecom.Call;
+import android.view.View;
+import android.view.ViewTreeObserver;
 
 import androidx.core.util.Pair;
 import androidx.fragment.app.Fragment;
@@ -33,6 +35,7 @@ import com.android.car.dialer.Constants;
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
 import com.android.car.dialer.notification.InCallNotificationController;
+import com.android.car.dialer.telecom.CallLatencyTracker;
 import com.android.car.telephony.common.CallDetail;
 
 /** Activity for ongoing call and incoming call. */
@@ -51,7 +54,19 @@ public class InCallActivity extends FragmentActivity {
         super.onCreate(savedInstanceState);
         L.d(TAG, "onCreate");
 
+        CallLatencyTracker.get().markPendingCalls(CallLatencyTracker.MILESTONE_ACTIVITY_CREATED);
         setContentView(R.layout.in_call_activity);
+        View decorView = getWindow().getDecorView();
+        decorView.getViewTreeObserver().addOnPreDrawListener(
+                new ViewTreeObserver.OnPreDrawListener() {
+                    @Override
+                    public boolean onPreDraw() {
+                        decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                        CallLatencyTracker.get().markPendingCalls(
+                                CallLatencyTracker.MILESTONE_FIRST_FRAME);
+                        return true;
+                    }
+                });
 
         mOngoingCallFragment = getSupportFragmentManager().findFragmentById(
                 R.id.ongoing_call_fragment);
@@ -36,6 +36,7 @@ import com.android.car.apps.common.BackgroundImageView;
 import com.android.car.apps.common.LetterTileDrawable;
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.notification.CallerIdCache;
 import com.android.car.dialer.ui.view.ContactAvatarOutputlineProvider;
 import com.android.car.telephony.common.CallDetail;
 import com.android.car.telephony.common.TelecomUtils;
@@ -62,11 +63,13 @@ public abstract class InCallFragment extends Fragment {
     private LetterTileDrawable mDefaultAvatar;
     private CompletableFuture<Void> mPhoneNumberInfoFuture;
     private String mCurrentNumber;
+    private boolean mIsObservingContactList;
+    private boolean mHasContactList;
 
     @Override
     public void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        mDefaultAvatar = TelecomUtils.createLetterTile(getContext(), null, null);
+        mDefaultAvatar = InCallUiWarmer.get().takeDefaultAvatar();
     }
 
     /**
@@ -102,69 +105,97 @@ public abstract class InCallFragment extends Fragment {
             mPhoneNumberInfoFuture.cancel(true);
         }
 
-        mNameView.setText(TelecomUtils.getFormattedNumber(getContext(), number));
-        mPhoneNumberView.setVisibility(View.GONE);
-        mAvatarView.setImageDrawable(mDefaultAvatar);
+        // The caller is usually resolved by the time the page shows up, in which case the profile
+        // is bound right away instead of after a frame with only the number.
+        CallerIdCache.CallerId callerId = CallerIdCache.get().peek(number);
+        if (callerId != null && callerId.isResolved()) {
+            updateProfile(number, callerId.getPhoneNumberInfo());
+        } else {
+            mNameView.setText(callerId == null
+                    ? TelecomUtils.getFormattedNumber(getContext(), number)
+                    : callerId.getDisplayName());
+            mPhoneNumberView.setVisibility(View.GONE);
+            mAvatarView.setImageDrawable(mDefaultAvatar);
+            mPhoneNumberInfoFuture = CallerIdCache.get().resolve(number)
+                    .thenAcceptAsync(resolved -> updateProfile(number,
+                            resolved.getPhoneNumberInfo()), getContext().getMainExecutor());
+        }
+
+        if (!mIsObservingContactList) {
+            mIsObservingContactList = true;
+            InCallViewModel inCallViewModel = ViewModelProviders.of(this).get(
+                    InCallViewModel.class);
+            inCallViewModel.getContactListLiveData().observe(this,
+                    contacts -> onContactListChanged());
+        }
+    }
 
-        InCallViewModel inCallViewModel = ViewModelProviders.of(this).get(
-                InCallViewModel.class);
-        inCallViewModel.getContactListLiveData().observe(this, contacts -> updateProfile(number));
+    private void onContactListChanged() {
+        // The first value is the phone book the caller was resolved with. Later ones are edits.
+        if (!mHasContactList) {
+            mHasContactList = true;
+            return;
+        }
+        String number = mCurrentNumber;
+        if (mPhoneNumberInfoFuture != null) {
+            mPhoneNumberInfoFuture.cancel(true);
+        }
+        mPhoneNumberInfoFuture = CallerIdCache.get().refresh(number)
+                .thenAcceptAsync(resolved -> updateProfile(number,
+                        resolved.getPhoneNumberInfo()), getContext().getMainExecutor());
     }
 
-    private void updateProfile(String number) {
-        mPhoneNumberInfoFuture = TelecomUtils.getPhoneNumberInfo(getContext(), number)
-            .thenAcceptAsync((info) -> {
-                if (getContext() == null) {
-                    return;
-                }
-
-                String nameViewText = info.getDisplayName();
-                mNameView.setText(nameViewText);
-
-                String phoneNumberLabel = info.getTypeLabel();
-                if (!phoneNumberLabel.isEmpty()) {
-                    phoneNumberLabel += " ";
-                }
-
-                String bidiWrappedLabel = phoneNumberLabel + TelecomUtils.getBidiWrappedNumber(
-                        TelecomUtils.getFormattedNumber(getContext(), number));
-                phoneNumberLabel += TelecomUtils.getFormattedNumber(getContext(), number);
-
-                if (!TextUtils.isEmpty(phoneNumberLabel)
-                        && !phoneNumberLabel.equals(info.getDisplayName())) {
-                    mPhoneNumberView.setText(bidiWrappedLabel);
-                    mPhoneNumberView.setVisibility(View.VISIBLE);
-                } else {
-                    mPhoneNumberView.setVisibility(View.GONE);
-                }
-
-                LetterTileDrawable letterTile = TelecomUtils.createLetterTile(
-                        getContext(), info.getInitials(), info.getDisplayName());
-
-                Glide.with(this)
-                        .load(info.getAvatarUri())
-                        .apply(new RequestOptions().centerCrop().error(letterTile))
-                        .listener(new RequestListener<Drawable>() {
-                            @Override
-                            public boolean onLoadFailed(@Nullable GlideException e, Object model,
-                                    Target<Drawable> target, boolean isFirstResource) {
-                                mBackgroundImage.setAlpha(getResources().getFloat(
-                                        R.dimen.config_background_image_error_alpha));
-                                mBackgroundImage.setBackgroundColor(letterTile.getColor());
-                                return false;
-                            }
-
-                            @Override
-                            public boolean onResourceReady(Drawable resource, Object model,
-                                    Target<Drawable> target, DataSource dataSource,
-                                    boolean isFirstResource) {
-                                mBackgroundImage.setAlpha(getResources().getFloat(
-                                        R.dimen.config_background_image_alpha));
-                                mBackgroundImage.setBackgroundDrawable(resource, false);
-                                return false;
-                            }
-                        }).into(mAvatarView);
-            }, getContext().getMainExecutor());
+    private void updateProfile(String number, TelecomUtils.PhoneNumberInfo info) {
+        if (getContext() == null) {
+            return;
+        }
+
+        String nameViewText = info.getDisplayName();
+        mNameView.setText(nameViewText);
+
+        String phoneNumberLabel = info.getTypeLabel();
+        if (!phoneNumberLabel.isEmpty()) {
+            phoneNumberLabel += " ";
+        }
+
+        String bidiWrappedLabel = phoneNumberLabel + TelecomUtils.getBidiWrappedNumber(
+                TelecomUtils.getFormattedNumber(getContext(), number));
+        phoneNumberLabel += TelecomUtils.getFormattedNumber(getContext(), number);
+
+        if (!TextUtils.isEmpty(phoneNumberLabel)
+                && !phoneNumberLabel.equals(info.getDisplayName())) {
+            mPhoneNumberView.setText(bidiWrappedLabel);
+            mPhoneNumberView.setVisibility(View.VISIBLE);
+        } else {
+            mPhoneNumberView.setVisibility(View.GONE);
+        }
+
+        LetterTileDrawable letterTile = TelecomUtils.createLetterTile(
+                getContext(), info.getInitials(), info.getDisplayName());
+
+        Glide.with(this)
+                .load(info.getAvatarUri())
+                .apply(new RequestOptions().centerCrop().error(letterTile))
+                .listener(new RequestListener<Drawable>() {
+                    @Override
+                    public boolean onLoadFailed(@Nullable GlideException e, Object model,
+                            Target<Drawable> target, boolean isFirstResource) {
+                        mBackgroundImage.setAlpha(getResources().getFloat(
+                                R.dimen.config_background_image_error_alpha));
+                        mBackgroundImage.setBackgroundColor(letterTile.getColor());
+                        return false;
+                    }
+
+                    @Override
+                    public boolean onResourceReady(Drawable resource, Object model,
+                            Target<Drawable> target, DataSource dataSource,
+                            boolean isFirstResource) {
+                        mBackgroundImage.setAlpha(getResources().getFloat(
+                                R.dimen.config_background_image_alpha));
+                        mBackgroundImage.setBackgroundDrawable(resource, false);
+                        return false;
+                    }
+                }).into(mAvatarView);
     }
 
     /** Presents the call state and call duration. */
@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.activecall;
+
+import android.bluetooth.BluetoothDevice;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.SparseArray;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+
+import androidx.annotation.LayoutRes;
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+
+import com.android.car.apps.common.LetterTileDrawable;
+import com.android.car.dialer.R;
+import com.android.car.dialer.bluetooth.UiBluetoothMonitor;
+import com.android.car.dialer.log.L;
+import com.android.car.dialer.telecom.CallEventCoalescer;
+import com.android.car.dialer.telecom.CallRegistry;
+import com.android.car.telephony.common.TelecomUtils;
+import com.android.car.telephony.common.WorkerExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Prepares the incoming call page while an HFP device is connected, so {@link InCallActivity}
+ * draws its first frame within {@link #FIRST_FRAME_BUDGET_MS} instead of building everything
+ * when the phone rings. It creates the process wide {@link CallRegistry} and {@link
+ * CallEventCoalescer} that {@link InCallViewModel} observes, inflates the ringing call controller
+ * bar on a background thread and builds the default letter tile. The view model itself and its
+ * audio route live data belong to the activity and are still created with it. The prepared
+ * objects are handed out once, and prepared again when the main thread is idle. They are dropped
+ * instead of handed out once the configuration changed.
+ */
+public final class InCallUiWarmer {
+    private static final String TAG = "CD.InCallUiWarmer";
+
+    /** The time from creating the {@link InCallActivity} to its first frame on a warm start. */
+    public static final long FIRST_FRAME_BUDGET_MS = 250;
+
+    private static final int[] PREFETCHED_LAYOUTS = {
+            R.layout.ringing_call_controller_bar_fragment
+    };
+
+    private static InCallUiWarmer sInCallUiWarmer;
+
+    /**
+     * Initialized a globally accessible {@link InCallUiWarmer} which can be retrieved by {@link
+     * #get}. If this function is called a second time before calling {@link #tearDown()}, an
+     * {@link IllegalStateException} will be thrown.
+     *
+     * @param applicationContext Application context.
+     */
+    public static void init(Context applicationContext) {
+        init(applicationContext, WorkerExecutor.getInstance().getSingleThreadExecutor(),
+                applicationContext.getMainExecutor());
+    }
+
+    /**
+     * Initializes the global {@link InCallUiWarmer} inflating the layouts on the given executor
+     * and handing them to the main thread through the main executor.
+     */
+    @VisibleForTesting
+    static void init(Context applicationContext, Executor inflationExecutor,
+            Executor mainExecutor) {
+        if (sInCallUiWarmer == null) {
+            sInCallUiWarmer = new InCallUiWarmer(applicationContext, inflationExecutor,
+                    mainExecutor);
+        } else {
+            throw new IllegalStateException("InCallUiWarmer has been initialized.");
+        }
+    }
+
+    /**
+     * Gets the global {@link InCallUiWarmer} instance. Make sure {@link #init(Context)} is called
+     * before calling this method.
+     */
+    public static InCallUiWarmer get() {
+        if (sInCallUiWarmer == null) {
+            throw new IllegalStateException(
+                    "Call InCallUiWarmer.init(Context) before calling this function");
+        }
+        return sInCallUiWarmer;
+    }
+
+    /** Stops warming up and drops the prepared objects. */
+    public static void tearDown() {
+        if (sInCallUiWarmer != null) {
+            sInCallUiWarmer.mFirstHfpConnectedDevice.removeObserver(
+                    sInCallUiWarmer.mHfpDeviceObserver);
+            sInCallUiWarmer.release();
+        }
+        sInCallUiWarmer = null;
+    }
+
+    private final Context mContext;
+    private final Executor mInflationExecutor;
+    private final Executor mMainExecutor;
+    private final LiveData<BluetoothDevice> mFirstHfpConnectedDevice;
+    private final Observer<BluetoothDevice> mHfpDeviceObserver;
+    private final SparseArray<View> mPrefetchedViews = new SparseArray<>();
+    @Nullable
+    private LayoutInflater mLayoutInflater;
+    @Nullable
+    private LetterTileDrawable mDefaultAvatar;
+    // The configuration the objects were prepared for, they are stale once it changes.
+    @Nullable
+    private Configuration mPreparedConfiguration;
+    // Bumped when the prepared objects are dropped, so inflations started before are dropped too.
+    private int mGeneration;
+    private boolean mIsHfpConnected;
+    private boolean mIsWarmUpScheduled;
+
+    private InCallUiWarmer(Context context, Executor inflationExecutor, Executor mainExecutor) {
+        mContext = context;
+        mInflationExecutor = inflationExecutor;
+        mMainExecutor = mainExecutor;
+        mHfpDeviceObserver = this::onHfpDeviceChanged;
+        mFirstHfpConnectedDevice = UiBluetoothMonitor.get().getFirstHfpConnectedDevice();
+        mFirstHfpConnectedDevice.observeForever(mHfpDeviceObserver);
+    }
+
+    /**
+     * Returns the prepared view of the layout and stops tracking it, null if there is none. The
+     * view is inflated with the in call theme and has no parent.
+     */
+    @MainThread
+    @Nullable
+    public View takeView(@LayoutRes int layoutResId) {
+        View view = mPrefetchedViews.get(layoutResId);
+        if (view == null) {
+            return null;
+        }
+        mPrefetchedViews.remove(layoutResId);
+        scheduleWarmUp();
+        if (isConfigurationChanged()) {
+            L.d(TAG, "Dropping the view inflated for another configuration");
+            return null;
+        }
+        return view;
+    }
+
+    /** Returns the prepared default avatar, or a new one if it was taken already. */
+    @MainThread
+    @NonNull
+    public LetterTileDrawable takeDefaultAvatar() {
+        LetterTileDrawable defaultAvatar = mDefaultAvatar;
+        mDefaultAvatar = null;
+        scheduleWarmUp();
+        return defaultAvatar != null && !isConfigurationChanged()
+                ? defaultAvatar
+                : TelecomUtils.createLetterTile(mContext, null, null);
+    }
+
+    /** Returns the prepared view of the layout without taking it, null if there is none. */
+    @VisibleForTesting
+    @Nullable
+    View peekView(@LayoutRes int layoutResId) {
+        return mPrefetchedViews.get(layoutResId);
+    }
+
+    /** Prepares the objects that are not prepared yet. */
+    @VisibleForTesting
+    @MainThread
+    void warmUp() {
+        long startTime = SystemClock.elapsedRealtime();
+
+        // The call registry and event coalescer observed by the view model are process wide,
+        // created on the main thread.
+        CallRegistry.get();
+        CallEventCoalescer.get();
+
+        if (isConfigurationChanged()) {
+            release();
+        }
+        mPreparedConfiguration = new Configuration(mContext.getResources().getConfiguration());
+
+        if (mDefaultAvatar == null) {
+            mDefaultAvatar = TelecomUtils.createLetterTile(mContext, null, null);
+        }
+
+        if (mLayoutInflater == null) {
+            mLayoutInflater = LayoutInflater.from(
+                    new ContextThemeWrapper(mContext, R.style.Theme_Dialer_InCall));
+        }
+        int generation = mGeneration;
+        for (int layoutResId : PREFETCHED_LAYOUTS) {
+            if (mPrefetchedViews.get(layoutResId) == null) {
+                LayoutInflater layoutInflater = mLayoutInflater;
+                CompletableFuture.supplyAsync(() -> inflate(layoutInflater, layoutResId),
+                        mInflationExecutor)
+                        .thenAcceptAsync(view -> {
+                            if (generation == mGeneration) {
+                                // A clone, the shared inflater may be in use on the inflation
+                                // thread.
+                                mPrefetchedViews.put(layoutResId, view != null ? view
+                                        : layoutInflater.cloneInContext(
+                                                layoutInflater.getContext())
+                                                .inflate(layoutResId, null));
+                            }
+                        }, mMainExecutor);
+            }
+        }
+
+        L.d(TAG, "warmUp took %d ms", SystemClock.elapsedRealtime() - startTime);
+    }
+
+    /**
+     * Inflates the layout off the main thread. Returns null if the layout needs the main thread,
+     * it is then inflated there instead.
+     */
+    @Nullable
+    private static View inflate(LayoutInflater layoutInflater, @LayoutRes int layoutResId) {
+        try {
+            return layoutInflater.inflate(layoutResId, null);
+        } catch (RuntimeException e) {
+            L.w(TAG, "Failed to inflate in the background, inflating on the main thread: %s", e);
+            return null;
+        }
+    }
+
+    private void onHfpDeviceChanged(@Nullable BluetoothDevice device) {
+        mIsHfpConnected = device != null;
+        if (mIsHfpConnected) {
+            warmUp();
+        } else {
+            release();
+        }
+    }
+
+    /** Prepares the taken objects again once the in call page is done with its first frames. */
+    private void scheduleWarmUp() {
+        if (mIsWarmUpScheduled || !mIsHfpConnected) {
+            return;
+        }
+        mIsWarmUpScheduled = true;
+        Looper.myQueue().addIdleHandler(() -> {
+            mIsWarmUpScheduled = false;
+            if (mIsHfpConnected) {
+                warmUp();
+            }
+            return false;
+        });
+    }
+
+    private void release() {
+        mPrefetchedViews.clear();
+        mGeneration++;
+        mDefaultAvatar = null;
+    }
+
+    /**
+     * Returns if any field of the configuration changed since the objects were prepared, e.g. the
+     * day night mode, the locale or the font scale, which all change the prepared objects.
+     */
+    private boolean isConfigurationChanged() {
+        return mPreparedConfiguration == null
+                || mPreparedConfiguration.diff(mContext.getResources().getConfiguration()) != 0;
+    }
+}
@@ -35,17 +35,20 @@ import com.android.car.dialer.livedata.AudioRouteLiveData;
 import com.android.car.dialer.livedata.CallDetailLiveData;
 import com.android.car.dialer.livedata.CallStateLiveData;
 import com.android.car.dialer.log.L;
-import com.android.car.dialer.telecom.LocalCallHandler;
+import com.android.car.dialer.telecom.CallEventCoalescer;
+import com.android.car.dialer.telecom.CallRegistry;
 import com.android.car.telephony.common.CallDetail;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.InMemoryPhoneBook;
 
-import com.google.common.collect.Lists;
-
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 /**
  * View model for {@link InCallActivity} and {@link OngoingCallFragment}. UI that doesn't belong to
@@ -54,13 +57,17 @@ import java.util.List;
 public class InCallViewModel extends AndroidViewModel {
     private static final String TAG = "CD.InCallViewModel";
 
-    private final LocalCallHandler mLocalCallHandler;
+    private final CallRegistry mCallRegistry;
+    private final CallEventCoalescer mCallEventCoalescer;
+    private final Runnable mPublishOngoingCallList = this::publishOngoingCallList;
 
-    private final MutableLiveData<Boolean> mHasOngoingCallChangedLiveData;
     private final MediatorLiveData<List<Call>> mOngoingCallListLiveData;
-    private final MutableLiveData<List<Call>> mConferenceCallListLiveData;;
+    private final MutableLiveData<List<Call>> mConferenceCallListLiveData;
     private final LiveData<List<CallDetail>> mConferenceCallDetailListLiveData;
-    private final Comparator<Call> mCallComparator;
+    private final Comparator<SortedCall> mCallComparator = new CallComparator();
+    // The ongoing calls with a registered callback, sorted by mCallComparator on their sort keys.
+    private final List<SortedCall> mSortedCalls = new ArrayList<>();
+    private int mNextCallSequence;
 
     private final CallDetailLiveData mCallDetailLiveData;
     private final LiveData<Integer> mCallStateLiveData;
@@ -78,24 +85,24 @@ public class InCallViewModel extends AndroidViewModel {
 
     private final Context mContext;
 
-    // Reuse the same instance so the callback won't be registered more than once.
+    // Registered once per call, from the time it joins the ongoing calls until it leaves them.
     private final Call.Callback mCallStateChangedCallback = new Call.Callback() {
         @Override
         public void onStateChanged(Call call, int state) {
             L.d(TAG, "onStateChanged: %s", call);
-            mHasOngoingCallChangedLiveData.setValue(true);
+            onCallChanged(call);
         }
 
         @Override
         public void onParentChanged(Call call, Call parent) {
             L.d(TAG, "onParentChanged %s", call);
-            mHasOngoingCallChangedLiveData.setValue(true);
+            onCallChanged(call);
         }
 
         @Override
         public void onChildrenChanged(Call call, List<Call> children) {
             L.d(TAG, "onChildrenChanged %s", call);
-            mHasOngoingCallChangedLiveData.setValue(true);
+            onCallChanged(call);
         }
     };
 
@@ -103,16 +110,13 @@ public class InCallViewModel extends AndroidViewModel {
         super(application);
         mContext = application.getApplicationContext();
 
-        mLocalCallHandler = new LocalCallHandler(mContext);
-        mCallComparator = new CallComparator();
+        mCallRegistry = CallRegistry.get();
+        mCallEventCoalescer = CallEventCoalescer.get();
 
         mConferenceCallListLiveData = new MutableLiveData<>();
-        mHasOngoingCallChangedLiveData = new MutableLiveData<>();
         mOngoingCallListLiveData = new MediatorLiveData<>();
-        mOngoingCallListLiveData.addSource(mHasOngoingCallChangedLiveData,
-                changed -> recalculateOngoingCallList());
-        mOngoingCallListLiveData.addSource(mLocalCallHandler.getOngoingCallListLiveData(),
-                callList -> recalculateOngoingCallList());
+        mOngoingCallListLiveData.addSource(mCallRegistry.getOngoingCallListLiveData(),
+                this::onOngoingCallListChanged);
 
         mConferenceCallDetailListLiveData = Transformations.map(mConferenceCallListLiveData,
                 callList -> {
@@ -191,12 +195,12 @@ public class InCallViewModel extends AndroidViewModel {
 
     /** Returns the live data which monitors all the calls. */
     public LiveData<List<Call>> getAllCallList() {
-        return mLocalCallHandler.getCallListLiveData();
+        return mCallRegistry.getCallListLiveData();
     }
 
     /** Returns the live data which monitors the current incoming call. */
     public LiveData<Call> getIncomingCall() {
-        return mLocalCallHandler.getIncomingCallLiveData();
+        return mCallRegistry.getIncomingCallLiveData();
     }
 
     /** Returns {@link LiveData} for the ongoing call list which excludes the ringing call. */
@@ -283,7 +287,7 @@ public class InCallViewModel extends AndroidViewModel {
      * Returns current call audio state.
      */
     public LiveData<CallAudioState> getCallAudioState() {
-        return mLocalCallHandler.getCallAudioStateLiveData();
+        return mCallRegistry.getCallAudioStateLiveData();
     }
 
     /** Return the {@link MutableLiveData} for dialpad open state. */
@@ -298,60 +302,97 @@ public class InCallViewModel extends AndroidViewModel {
 
     @Override
     protected void onCleared() {
-        unregisterOngoingCallCallbacks();
-        mLocalCallHandler.tearDown();
+        mCallEventCoalescer.cancel(mPublishOngoingCallList);
+        for (SortedCall sortedCall : mSortedCalls) {
+            sortedCall.mCall.unregisterCallback(mCallStateChangedCallback);
+        }
+        mSortedCalls.clear();
     }
 
-    private void recalculateOngoingCallList() {
-        L.d(TAG, "recalculate ongoing call list");
-        unregisterOngoingCallCallbacks();
+    /**
+     * Reconciles the sorted calls with the ongoing calls of the registry. The callback is
+     * registered once when a call joins and unregistered when it leaves, a call might be removed
+     * when bluetooth disconnects.
+     */
+    private void onOngoingCallListChanged(List<Call> ongoingCalls) {
+        Set<Call> currentCalls = Collections.newSetFromMap(new IdentityHashMap<>());
+        currentCalls.addAll(ongoingCalls);
+        Set<Call> sortedCalls = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Iterator<SortedCall> iterator = mSortedCalls.iterator(); iterator.hasNext(); ) {
+            Call call = iterator.next().mCall;
+            if (!currentCalls.contains(call)) {
+                call.unregisterCallback(mCallStateChangedCallback);
+                iterator.remove();
+            } else {
+                sortedCalls.add(call);
+            }
+        }
+        for (Call call : ongoingCalls) {
+            if (!sortedCalls.contains(call)) {
+                SortedCall sortedCall = new SortedCall(call, mNextCallSequence++);
+                call.registerCallback(mCallStateChangedCallback);
+                insertSorted(sortedCall);
+            }
+        }
+        // Calls joining or leaving are published right away, the in call page relies on them.
+        mCallEventCoalescer.cancel(mPublishOngoingCallList);
+        publishOngoingCallList();
+    }
 
-        List<Call> activeCallList = mLocalCallHandler.getOngoingCallListLiveData().getValue();
-        if (activeCallList == null || activeCallList.isEmpty()) {
-            mOngoingCallListLiveData.setValue(Collections.emptyList());
-            mConferenceCallListLiveData.setValue(Collections.emptyList());
-            return;
+    /**
+     * Moves the changed call to its new position, the other calls are untouched. The list is
+     * published on the next frame, together with the other events of a burst.
+     */
+    private void onCallChanged(Call call) {
+        for (int i = 0; i < mSortedCalls.size(); i++) {
+            SortedCall sortedCall = mSortedCalls.get(i);
+            if (sortedCall.mCall == call) {
+                mSortedCalls.remove(i);
+                sortedCall.updateSortKeys();
+                insertSorted(sortedCall);
+                mCallEventCoalescer.post(mPublishOngoingCallList);
+                return;
+            }
         }
+    }
 
-        activeCallList.sort(mCallComparator);
+    /**
+     * Inserts the call by its sort keys. The keys of the other calls are the ones they were
+     * inserted with, so the list stays sorted for the binary search even if their state already
+     * changed. Those calls are moved when their own callback runs.
+     */
+    private void insertSorted(SortedCall sortedCall) {
+        int index = Collections.binarySearch(mSortedCalls, sortedCall, mCallComparator);
+        // The comparator breaks ties, so the call is never found.
+        mSortedCalls.add(index < 0 ? -index - 1 : index, sortedCall);
+    }
 
+    private void publishOngoingCallList() {
         List<Call> conferenceList = new ArrayList<>();
         List<Call> ongoingCallList = new ArrayList<>();
-        for (Call call : activeCallList) {
-            call.registerCallback(mCallStateChangedCallback);
-            if (call.getParent() != null) {
-                conferenceList.add(call);
+        for (SortedCall sortedCall : mSortedCalls) {
+            if (sortedCall.mHasParent) {
+                conferenceList.add(sortedCall.mCall);
             } else {
-                ongoingCallList.add(call);
+                ongoingCallList.add(sortedCall.mCall);
             }
         }
 
-        L.d(TAG, "size:" + activeCallList.size() + " activeList" + activeCallList);
-        L.d(TAG, "conf:%s" + conferenceList, conferenceList.size());
-        L.d(TAG, "ongoing:%s" + ongoingCallList, ongoingCallList.size());
+        L.d(TAG, "conf: %d, ongoing: %d", conferenceList.size(), ongoingCallList.size());
         mConferenceCallListLiveData.setValue(conferenceList);
         mOngoingCallListLiveData.setValue(ongoingCallList);
     }
 
     /**
-     * A call might be removed when bluetooth disconnects. The right time to unregister the callback
-     * is when the ongoing call list changes or {@link InCallViewModel} gets destroyed.
+     * An ongoing call with the keys it is sorted by, read from the call when it is inserted in the
+     * sorted list.
      */
-    private void unregisterOngoingCallCallbacks() {
-        List<Call> ongoingCallList = mOngoingCallListLiveData.getValue();
-        if (ongoingCallList != null) {
-            for (Call call : ongoingCallList) {
-                call.unregisterCallback(mCallStateChangedCallback);
-            }
-        }
-    }
-
-    private static class CallComparator implements Comparator<Call> {
+    private static class SortedCall {
         /**
          * The rank of call state. Used for sorting active calls. Rank is listed from lowest to
          * highest.
          */
-        private static final List<Integer> CALL_STATE_RANK = Lists.newArrayList(
+        private static final int[] CALL_STATES_BY_RANK = {
                 Call.STATE_RINGING,
                 Call.STATE_DISCONNECTED,
                 Call.STATE_DISCONNECTING,
@@ -360,22 +401,57 @@ public class InCallViewModel extends AndroidViewModel {
                 Call.STATE_SELECT_PHONE_ACCOUNT,
                 Call.STATE_HOLDING,
                 Call.STATE_ACTIVE,
-                Call.STATE_DIALING);
+                Call.STATE_DIALING};
+        /** The rank of each call state indexed by state, -1 for unranked states. */
+        private static final int[] CALL_STATE_RANK;
+
+        static {
+            int maxState = 0;
+            for (int state : CALL_STATES_BY_RANK) {
+                maxState = Math.max(maxState, state);
+            }
+            CALL_STATE_RANK = new int[maxState + 1];
+            Arrays.fill(CALL_STATE_RANK, -1);
+            for (int rank = 0; rank < CALL_STATES_BY_RANK.length; rank++) {
+                CALL_STATE_RANK[CALL_STATES_BY_RANK[rank]] = rank;
+            }
+        }
 
-        @Override
-        public int compare(Call call, Call otherCall) {
-            boolean callHasParent = call.getParent() != null;
-            boolean otherCallHasParent = otherCall.getParent() != null;
+        private final Call mCall;
+        // The order the call was added in, breaks the ties of the comparator.
+        private final int mSequence;
+        private boolean mHasParent;
+        private int mRank;
 
-            if (callHasParent && !otherCallHasParent) {
+        private SortedCall(Call call, int sequence) {
+            mCall = call;
+            mSequence = sequence;
+            updateSortKeys();
+        }
+
+        private void updateSortKeys() {
+            mHasParent = mCall.getParent() != null;
+            int state = mCall.getState();
+            mRank = state >= 0 && state < CALL_STATE_RANK.length ? CALL_STATE_RANK[state] : -1;
+        }
+    }
+
+    /**
+     * Sorts calls by conference membership, then by the rank of their state, then by the order
+     * they were added in.
+     */
+    private static class CallComparator implements Comparator<SortedCall> {
+        @Override
+        public int compare(SortedCall call, SortedCall otherCall) {
+            if (call.mHasParent && !otherCall.mHasParent) {
                 return 1;
-            } else if (!callHasParent && otherCallHasParent) {
+            } else if (!call.mHasParent && otherCall.mHasParent) {
                 return -1;
             }
-            int carCallRank = CALL_STATE_RANK.indexOf(call.getState());
-            int otherCarCallRank = CALL_STATE_RANK.indexOf(otherCall.getState());
-
-            return otherCarCallRank - carCallRank;
+            if (call.mRank != otherCall.mRank) {
+                return otherCall.mRank - call.mRank;
+            }
+            return Integer.compare(call.mSequence, otherCall.mSequence);
         }
     }
 
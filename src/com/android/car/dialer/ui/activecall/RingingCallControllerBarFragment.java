@@ -22,8 +22,12 @@ public class RingingCallControllerBarFragment extends Fragment {
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container,
             @Nullable Bundle savedInstanceState) {
-        View fragmentView = inflater.inflate(R.layout.ringing_call_controller_bar_fragment,
-                container, false);
+        View fragmentView = InCallUiWarmer.get().takeView(
+                R.layout.ringing_call_controller_bar_fragment);
+        if (fragmentView == null) {
+            fragmentView = inflater.inflate(R.layout.ringing_call_controller_bar_fragment,
+                    container, false);
+        }
 
         fragmentView.findViewById(R.id.answer_call_button).setOnClickListener((v) -> answerCall());
         fragmentView.findViewById(R.id.answer_call_text).setOnClickListener((v) -> answerCall());
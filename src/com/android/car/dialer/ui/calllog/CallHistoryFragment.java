@@ -76,4 +76,9 @@ public class CallHistoryFragment extends DialerListBaseFragment implements
         Fragment contactDetailsFragment = ContactDetailsFragment.newInstance(contact);
         pushContentFragment(contactDetailsFragment, CONTACT_DETAIL_FRAGMENT_TAG);
     }
+
+    @Override
+    protected boolean useSharedRecycledViewPool() {
+        return true;
+    }
 }
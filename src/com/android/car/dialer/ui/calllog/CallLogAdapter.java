@@ -43,17 +43,20 @@ public class CallLogAdapter extends ContentLimitingAdapter {
 
     private Integer mSortMethod;
 
-    /** IntDef for the different groups of calllog lists separated by time periods. */
+    /**
+     * IntDef for the different groups of calllog lists separated by time periods. The values are
+     * unique across the adapters sharing the activity's recycled view pool.
+     */
     @IntDef({
             EntryType.TYPE_HEADER,
             EntryType.TYPE_CALLLOG,
     })
-    private @interface EntryType {
+    public @interface EntryType {
         /** Entry typre is header. */
-        int TYPE_HEADER = 1;
+        int TYPE_HEADER = 3;
 
         /** Entry type is calllog. */
-        int TYPE_CALLLOG = 2;
+        int TYPE_CALLLOG = 4;
     }
 
     public interface OnShowContactDetailListener {
@@ -113,7 +116,9 @@ public class CallLogAdapter extends ContentLimitingAdapter {
     public void onBindViewHolderImpl(
             @NonNull RecyclerView.ViewHolder holder, int position) {
         if (holder instanceof CallLogViewHolder) {
-            ((CallLogViewHolder) holder).bind((UiCallLog) mUiCallLogs.get(position), mSortMethod);
+            CallLogViewHolder callLogViewHolder = (CallLogViewHolder) holder;
+            callLogViewHolder.setOnShowContactDetailListener(mOnShowContactDetailListener);
+            callLogViewHolder.bind((UiCallLog) mUiCallLogs.get(position), mSortMethod);
         } else {
             ((HeaderViewHolder) holder).setHeaderTitle((String) mUiCallLogs.get(position));
         }
@@ -27,11 +27,11 @@ import com.android.car.apps.common.util.ViewUtils;
 import com.android.car.dialer.R;
 import com.android.car.dialer.livedata.CallHistoryLiveData;
 import com.android.car.dialer.telecom.UiCallManager;
+import com.android.car.dialer.ui.common.DialerUtils;
 import com.android.car.dialer.ui.common.entity.UiCallLog;
 import com.android.car.dialer.ui.view.ContactAvatarOutputlineProvider;
 import com.android.car.dialer.widget.CallTypeIconsView;
 import com.android.car.telephony.common.Contact;
-import com.android.car.telephony.common.PhoneCallLog;
 import com.android.car.telephony.common.TelecomUtils;
 
 /**
@@ -49,6 +49,10 @@ public class CallLogViewHolder extends RecyclerView.ViewHolder {
     private CallTypeIconsView mCallTypeIconsView;
     private View mActionButton;
     private View mDivider;
+    // Config value read once, binding must not touch Resources.
+    private final boolean mForceShowActionButton;
+
+    private UiCallLog mUiCallLog;
 
     public CallLogViewHolder(@NonNull View itemView,
             CallLogAdapter.OnShowContactDetailListener onShowContactDetailListener) {
@@ -63,15 +67,41 @@ public class CallLogViewHolder extends RecyclerView.ViewHolder {
         mCallTypeIconsView = itemView.findViewById(R.id.call_type_icons);
         mActionButton = itemView.findViewById(R.id.calllog_action_button);
         mDivider = itemView.findViewById(R.id.divider);
+        mForceShowActionButton = itemView.getResources().getBoolean(
+                R.bool.config_show_calllog_action_button_for_non_contact);
+
+        // The listeners are created once and read the bound call log, so binding doesn't
+        // allocate.
+        ViewUtils.setOnClickListener(mPlaceCallView, view -> {
+            if (mUiCallLog != null) {
+                UiCallManager.get().placeCall(mUiCallLog.getNumber());
+            }
+        });
+        ViewUtils.setOnClickListener(mActionButton, view -> {
+            Contact contact = mUiCallLog == null ? null : mUiCallLog.getContact();
+            if (contact != null && mOnShowContactDetailListener != null) {
+                mOnShowContactDetailListener.onShowContactDetail(contact);
+            }
+        });
+    }
+
+    /**
+     * Sets the listener to show contact details. View holders are shared between adapters, so the
+     * listener of the adapter binding this view holder is set before every bind.
+     */
+    public void setOnShowContactDetailListener(
+            CallLogAdapter.OnShowContactDetailListener onShowContactDetailListener) {
+        mOnShowContactDetailListener = onShowContactDetailListener;
     }
 
     /**
      * Binds the view holder with relevant data.
      */
     public void bind(UiCallLog uiCallLog, Integer sortMethod) {
+        mUiCallLog = uiCallLog;
         Contact contact = uiCallLog.getContact();
 
-        TelecomUtils.setContactBitmapAsync(
+        DialerUtils.setContactAvatarAsync(
                 mAvatarView.getContext(),
                 mAvatarView,
                 contact,
@@ -80,12 +110,11 @@ public class CallLogViewHolder extends RecyclerView.ViewHolder {
 
         mTitleView.setText(TelecomUtils.isSortByFirstName(sortMethod) ? uiCallLog.getTitle()
                 : uiCallLog.getAltTitle());
-        for (PhoneCallLog.Record record : uiCallLog.getCallRecords()) {
-            mCallTypeIconsView.add(record.getCallType());
-        }
-        mCallCountTextView.setText(mCallTypeIconsView.getCallCountText());
-        mCallCountTextView.setVisibility(
-                mCallTypeIconsView.getCallCountText() == null ? View.GONE : View.VISIBLE);
+        mCallTypeIconsView.setCallTypes(uiCallLog.getRecentCallTypes(),
+                uiCallLog.getCallCount());
+        String callCountText = mCallTypeIconsView.getCallCountText();
+        mCallCountTextView.setText(callCountText);
+        mCallCountTextView.setVisibility(callCountText == null ? View.GONE : View.VISIBLE);
         mTextView.setText(uiCallLog.getText(mTextView.getContext()));
 
         if (uiCallLog.getMostRecentCallType() == CallHistoryLiveData.CallType.MISSED_TYPE) {
@@ -98,9 +127,6 @@ public class CallLogViewHolder extends RecyclerView.ViewHolder {
             mTextView.setTextAppearance(R.style.TextAppearance_CallLogTimestampDefault);
         }
 
-        ViewUtils.setOnClickListener(mPlaceCallView,
-                view -> UiCallManager.get().placeCall(uiCallLog.getNumber()));
-
         setUpActionButton(contact);
     }
 
@@ -109,7 +135,7 @@ public class CallLogViewHolder extends RecyclerView.ViewHolder {
      */
     public void recycle() {
         mCallTypeIconsView.clear();
-        ViewUtils.setOnClickListener(mPlaceCallView, null);
+        mUiCallLog = null;
     }
 
     private void setUpActionButton(Contact contact) {
@@ -117,18 +143,8 @@ public class CallLogViewHolder extends RecyclerView.ViewHolder {
             return;
         }
 
-        boolean forceShowActionButton = itemView.getResources().getBoolean(
-                R.bool.config_show_calllog_action_button_for_non_contact);
-
-        ViewUtils.setVisible(mDivider, contact != null || forceShowActionButton);
-        ViewUtils.setVisible(mActionButton, contact != null || forceShowActionButton);
+        ViewUtils.setVisible(mDivider, contact != null || mForceShowActionButton);
+        ViewUtils.setVisible(mActionButton, contact != null || mForceShowActionButton);
         ViewUtils.setEnabled(mActionButton, contact != null);
-
-        if (contact != null) {
-            ViewUtils.setOnClickListener(mActionButton,
-                    view -> mOnShowContactDetailListener.onShowContactDetail(contact));
-        } else {
-            ViewUtils.setOnClickListener(mActionButton, null);
-        }
     }
 }
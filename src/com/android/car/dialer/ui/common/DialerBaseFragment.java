@@ -49,6 +49,13 @@ public abstract class DialerBaseFragment extends Fragment implements InsetsChang
          * Push a fragment to the back stack. Update action bar accordingly.
          */
         void pushContentFragment(Fragment fragment, String fragmentTag);
+
+        /**
+         * Returns the {@link SharedRecycledViewPool} shared by the top level list fragments, or
+         * null if the view holders should not be shared.
+         */
+        @Nullable
+        SharedRecycledViewPool getSharedRecycledViewPool();
     }
 
     @CallSuper
@@ -16,6 +16,7 @@
 
 package com.android.car.dialer.ui.common;
 
+import android.app.Activity;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -60,6 +61,14 @@ public class DialerListBaseFragment extends DialerBaseFragment {
         mLoadingFrameLayout = view.findViewById(R.id.loading_frame_layout);
         mRecyclerView = view.requireViewById(R.id.list_view);
         mRecyclerView.setLayoutManager(createLayoutManager());
+        Activity parentActivity = getActivity();
+        if (useSharedRecycledViewPool() && parentActivity instanceof DialerFragmentParent) {
+            SharedRecycledViewPool recycledViewPool =
+                    ((DialerFragmentParent) parentActivity).getSharedRecycledViewPool();
+            if (recycledViewPool != null) {
+                mRecyclerView.setRecycledViewPool(recycledViewPool);
+            }
+        }
         mFocusArea = view.requireViewById(R.id.loading_focus_area);
         mUxrContentLimiter = new LifeCycleObserverUxrContentLimiter(
                 new UxrContentLimiterImpl(getContext(), R.xml.uxr_config));
@@ -95,6 +104,15 @@ public class DialerListBaseFragment extends DialerBaseFragment {
         return new LinearLayoutManager(getContext());
     }
 
+    /**
+     * Whether the {@link RecyclerView} should use the {@link SharedRecycledViewPool} of the parent
+     * activity. Default is false. The view types of the adapter must be unique across all the
+     * adapters sharing the pool.
+     */
+    protected boolean useSharedRecycledViewPool() {
+        return false;
+    }
+
     /**
      * Returns the {@link RecyclerView} instance.
      */
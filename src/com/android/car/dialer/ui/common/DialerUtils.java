@@ -16,14 +16,20 @@
 
 package com.android.car.dialer.ui.common;
 
+import android.content.ContentUris;
 import android.content.Context;
 import android.content.res.Resources;
+import android.net.Uri;
+import android.provider.ContactsContract;
+import android.view.ViewGroup;
+import android.widget.ImageView;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.android.car.apps.common.LetterTileDrawable;
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
 import com.android.car.telephony.common.Contact;
@@ -33,6 +39,9 @@ import com.android.car.ui.AlertDialogBuilder;
 import com.android.car.ui.recyclerview.CarUiRadioButtonListItem;
 import com.android.car.ui.recyclerview.CarUiRadioButtonListItemAdapter;
 
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.RequestOptions;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -147,6 +156,77 @@ public class DialerUtils {
         return hasContactDetail;
     }
 
+    /**
+     * Returns true if the contact has either phone number or postal address to show. Same as
+     * {@link #hasContactDetail(Resources, Contact)} with the show postal address config already
+     * read, for callers that can't afford a resource lookup.
+     */
+    public static boolean hasContactDetail(boolean showPostalAddress, @Nullable Contact contact) {
+        return contact != null && (!contact.getNumbers().isEmpty()
+                || (showPostalAddress && !contact.getPostalAddresses().isEmpty()));
+    }
+
+    /**
+     * Returns the uri to load the avatar of the contact at the given size. The thumbnail stored by
+     * the contacts provider is preferred when it is big enough for the target size, to avoid
+     * reading and downsampling the full size photo.
+     */
+    @Nullable
+    public static Uri getAvatarUri(Context context, @Nullable Contact contact, int sizePx) {
+        if (contact == null) {
+            return null;
+        }
+        Uri avatarUri = contact.getAvatarUri();
+        int thumbnailSize = context.getResources().getInteger(
+                R.integer.config_avatar_thumbnail_max_size_px);
+        if (avatarUri == null || sizePx > thumbnailSize) {
+            return avatarUri;
+        }
+        return Uri.withAppendedPath(
+                ContentUris.withAppendedId(ContactsContract.Contacts.CONTENT_URI, contact.getId()),
+                ContactsContract.Contacts.Photo.CONTENT_DIRECTORY);
+    }
+
+    /**
+     * Loads the avatar of a list row at the size of its view, from the contacts provider thumbnail
+     * when it is big enough. Falls back to a letter tile of the contact, or of the fallback display
+     * name when there is no contact.
+     */
+    public static void setContactAvatarAsync(Context context, ImageView avatarView,
+            @Nullable Contact contact, @Nullable String fallbackDisplayName,
+            @Nullable Integer sortMethod) {
+        LetterTileDrawable letterTile = contact == null
+                ? TelecomUtils.createLetterTile(context, null, fallbackDisplayName)
+                : TelecomUtils.createLetterTile(context,
+                        contact.getInitialsBasedOnDisplayOrder(
+                                TelecomUtils.isSortByFirstName(sortMethod)),
+                        contact.getDisplayName());
+        loadAvatar(context, avatarView, contact, letterTile);
+    }
+
+    /**
+     * Loads the avatar of a contact list row. The initials of the letter tile fallback are the
+     * avatar key computed with the row, so they are not derived from the contact again on bind.
+     */
+    public static void setContactAvatarAsync(Context context, ImageView avatarView,
+            @NonNull Contact contact, @Nullable String avatarKey) {
+        loadAvatar(context, avatarView, contact,
+                TelecomUtils.createLetterTile(context, avatarKey, contact.getDisplayName()));
+    }
+
+    private static void loadAvatar(Context context, ImageView avatarView,
+            @Nullable Contact contact, LetterTileDrawable letterTile) {
+        ViewGroup.LayoutParams layoutParams = avatarView.getLayoutParams();
+        int sizePx = layoutParams != null && layoutParams.width > 0
+                ? layoutParams.width
+                : context.getResources().getDimensionPixelSize(R.dimen.avatar_icon_size);
+        Glide.with(context)
+                .load(getAvatarUri(context, contact, sizePx))
+                .apply(new RequestOptions().override(sizePx).centerCrop()
+                        .fallback(letterTile).error(letterTile))
+                .into(avatarView);
+    }
+
     /**
      * Return the first visible item position in a {@link LinearLayoutManager}.
      */
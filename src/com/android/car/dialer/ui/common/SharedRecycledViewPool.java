@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.common;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.android.car.dialer.log.L;
+
+/**
+ * A {@link RecyclerView.RecycledViewPool} shared by the top level list fragments of an activity,
+ * so the view holders survive switching between tabs.
+ *
+ * <p>View types of the adapters using this pool must be unique across these adapters. The pool can
+ * be pre-filled by inflating view holders on a background looper, see {@link #prewarm}. Adapters
+ * used to pre-fill the pool must inflate with {@link #getInflaterContext()}, so they don't share
+ * the activity's {@link LayoutInflater} with the main thread.
+ */
+public class SharedRecycledViewPool extends RecyclerView.RecycledViewPool {
+    private static final String TAG = "CD.SharedViewPool";
+
+    private final Context mInflaterContext;
+    private final HandlerThread mInflaterThread;
+    private final Handler mInflaterHandler;
+    private final Handler mMainHandler;
+    private boolean mIsReleased;
+
+    public SharedRecycledViewPool(@NonNull Context context) {
+        mInflaterContext = new InflaterContext(context);
+        mInflaterThread = new HandlerThread(TAG);
+        mInflaterThread.start();
+        mInflaterHandler = new Handler(mInflaterThread.getLooper());
+        mMainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * Returns a context wrapping the one of the pool, whose {@link LayoutInflater} is a clone of
+     * the activity's one only used by the background inflation.
+     */
+    @NonNull
+    public Context getInflaterContext() {
+        return mInflaterContext;
+    }
+
+    /**
+     * Makes sure there are at least {@code count} view holders of the given view type in the pool.
+     * Missing view holders are created by the adapter on a background looper and handed over to
+     * the pool on the main thread.
+     */
+    @MainThread
+    public void prewarm(@NonNull RecyclerView.Adapter<?> adapter, int viewType, int count) {
+        if (mIsReleased) {
+            return;
+        }
+        setMaxRecycledViews(viewType, count);
+        int missing = count - getRecycledViewCount(viewType);
+        if (missing <= 0) {
+            return;
+        }
+
+        L.d(TAG, "Pre-inflating %d view holders of type %d", missing, viewType);
+        mInflaterHandler.post(() -> {
+            ViewGroup parent = new FrameLayout(mInflaterContext);
+            for (int i = 0; i < missing; i++) {
+                RecyclerView.ViewHolder viewHolder;
+                try {
+                    viewHolder = adapter.createViewHolder(parent, viewType);
+                } catch (RuntimeException e) {
+                    // Some views can't be created off the main thread, they will be inflated
+                    // on demand instead.
+                    L.w(TAG, "Failed to pre-inflate view type %d: %s", viewType, e);
+                    return;
+                }
+                mMainHandler.post(() -> {
+                    if (!mIsReleased) {
+                        putRecycledView(viewHolder);
+                    }
+                });
+            }
+        });
+    }
+
+    /** Drops all the pooled view holders and stops the background inflation. */
+    @MainThread
+    public void release() {
+        mIsReleased = true;
+        mInflaterThread.quitSafely();
+        clear();
+    }
+
+    private static final class InflaterContext extends ContextWrapper {
+        private final LayoutInflater mLayoutInflater;
+
+        InflaterContext(Context base) {
+            super(base);
+            mLayoutInflater = LayoutInflater.from(base).cloneInContext(this);
+        }
+
+        @Override
+        public Object getSystemService(String name) {
+            if (LAYOUT_INFLATER_SERVICE.equals(name)) {
+                return mLayoutInflater;
+            }
+            return super.getSystemService(name);
+        }
+    }
+}
@@ -28,23 +28,35 @@ import com.android.car.telephony.common.PhoneCallLog;
 
 import com.google.common.base.Joiner;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
  * Ui representation of a call log.
+ *
+ * <p>The row is compact: only the types of the most recent calls and the number of calls are kept
+ * from the call records, so its size doesn't grow with the call history.
+ *
+ * <p>The related contact is kept instead of its lookup key. It is the instance held by the
+ * {@link com.android.car.telephony.common.InMemoryPhoneBook}, so the reference costs no copy, and
+ * binding the row needs the contact itself for the avatar and the contact details action. A lookup
+ * key would only add a phone book lookup to every bind and click.
  */
 public class UiCallLog {
+    /** The number of most recent call types kept, which are shown as icons. */
+    public static final int MAX_RECENT_CALL_TYPES = 3;
+
     private final String mTitle;
     private final String mAltTitle;
     private final String mNumber;
     @Nullable
     private final Contact mContact;
-    private final List<PhoneCallLog.Record> mCallRecords;
+    private final int[] mRecentCallTypes;
+    private final int mCallCount;
+    private final long mMostRecentCallEndTimestamp;
 
     private String mRelativeTime;
     private CharSequence mLabel;
+    private String mText;
 
     public UiCallLog(String title, String altTitle, String number, @Nullable Contact contact,
             List<PhoneCallLog.Record> callRecords) {
@@ -52,7 +64,13 @@ public class UiCallLog {
         mAltTitle = altTitle;
         mNumber = number;
         mContact = contact;
-        mCallRecords = new ArrayList<>(callRecords);
+        mCallCount = callRecords.size();
+        mRecentCallTypes = new int[Math.min(MAX_RECENT_CALL_TYPES, mCallCount)];
+        for (int i = 0; i < mRecentCallTypes.length; i++) {
+            mRecentCallTypes[i] = callRecords.get(i).getCallType();
+        }
+        mMostRecentCallEndTimestamp =
+                mCallCount == 0 ? 0 : callRecords.get(0).getCallEndTimestamp();
     }
 
     /**
@@ -81,6 +99,7 @@ public class UiCallLog {
             return false;
         }
         mRelativeTime = relativeTime;
+        mText = null;
         return true;
     }
 
@@ -94,17 +113,24 @@ public class UiCallLog {
             return false;
         }
         mLabel = label;
+        mText = null;
         return true;
     }
 
-    /** Returns the secondary text for this call log showing phone number label and time. */
+    /**
+     * Returns the secondary text for this call log showing phone number label and time. The text
+     * is built once and reused until the label or the relative time changes.
+     */
     public String getText(Context context) {
-        if (!TextUtils.isEmpty(mLabel)) {
-            return Joiner.on(context.getString(R.string.comma_delimiter)).join(mLabel,
-                    mRelativeTime);
-        } else {
-            return mRelativeTime;
+        if (mText == null) {
+            if (!TextUtils.isEmpty(mLabel)) {
+                mText = Joiner.on(context.getString(R.string.comma_delimiter)).join(mLabel,
+                        mRelativeTime);
+            } else {
+                mText = mRelativeTime;
+            }
         }
+        return mText;
     }
 
     /**
@@ -123,43 +149,32 @@ public class UiCallLog {
     }
 
     /**
-     * Returns a copy of combined call log records. See {@link PhoneCallLog.Record} for more details
-     * of each record. Logs are sorted on call end time in decedent order.
+     * Returns the number of combined call log records.
      */
-    public List<PhoneCallLog.Record> getCallRecords() {
-        return getCallRecords(mCallRecords.size());
+    public int getCallCount() {
+        return mCallCount;
     }
 
     /**
-     * Returns a copy of last N phone call records. Ordered by call end timestamp in descending
-     * order.
-     *
-     * <p>If {@code n} is greater than the number of {@link #getCallRecords() records}, return
-     * the entire record list.
+     * Returns the call types of the up to {@link #MAX_RECENT_CALL_TYPES} most recent calls, the
+     * most recent call first. The array is shared and must not be modified.
      */
-    public List<PhoneCallLog.Record> getCallRecords(int n) {
-        int toIndex = Math.max(0, n);
-        toIndex = Math.min(toIndex, mCallRecords.size());
-        if (toIndex == 0) {
-            return Collections.emptyList();
-        } else {
-            return new ArrayList<>(mCallRecords.subList(0, toIndex));
-        }
+    public int[] getRecentCallTypes() {
+        return mRecentCallTypes;
     }
 
     /**
      * Returns the most recent call end timestamp of this log in milliseconds since the epoch.
      */
     public long getMostRecentCallEndTimestamp() {
-        return mCallRecords.isEmpty() ? 0
-                : mCallRecords.get(0).getCallEndTimestamp();
+        return mMostRecentCallEndTimestamp;
     }
 
     /**
      * Returns the most recent call's call type.
      */
     public int getMostRecentCallType() {
-        return mCallRecords.isEmpty() ? CallHistoryLiveData.CallType.CALL_TYPE_ALL
-                : mCallRecords.get(0).getCallType();
+        return mRecentCallTypes.length == 0 ? CallHistoryLiveData.CallType.CALL_TYPE_ALL
+                : mRecentCallTypes[0];
     }
 }
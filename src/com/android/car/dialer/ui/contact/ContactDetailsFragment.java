@@ -33,6 +33,7 @@ import com.android.car.apps.common.LetterTileDrawable;
 import com.android.car.arch.common.FutureData;
 import com.android.car.dialer.R;
 import com.android.car.dialer.ui.common.DialerListBaseFragment;
+import com.android.car.dialer.ui.common.DialerUtils;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.PhoneNumber;
 import com.android.car.telephony.common.TelecomUtils;
@@ -129,7 +130,7 @@ public class ContactDetailsFragment extends DialerListBaseFragment implements
                 LetterTileDrawable letterTile = TelecomUtils.createLetterTile(getContext(),
                         contact == null ? null : contact.getInitials(),
                         contact == null ? null : contact.getDisplayName());
-                Uri avatarUri = contact == null ? null : contact.getAvatarUri();
+                Uri avatarUri = DialerUtils.getAvatarUri(getContext(), contact, avatarSize);
                 Glide.with(this)
                         .asBitmap()
                         .load(avatarUri)
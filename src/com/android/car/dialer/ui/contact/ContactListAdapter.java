@@ -16,7 +16,6 @@
 package com.android.car.dialer.ui.contact;
 
 import android.content.Context;
-import android.text.TextUtils;
 import android.util.Pair;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -29,7 +28,6 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.android.car.dialer.R;
 import com.android.car.dialer.ui.common.DialerUtils;
 import com.android.car.telephony.common.Contact;
-import com.android.car.telephony.common.TelecomUtils;
 import com.android.car.ui.recyclerview.ContentLimitingAdapter;
 
 import java.util.ArrayList;
@@ -40,16 +38,17 @@ import java.util.List;
  */
 public class ContactListAdapter extends ContentLimitingAdapter<ContactListViewHolder> {
     private static final String TAG = "CD.ContactListAdapter";
+    // Unique across the adapters sharing the activity's recycled view pool.
+    public static final int TYPE_CONTACT = 5;
 
-    interface OnShowContactDetailListener {
+    public interface OnShowContactDetailListener {
         void onShowContactDetail(Contact contact);
     }
 
     private final Context mContext;
-    private final List<Contact> mContactList = new ArrayList<>();
+    private final List<ContactListItem> mContactList = new ArrayList<>();
     private final OnShowContactDetailListener mOnShowContactDetailListener;
 
-    private Integer mSortMethod;
     private LinearLayoutManager mLinearLayoutManager;
     private int mLimitingAnchorIndex = 0;
 
@@ -62,11 +61,10 @@ public class ContactListAdapter extends ContentLimitingAdapter<ContactListViewHo
     /**
      * Sets {@link #mContactList} based on live data.
      */
-    public void setContactList(Pair<Integer, List<Contact>> contactListPair) {
+    public void setContactList(Pair<Integer, List<ContactListItem>> contactListPair) {
         mContactList.clear();
         if (contactListPair != null) {
             mContactList.addAll(contactListPair.second);
-            mSortMethod = contactListPair.first;
         }
         updateUnderlyingDataChanged(mContactList.size(),
                 DialerUtils.validateListLimitingAnchor(mContactList.size(), mLimitingAnchorIndex));
@@ -89,12 +87,13 @@ public class ContactListAdapter extends ContentLimitingAdapter<ContactListViewHo
 
     @Override
     public void onBindViewHolderImpl(@NonNull ContactListViewHolder holder, int position) {
-        Contact contact = mContactList.get(position);
-        String header = getHeader(contact);
+        holder.setOnShowContactDetailListener(mOnShowContactDetailListener);
+        holder.bind(mContactList.get(position));
+    }
 
-        boolean showHeader = position == 0
-                || (!header.equals(getHeader(mContactList.get(position - 1))));
-        holder.bind(contact, showHeader, header, mSortMethod);
+    @Override
+    public int getItemViewTypeImpl(int position) {
+        return TYPE_CONTACT;
     }
 
     @Override
@@ -113,18 +112,6 @@ public class ContactListAdapter extends ContentLimitingAdapter<ContactListViewHo
         holder.recycle();
     }
 
-    private String getHeader(Contact contact) {
-        String label;
-        if (TelecomUtils.SORT_BY_LAST_NAME.equals(mSortMethod)) {
-            label = contact.getPhonebookLabelAlt();
-        } else {
-            label = contact.getPhonebookLabel();
-        }
-
-        return !TextUtils.isEmpty(label) ? label
-                : mContext.getString(R.string.header_for_type_other);
-    }
-
     @Override
     public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
         super.onAttachedToRecyclerView(recyclerView);
@@ -73,4 +73,9 @@ public class ContactListFragment extends DialerListBaseFragment implements
         Fragment contactDetailsFragment = ContactDetailsFragment.newInstance(contact);
         pushContentFragment(contactDetailsFragment, ContactDetailsFragment.FRAGMENT_TAG);
     }
+
+    @Override
+    protected boolean useSharedRecycledViewPool() {
+        return true;
+    }
 }
@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.contact;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.text.TextUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.android.car.dialer.R;
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.PhoneNumber;
+import com.android.car.telephony.common.TelecomUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable ui representation of a row in the contact list. The texts and the avatar key are
+ * computed when the list is sorted so binding the row only assigns them.
+ */
+public final class ContactListItem {
+    private final Contact mContact;
+    private final CharSequence mTitle;
+    private final CharSequence mLabel;
+    @Nullable
+    private final String mHeader;
+    @Nullable
+    private final String mAvatarKey;
+
+    private ContactListItem(Contact contact, CharSequence title, CharSequence label,
+            @Nullable String header, @Nullable String avatarKey) {
+        mContact = contact;
+        mTitle = title;
+        mLabel = label;
+        mHeader = header;
+        mAvatarKey = avatarKey;
+    }
+
+    /** Returns the contact of this row. */
+    public Contact getContact() {
+        return mContact;
+    }
+
+    /** Returns the title, the display name in the sort order of the list. */
+    public CharSequence getTitle() {
+        return mTitle;
+    }
+
+    /** Returns the phone number label. */
+    public CharSequence getLabel() {
+        return mLabel;
+    }
+
+    /** Returns the header to show above this row, or null if this row doesn't start a section. */
+    @Nullable
+    public String getHeader() {
+        return mHeader;
+    }
+
+    /**
+     * Returns the key of the letter tile shown while the avatar loads or when there is none, the
+     * initials of the contact in the display order of the list.
+     */
+    @Nullable
+    public String getAvatarKey() {
+        return mAvatarKey;
+    }
+
+    /**
+     * Creates the rows for a sorted contact list. A row gets a header if it is the first one of its
+     * phonebook label section.
+     */
+    @WorkerThread
+    public static List<ContactListItem> createList(@NonNull Context context,
+            @NonNull List<Contact> sortedContacts, Integer sortMethod) {
+        List<ContactListItem> items = new ArrayList<>(sortedContacts.size());
+        String otherHeader = context.getString(R.string.header_for_type_other);
+        String previousHeader = null;
+        for (Contact contact : sortedContacts) {
+            String header = getHeader(contact, sortMethod, otherHeader);
+            boolean showHeader = !header.equals(previousHeader);
+            items.add(create(context, contact, sortMethod, showHeader ? header : null));
+            previousHeader = header;
+        }
+        return items;
+    }
+
+    /** Creates the row for a contact. */
+    public static ContactListItem create(@NonNull Context context, @NonNull Contact contact,
+            Integer sortMethod, @Nullable String header) {
+        boolean isSortByFirstName = TelecomUtils.isSortByFirstName(sortMethod);
+        CharSequence title = isSortByFirstName
+                ? contact.getDisplayName() : contact.getDisplayNameAlt();
+        return new ContactListItem(contact, title, getLabel(context, contact), header,
+                contact.getInitialsBasedOnDisplayOrder(isSortByFirstName));
+    }
+
+    private static String getHeader(Contact contact, Integer sortMethod, String otherHeader) {
+        String label;
+        if (TelecomUtils.SORT_BY_LAST_NAME.equals(sortMethod)) {
+            label = contact.getPhonebookLabelAlt();
+        } else {
+            label = contact.getPhonebookLabel();
+        }
+        return !TextUtils.isEmpty(label) ? label : otherHeader;
+    }
+
+    private static CharSequence getLabel(Context context, Contact contact) {
+        Resources resources = context.getResources();
+        CharSequence readableLabel = "";
+        List<PhoneNumber> numberList = contact.getNumbers();
+
+        if (numberList.size() == 1) {
+            readableLabel = numberList.get(0).getReadableLabel(resources);
+        } else if (numberList.size() > 1) {
+            readableLabel = contact.hasPrimaryPhoneNumber()
+                    ? context.getString(R.string.primary_number_description,
+                    contact.getPrimaryPhoneNumber().getReadableLabel(resources))
+                    : context.getString(R.string.type_multiple);
+        }
+        return readableLabel;
+    }
+}
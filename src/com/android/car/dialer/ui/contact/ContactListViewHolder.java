@@ -16,7 +16,6 @@
 
 package com.android.car.dialer.ui.contact;
 
-import android.content.Context;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.TextView;
@@ -30,23 +29,25 @@ import com.android.car.dialer.telecom.UiCallManager;
 import com.android.car.dialer.ui.common.DialerUtils;
 import com.android.car.dialer.ui.view.ContactAvatarOutputlineProvider;
 import com.android.car.telephony.common.Contact;
-import com.android.car.telephony.common.PhoneNumber;
 import com.android.car.telephony.common.TelecomUtils;
 
-import java.util.List;
-
 /**
  * {@link RecyclerView.ViewHolder} for contact list item, responsible for presenting and resetting
  * the UI on recycle.
  */
 public class ContactListViewHolder extends RecyclerView.ViewHolder {
-    private final ContactListAdapter.OnShowContactDetailListener mOnShowContactDetailListener;
+    private ContactListAdapter.OnShowContactDetailListener mOnShowContactDetailListener;
     private final TextView mHeaderView;
     private final ImageView mAvatarView;
     private final TextView mTitleView;
     private final TextView mTextView;
     private final View mShowContactDetailView;
     private final View mCallActionView;
+    // Config values read once, binding must not touch Resources.
+    private final boolean mForceShowButton;
+    private final boolean mShowPostalAddress;
+
+    private Contact mContact;
 
     public ContactListViewHolder(@NonNull View itemView,
             ContactListAdapter.OnShowContactDetailListener onShowContactDetailListener) {
@@ -59,50 +60,57 @@ public class ContactListViewHolder extends RecyclerView.ViewHolder {
         mTextView = itemView.findViewById(R.id.text);
         mShowContactDetailView = itemView.findViewById(R.id.show_contact_detail_id);
         mCallActionView = itemView.findViewById(R.id.call_action_id);
+        mForceShowButton = itemView.getResources().getBoolean(
+                R.bool.config_show_contact_detail_button_for_empty_contact);
+        mShowPostalAddress = itemView.getResources().getBoolean(R.bool.config_show_postal_address);
+
+        // The listeners are created once and read the bound contact, so binding doesn't allocate.
+        ViewUtils.setOnClickListener(mCallActionView, view -> {
+            if (mContact != null) {
+                DialerUtils.promptForPrimaryNumber(itemView.getContext(), mContact,
+                        (phoneNumber, always) -> UiCallManager.get().placeCall(
+                                phoneNumber.getRawNumber()));
+            }
+        });
+        ViewUtils.setOnClickListener(mShowContactDetailView, view -> {
+            if (mContact != null && mOnShowContactDetailListener != null) {
+                mOnShowContactDetailListener.onShowContactDetail(mContact);
+            }
+        });
     }
 
     /**
-     * Binds the view holder with relevant data.
+     * Sets the listener to show contact details. View holders are shared between adapters, so the
+     * listener of the adapter binding this view holder is set before every bind.
      */
-    public void bind(Contact contact, boolean showHeader, String header, Integer sortMethod) {
-        TelecomUtils.setContactBitmapAsync(mAvatarView.getContext(), mAvatarView, contact,
-                sortMethod);
-        ViewUtils.setVisible(mHeaderView, showHeader);
-        if (showHeader) {
-            ViewUtils.setText(mHeaderView, header);
-        }
-        mTitleView.setText(TelecomUtils.isSortByFirstName(sortMethod) ? contact.getDisplayName()
-                : contact.getDisplayNameAlt());
-        setLabelText(contact);
-
-        boolean forceShowButton = itemView.getResources().getBoolean(
-                R.bool.config_show_contact_detail_button_for_empty_contact);
-        setCallActionView(contact, forceShowButton);
-        setShowContactDetailView(contact, forceShowButton);
+    public void setOnShowContactDetailListener(
+            ContactListAdapter.OnShowContactDetailListener onShowContactDetailListener) {
+        mOnShowContactDetailListener = onShowContactDetailListener;
     }
 
-    private void setLabelText(Contact contact) {
-        if (mTextView == null) {
-            return;
+    /**
+     * Binds the view holder with relevant data. All the texts and the avatar key are precomputed by
+     * the {@link ContactListItem}.
+     */
+    public void bind(ContactListItem item) {
+        Contact contact = item.getContact();
+        mContact = contact;
+        DialerUtils.setContactAvatarAsync(mAvatarView.getContext(), mAvatarView, contact,
+                item.getAvatarKey());
+        String header = item.getHeader();
+        ViewUtils.setVisible(mHeaderView, header != null);
+        if (header != null) {
+            ViewUtils.setText(mHeaderView, header);
         }
-
-        Context context = itemView.getContext();
-        CharSequence readableLabel = "";
-        List<PhoneNumber> numberList = contact.getNumbers();
-
-        if (numberList.size() == 1) {
-            readableLabel = numberList.get(0).getReadableLabel(context.getResources());
-        } else if (numberList.size() > 1) {
-            readableLabel = contact.hasPrimaryPhoneNumber()
-                    ? context.getString(R.string.primary_number_description,
-                    contact.getPrimaryPhoneNumber().getReadableLabel(context.getResources()))
-                    : context.getString(R.string.type_multiple);
+        mTitleView.setText(item.getTitle());
+        if (mTextView != null) {
+            mTextView.setText(item.getLabel());
         }
-
-        mTextView.setText(readableLabel);
+        setCallActionView(contact);
+        setShowContactDetailView(contact);
     }
 
-    private void setCallActionView(Contact contact, boolean forceShowButton) {
+    private void setCallActionView(Contact contact) {
         if (mCallActionView == null) {
             return;
         }
@@ -110,42 +118,24 @@ public class ContactListViewHolder extends RecyclerView.ViewHolder {
         boolean hasPhoneNumbers = contact != null && !contact.getNumbers().isEmpty();
 
         ViewUtils.setEnabled(mCallActionView, hasPhoneNumbers);
-        ViewUtils.setVisible(mCallActionView, hasPhoneNumbers || forceShowButton);
-
-        if (hasPhoneNumbers) {
-            ViewUtils.setOnClickListener(mCallActionView, view -> {
-                DialerUtils.promptForPrimaryNumber(itemView.getContext(), contact,
-                        (phoneNumber, always) -> UiCallManager.get().placeCall(
-                                phoneNumber.getRawNumber()));
-            });
-        } else {
-            ViewUtils.setOnClickListener(mCallActionView, null);
-        }
+        ViewUtils.setVisible(mCallActionView, hasPhoneNumbers || mForceShowButton);
     }
 
-    private void setShowContactDetailView(Contact contact, boolean forceShowButton) {
+    private void setShowContactDetailView(Contact contact) {
         if (mShowContactDetailView == null) {
             return;
         }
 
-        boolean hasContactDetail = DialerUtils.hasContactDetail(itemView.getResources(), contact);
+        boolean hasContactDetail = DialerUtils.hasContactDetail(mShowPostalAddress, contact);
 
         ViewUtils.setEnabled(mShowContactDetailView, hasContactDetail);
-        ViewUtils.setVisible(mShowContactDetailView, hasContactDetail || forceShowButton);
-
-        if (hasContactDetail) {
-            ViewUtils.setOnClickListener(mShowContactDetailView,
-                    view -> mOnShowContactDetailListener.onShowContactDetail(contact));
-        } else {
-            ViewUtils.setOnClickListener(mShowContactDetailView, null);
-        }
+        ViewUtils.setVisible(mShowContactDetailView, hasContactDetail || mForceShowButton);
     }
 
     /**
      * Recycles views.
      */
     public void recycle() {
-        ViewUtils.setOnClickListener(mCallActionView, null);
-        ViewUtils.setOnClickListener(mShowContactDetailView, null);
+        mContact = null;
     }
 }
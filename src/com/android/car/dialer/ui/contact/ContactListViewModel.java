@@ -46,8 +46,8 @@ import java.util.concurrent.Future;
  */
 public class ContactListViewModel extends DialerListViewModel {
     private final Context mContext;
-    private final LiveData<Pair<Integer, List<Contact>>> mSortedContactListLiveData;
-    private final LiveData<FutureData<Pair<Integer, List<Contact>>>> mContactList;
+    private final LiveData<Pair<Integer, List<ContactListItem>>> mSortedContactListLiveData;
+    private final LiveData<FutureData<Pair<Integer, List<ContactListItem>>>> mContactList;
 
     public ContactListViewModel(@NonNull Application application) {
         super(application);
@@ -65,14 +65,17 @@ public class ContactListViewModel extends DialerListViewModel {
     }
 
     /**
-     * Returns a live data which represents a list of all contacts.
+     * Returns a live data which represents the rows of all contacts.
      */
-    public LiveData<FutureData<Pair<Integer, List<Contact>>>> getAllContacts() {
+    public LiveData<FutureData<Pair<Integer, List<ContactListItem>>>> getAllContacts() {
         return mContactList;
     }
 
+    /**
+     * Sorts the contacts and creates the {@link ContactListItem rows} for them in the background.
+     */
     private static class SortedContactListLiveData
-            extends MediatorLiveData<Pair<Integer, List<Contact>>> {
+            extends MediatorLiveData<Pair<Integer, List<ContactListItem>>> {
         // Class static to make sure only one task is sorting contacts at one time.
         private static ExecutorService sExecutorService = Executors.newSingleThreadExecutor();
 
@@ -120,7 +123,8 @@ public class ContactListViewModel extends DialerListViewModel {
 
             Runnable runnable = () -> {
                 Collections.sort(contactList, comparator);
-                postValue(new Pair<>(sortMethod, contactList));
+                postValue(new Pair<>(sortMethod,
+                        ContactListItem.createList(mContext, contactList, sortMethod)));
             };
             mRunnableFuture = sExecutorService.submit(runnable);
         }
@@ -78,10 +78,8 @@ public class AddFavoriteFragment extends ContactResultsFragment {
                 .setNegativeButton(R.string.cancel_add_favorites_dialog, null)
                 .setPositiveButton(R.string.confirm_add_favorites_dialog,
                         (d, which) -> {
-                            for (PhoneNumber number : mSelectedNumbers) {
-                                favoriteViewModel.addToFavorite(mSelectedContact,
-                                        number);
-                            }
+                            favoriteViewModel.addToFavorite(mSelectedContact,
+                                    mSelectedNumbers);
                             getParentFragmentManager().popBackStackImmediate();
                         })
                 .setOnDismissListener(dialog -> mSelectedNumbers.clear())
@@ -22,13 +22,18 @@ import android.database.Cursor;
 import android.provider.ContactsContract;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 
+import com.android.car.dialer.storage.FavoriteNumberRepository;
 import com.android.car.telephony.common.AsyncQueryLiveData;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.QueryParam;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /** Presents the favorite contacts downloaded from phone. It reads the contacts provider. */
 class BluetoothFavoriteContactsLiveData extends AsyncQueryLiveData<List<Contact>> {
@@ -42,30 +47,30 @@ class BluetoothFavoriteContactsLiveData extends AsyncQueryLiveData<List<Contact>
     @Override
     protected List<Contact> convertToEntity(@NonNull Cursor cursor) {
         List<Contact> resultList = new ArrayList<>();
+        // Keys of the contacts already added: lookup key, account name and phone numbers.
+        Set<List<Object>> addedKeys = new HashSet<>();
 
         while (cursor.moveToNext()) {
             Contact favoriteEntry = Contact.fromCursor(mContext, cursor);
             // If there is already a contact with the same phone number, don't add duplicate
             // entries.
-            boolean alreadyExists = false;
-            for (Contact contact : resultList) {
-                if (favoriteEntry.equals(contact) && favoriteEntry.getNumbers().containsAll(
-                        contact.getNumbers())) {
-                    alreadyExists = true;
-                    break;
-                }
-            }
-            if (!alreadyExists) {
+            List<Object> key = Arrays.asList(favoriteEntry.getLookupKey(),
+                    favoriteEntry.getAccountName(), new HashSet<>(favoriteEntry.getNumbers()));
+            if (addedKeys.add(key)) {
                 resultList.add(favoriteEntry);
             }
         }
         return resultList;
     }
 
-    private static class FavoriteQueryParam extends QueryParam {
+    @VisibleForTesting
+    static class FavoriteQueryParam extends QueryParam {
+        @VisibleForTesting
+        static final String[] PROJECTION = FavoriteNumberRepository.PHONE_PROJECTION;
+
         FavoriteQueryParam() {
             super(ContactsContract.Data.CONTENT_URI,
-                    null,
+                    PROJECTION,
                     ContactsContract.Data.MIMETYPE + " = ? AND "
                             + ContactsContract.CommonDataKinds.Phone.STARRED + " = ? ",
                     new String[]{
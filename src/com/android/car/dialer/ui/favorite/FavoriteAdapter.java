@@ -16,24 +16,34 @@
 
 package com.android.car.dialer.ui.favorite;
 
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.storage.FavoriteTile;
 import com.android.car.dialer.ui.common.DialerUtils;
 import com.android.car.dialer.ui.common.OnItemClickedListener;
 import com.android.car.dialer.ui.common.entity.Header;
 import com.android.car.telephony.common.Contact;
 import com.android.car.ui.recyclerview.DelegatingContentLimitingAdapter;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Adapter class for binding favorite contacts.
@@ -41,7 +51,8 @@ import java.util.List;
 public class FavoriteAdapter extends RecyclerView.Adapter<FavoriteContactViewHolder> implements
         DelegatingContentLimitingAdapter.ContentLimiting {
     private static final String TAG = "CD.FavoriteAdapter";
-    static final int TYPE_CONTACT = 0;
+    // View types are unique across the adapters sharing the activity's recycled view pool.
+    public static final int TYPE_CONTACT = 0;
     static final int TYPE_HEADER = 1;
     static final int TYPE_ADD_FAVORITE = 2;
 
@@ -60,16 +71,117 @@ public class FavoriteAdapter extends RecyclerView.Adapter<FavoriteContactViewHol
     }
 
     private List<Object> mFavoriteContacts = Collections.emptyList();
+    private long[] mItemIds = new long[0];
+    // Stable ids of the items in the list, keyed by their section and identity, see getItemKey().
+    private final Map<List<Object>, Long> mItemIdsByKey = new HashMap<>();
+    private long mNextItemId;
     private OnItemClickedListener<Contact> mListener;
+    private OnItemClickedListener<FavoriteTile> mTileListener;
     private OnAddFavoriteClickedListener mAddFavoriteListener;
 
+    public FavoriteAdapter() {
+        setHasStableIds(true);
+    }
+
     /**
-     * Sets the favorite contact list.
+     * Sets the favorite contact list. Only the items that changed are notified, so unchanged
+     * contacts are neither rebound nor reload their avatar.
      */
     public void setFavoriteContacts(List<Object> favoriteContacts) {
         L.d(TAG, "setFavoriteContacts %s", favoriteContacts);
+        List<Object> oldFavoriteContacts = mFavoriteContacts;
+        long[] oldItemIds = mItemIds;
         mFavoriteContacts = (favoriteContacts != null) ? favoriteContacts : Collections.emptyList();
-        notifyDataSetChanged();
+        mItemIds = computeItemIds(mFavoriteContacts);
+
+        DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldFavoriteContacts.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return mFavoriteContacts.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return oldItemIds[oldItemPosition] == mItemIds[newItemPosition];
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return isSameContent(oldFavoriteContacts.get(oldItemPosition),
+                        mFavoriteContacts.get(newItemPosition));
+            }
+        }, /* detectMoves= */false).dispatchUpdatesTo(this);
+    }
+
+    private long[] computeItemIds(List<Object> favoriteContacts) {
+        long[] itemIds = new long[favoriteContacts.size()];
+        Set<List<Object>> keys = new HashSet<>();
+        Header section = null;
+        for (int i = 0; i < favoriteContacts.size(); i++) {
+            Object item = favoriteContacts.get(i);
+            if (item instanceof Header) {
+                section = (Header) item;
+            }
+            List<Object> itemKey = getItemKey(item, section);
+            List<Object> key = itemKey;
+            // The same contact can be listed for several numbers in a section.
+            int occurrence = 0;
+            while (!keys.add(key)) {
+                key = Arrays.asList(itemKey, ++occurrence);
+            }
+            Long itemId = mItemIdsByKey.get(key);
+            if (itemId == null) {
+                itemId = mNextItemId++;
+                mItemIdsByKey.put(key, itemId);
+            }
+            itemIds[i] = itemId;
+        }
+        // Only the ids of the current items are kept, ids are never reused.
+        mItemIdsByKey.keySet().retainAll(keys);
+        return itemIds;
+    }
+
+    private static List<Object> getItemKey(Object item, @Nullable Header section) {
+        if (item instanceof Contact) {
+            Contact contact = (Contact) item;
+            return Arrays.asList(TYPE_CONTACT, section == null ? null : section.getHeader(),
+                    contact.getLookupKey(), contact.getAccountName());
+        } else if (item instanceof FavoriteTile) {
+            // Same key as the contact the tile was persisted for, so it is rebound in place.
+            FavoriteTile tile = (FavoriteTile) item;
+            return Arrays.asList(TYPE_CONTACT, section == null ? null : section.getHeader(),
+                    tile.getLookupKey(), tile.getAccountName());
+        } else if (item instanceof Header) {
+            return Arrays.asList(TYPE_HEADER, ((Header) item).getHeader());
+        } else {
+            return Collections.singletonList(TYPE_ADD_FAVORITE);
+        }
+    }
+
+    private static boolean isSameContent(Object oldItem, Object newItem) {
+        if (oldItem == newItem) {
+            return true;
+        }
+        if (oldItem instanceof Contact && newItem instanceof Contact) {
+            Contact oldContact = (Contact) oldItem;
+            Contact newContact = (Contact) newItem;
+            return TextUtils.equals(oldContact.getDisplayName(), newContact.getDisplayName())
+                    && TextUtils.equals(oldContact.getDisplayNameAlt(),
+                    newContact.getDisplayNameAlt())
+                    && Objects.equals(oldContact.getAvatarUri(), newContact.getAvatarUri())
+                    && Objects.equals(oldContact.getNumbers(), newContact.getNumbers());
+        }
+        // Persisted tiles are immutable and only replaced by contacts.
+        if (oldItem instanceof FavoriteTile || newItem instanceof FavoriteTile) {
+            return false;
+        }
+        // Headers and the add favorite button are identified by their content.
+        return !(oldItem instanceof Contact) && !(newItem instanceof Contact);
     }
 
     /**
@@ -84,10 +196,15 @@ public class FavoriteAdapter extends RecyclerView.Adapter<FavoriteContactViewHol
         return mFavoriteContacts.size();
     }
 
+    @Override
+    public long getItemId(int position) {
+        return mItemIds[position];
+    }
+
     @Override
     public int getItemViewType(int position) {
         Object item = mFavoriteContacts.get(position);
-        if (item instanceof Contact) {
+        if (item instanceof Contact || item instanceof FavoriteTile) {
             return TYPE_CONTACT;
         } else if (item instanceof Header) {
             return TYPE_HEADER;
@@ -116,9 +233,16 @@ public class FavoriteAdapter extends RecyclerView.Adapter<FavoriteContactViewHol
         int itemViewType = getItemViewType(position);
         switch (itemViewType) {
             case TYPE_CONTACT:
-                Contact contact = (Contact) mFavoriteContacts.get(position);
-                viewHolder.bind(contact, mSortMethod);
-                viewHolder.itemView.setOnClickListener(v -> onItemViewClicked(contact));
+                Object item = mFavoriteContacts.get(position);
+                if (item instanceof FavoriteTile) {
+                    FavoriteTile tile = (FavoriteTile) item;
+                    viewHolder.bind(tile, mSortMethod);
+                    viewHolder.itemView.setOnClickListener(v -> onTileViewClicked(tile));
+                } else {
+                    Contact contact = (Contact) item;
+                    viewHolder.bind(contact, mSortMethod);
+                    viewHolder.itemView.setOnClickListener(v -> onItemViewClicked(contact));
+                }
                 break;
             case TYPE_HEADER:
                 Header header = (Header) mFavoriteContacts.get(position);
@@ -173,6 +297,12 @@ public class FavoriteAdapter extends RecyclerView.Adapter<FavoriteContactViewHol
         }
     }
 
+    private void onTileViewClicked(FavoriteTile tile) {
+        if (mTileListener != null) {
+            mTileListener.onItemClicked(tile);
+        }
+    }
+
     /**
      * Sets a {@link OnItemClickedListener listener} which will be called when an item is clicked.
      */
@@ -180,6 +310,14 @@ public class FavoriteAdapter extends RecyclerView.Adapter<FavoriteContactViewHol
         mListener = listener;
     }
 
+    /**
+     * Sets a {@link OnItemClickedListener listener} which will be called when a persisted favorite
+     * tile is clicked before the phone book is loaded.
+     */
+    public void setOnTileClickedListener(OnItemClickedListener<FavoriteTile> listener) {
+        mTileListener = listener;
+    }
+
     /**
      * Sets a {@link OnAddFavoriteClickedListener listener} which will be called when the "Add
      * favorite" button is clicked.
@@ -27,12 +27,16 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.android.car.apps.common.util.ViewUtils;
 import com.android.car.dialer.R;
 import com.android.car.dialer.log.L;
+import com.android.car.dialer.storage.FavoriteTile;
+import com.android.car.dialer.ui.common.DialerUtils;
 import com.android.car.dialer.ui.common.entity.Header;
 import com.android.car.dialer.ui.view.ContactAvatarOutputlineProvider;
 import com.android.car.telephony.common.Contact;
 import com.android.car.telephony.common.PhoneNumber;
 import com.android.car.telephony.common.TelecomUtils;
 
+import com.bumptech.glide.Glide;
+
 import java.util.List;
 
 /**
@@ -71,21 +75,48 @@ class FavoriteContactViewHolder extends RecyclerView.ViewHolder {
             return;
         }
 
-        String secondaryText;
+        mText.setText(getSecondaryText(context, contact));
+
+        DialerUtils.setContactAvatarAsync(context, mIcon, contact, null, sortMethod);
+    }
+
+    /**
+     * Binds view with a persisted favorite tile, shown until the phone book is loaded.
+     */
+    public void bind(@NonNull FavoriteTile tile, Integer sortMethod) {
+        Context context = itemView.getContext();
+        mTitle.setText(TelecomUtils.isSortByFirstName(sortMethod) ? tile.getDisplayName()
+                : tile.getDisplayNameAlt());
+        mText.setText(tile.getLabel());
+
+        // Cancel the avatar request of the contact previously bound to this view holder.
+        Glide.with(context).clear(mIcon);
+        if (tile.getAvatar() != null) {
+            mIcon.setImageBitmap(tile.getAvatar());
+        } else {
+            mIcon.setImageDrawable(TelecomUtils.createLetterTile(context, tile.getInitials(),
+                    tile.getDisplayName()));
+        }
+    }
+
+    /**
+     * Returns the secondary text of a favorite contact: the label of its number, or of its primary
+     * number if it has several.
+     */
+    static String getSecondaryText(Context context, @NonNull Contact contact) {
+        List<PhoneNumber> contactPhoneNumbers = contact.getNumbers();
+        if (contactPhoneNumbers.isEmpty()) {
+            return null;
+        }
         if (!contact.isVoicemail() && contactPhoneNumbers.size() > 1) {
             if (contact.hasPrimaryPhoneNumber()) {
-                secondaryText = context.getString(R.string.primary_number_description,
+                return context.getString(R.string.primary_number_description,
                         contact.getPrimaryPhoneNumber().getReadableLabel(context.getResources()));
             } else {
-                secondaryText = context.getString(R.string.type_multiple);
+                return context.getString(R.string.type_multiple);
             }
-        } else {
-            secondaryText = String.valueOf(
-                    contactPhoneNumbers.get(0).getReadableLabel(context.getResources()));
         }
-        mText.setText(secondaryText);
-
-        TelecomUtils.setContactBitmapAsync(context, mIcon, contact, sortMethod);
+        return String.valueOf(contactPhoneNumbers.get(0).getReadableLabel(context.getResources()));
     }
 
     public void onBind(@NonNull Header header) {
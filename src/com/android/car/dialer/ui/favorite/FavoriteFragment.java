@@ -30,6 +30,7 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.android.car.dialer.Constants;
 import com.android.car.dialer.R;
+import com.android.car.dialer.storage.FavoriteTile;
 import com.android.car.dialer.telecom.UiCallManager;
 import com.android.car.dialer.ui.common.DialerListBaseFragment;
 import com.android.car.dialer.ui.common.DialerUtils;
@@ -63,6 +64,7 @@ public class FavoriteFragment extends DialerListBaseFragment {
         FavoriteViewModel favoriteViewModel = ViewModelProviders.of(getActivity()).get(
                 FavoriteViewModel.class);
         favoriteAdapter.setOnListItemClickedListener(this::onItemClicked);
+        favoriteAdapter.setOnTileClickedListener(this::onTileClicked);
         favoriteViewModel.getFavoriteContacts().observe(this, contacts -> {
             if (contacts.isLoading()) {
                 showLoading();
@@ -91,6 +93,11 @@ public class FavoriteFragment extends DialerListBaseFragment {
         getUxrContentLimiter().setAdapter(mContentLimitingAdapter);
     }
 
+    @Override
+    protected boolean useSharedRecycledViewPool() {
+        return true;
+    }
+
     @NonNull
     @Override
     protected RecyclerView.LayoutManager createLayoutManager() {
@@ -102,6 +109,13 @@ public class FavoriteFragment extends DialerListBaseFragment {
                 UiCallManager.get().placeCall(phoneNumber.getRawNumber()));
     }
 
+    private void onTileClicked(FavoriteTile tile) {
+        // Tiles without a number wait for the phone book to pick one.
+        if (tile.getNumber() != null) {
+            UiCallManager.get().placeCall(tile.getNumber());
+        }
+    }
+
     private void onAddFavoriteClicked() {
         pushContentFragment(AddFavoriteFragment.newInstance(), null);
     }
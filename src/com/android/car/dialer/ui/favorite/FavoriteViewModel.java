@@ -17,22 +17,39 @@
 package com.android.car.dialer.ui.favorite;
 
 import android.app.Application;
+import android.bluetooth.BluetoothDevice;
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+import androidx.arch.core.util.Function;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
 
 import com.android.car.arch.common.FutureData;
 import com.android.car.arch.common.LiveDataFunctions;
 import com.android.car.dialer.R;
+import com.android.car.dialer.bluetooth.UiBluetoothMonitor;
 import com.android.car.dialer.storage.FavoriteNumberRepository;
+import com.android.car.dialer.storage.FavoriteTile;
+import com.android.car.dialer.storage.FavoriteTileCache;
 import com.android.car.dialer.ui.common.DialerListViewModel;
 import com.android.car.dialer.ui.common.entity.ActionButton;
 import com.android.car.dialer.ui.common.entity.Header;
 import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.InMemoryPhoneBook;
 import com.android.car.telephony.common.PhoneNumber;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * View model for {@link FavoriteFragment}.
@@ -47,38 +64,12 @@ public class FavoriteViewModel extends DialerListViewModel {
         mFavoriteNumberRepository = FavoriteNumberRepository.getRepository(application);
         mBluetoothFavoriteContacts = new BluetoothFavoriteContactsLiveData(application);
 
-        MediatorLiveData<List<Object>> favoriteContacts = new MediatorLiveData<>();
-        favoriteContacts.addSource(mFavoriteNumberRepository.getFavoriteContacts(), contacts -> {
-            List<Object> contactList = new ArrayList<>();
-            if (mBluetoothFavoriteContacts.getValue() != null
-                    && !mBluetoothFavoriteContacts.getValue().isEmpty()) {
-                contactList.add(new Header(application.getString(R.string.phone_favorites)));
-                contactList.addAll(mBluetoothFavoriteContacts.getValue());
-            }
-            contactList.add(new Header(application.getString(R.string.local_favorites)));
-            if (contacts != null) {
-                contactList.addAll(contacts);
-            }
-            contactList.add(new ActionButton());
-            favoriteContacts.setValue(contactList);
-        });
-        favoriteContacts.addSource(mBluetoothFavoriteContacts, contacts -> {
-            List<Object> contactList = new ArrayList<>();
-            if (contacts != null && !contacts.isEmpty()) {
-                contactList.add(new Header(application.getString(R.string.phone_favorites)));
-                contactList.addAll(contacts);
-            }
-            contactList.add(new Header(application.getString(R.string.local_favorites)));
-            if (mFavoriteNumberRepository.getFavoriteContacts().getValue() != null) {
-                contactList.addAll(mFavoriteNumberRepository.getFavoriteContacts().getValue());
-            }
-            contactList.add(new ActionButton());
-            favoriteContacts.setValue(contactList);
-        });
+        MediatorLiveData<List<Object>> favoriteContacts = new MergedFavoritesLiveData(
+                application, mBluetoothFavoriteContacts,
+                mFavoriteNumberRepository.getFavoriteContacts());
         mFavoriteContacts = LiveDataFunctions.loadingSwitchMap(
                 favoriteContacts,
                 input -> LiveDataFunctions.dataOf(input == null || input.isEmpty() ? null : input));
-
     }
 
     /**
@@ -89,12 +80,220 @@ public class FavoriteViewModel extends DialerListViewModel {
     }
 
     /**
-     * Adds the phone number to favorite.
+     * Adds the phone numbers to favorite in one batch.
      *
-     * @param contact     The contact the phone number belongs to.
-     * @param phoneNumber The phone number to add to favorite.
+     * @param contact      The contact the phone numbers belong to.
+     * @param phoneNumbers The phone numbers to add to favorite.
+     */
+    public void addToFavorite(Contact contact, Collection<PhoneNumber> phoneNumbers) {
+        mFavoriteNumberRepository.addToFavorite(contact, phoneNumbers);
+    }
+
+    /**
+     * Merges the phone favorites and the local favorites with their headers and the add favorite
+     * button in the background. Until the phone book of the connected device is loaded, the
+     * favorite tiles persisted by {@link FavoriteTileCache} for the device are shown instead, and
+     * the tiles are persisted again every time the loaded favorites change. The phone book is
+     * loaded once its download completed: its contact list didn't change for {@code
+     * config_phone_book_download_settle_ms}, so a partial download doesn't overwrite the tiles.
      */
-    public void addToFavorite(Contact contact, PhoneNumber phoneNumber) {
-        mFavoriteNumberRepository.addToFavorite(contact, phoneNumber);
+    @VisibleForTesting
+    static class MergedFavoritesLiveData extends MediatorLiveData<List<Object>> {
+        // Class static to make sure only one task is merging favorites at one time.
+        private static ExecutorService sExecutorService = Executors.newSingleThreadExecutor();
+
+        private final Context mContext;
+        private final ExecutorService mExecutorService;
+        private final FavoriteTileCache mFavoriteTileCache;
+        private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+        private final LiveData<List<Contact>> mBluetoothFavoriteContacts;
+        private final LiveData<List<Contact>> mLocalFavoriteContacts;
+        private final LiveData<BluetoothDevice> mConnectedDevice;
+        private final LiveData<List<Contact>> mPhoneBookContacts;
+        private final String mPhoneFavoritesHeader;
+        private final String mLocalFavoritesHeader;
+        private final long mPhoneBookDownloadSettleMs;
+        private final Runnable mPhoneBookDownloadCompleteRunnable = this::onPhoneBookDownloaded;
+
+        private Future<?> mRunnableFuture;
+        // Increased by every merge, only the value of the latest merge is set.
+        private int mMergeGeneration;
+        private boolean mIsPhoneBookLoaded;
+        private Future<?> mLoadSnapshotFuture;
+        @Nullable
+        private BluetoothDevice mDevice;
+        // The persisted tiles of mDevice, null until loaded.
+        @Nullable
+        private List<FavoriteTile> mSnapshot;
+
+        private MergedFavoritesLiveData(Context context,
+                LiveData<List<Contact>> bluetoothFavoriteContacts,
+                LiveData<List<Contact>> localFavoriteContacts) {
+            this(context, bluetoothFavoriteContacts, localFavoriteContacts,
+                    UiBluetoothMonitor.get().getFirstHfpConnectedDevice(),
+                    device -> InMemoryPhoneBook.get().getContactsLiveDataByAccount(
+                            device.getAddress()),
+                    FavoriteTileCache.get(context), sExecutorService);
+        }
+
+        @VisibleForTesting
+        MergedFavoritesLiveData(Context context,
+                LiveData<List<Contact>> bluetoothFavoriteContacts,
+                LiveData<List<Contact>> localFavoriteContacts,
+                LiveData<BluetoothDevice> connectedDevice,
+                Function<BluetoothDevice, LiveData<List<Contact>>> phoneBookContactsProvider,
+                FavoriteTileCache favoriteTileCache, ExecutorService executorService) {
+            mContext = context.getApplicationContext();
+            mExecutorService = executorService;
+            mFavoriteTileCache = favoriteTileCache;
+            mBluetoothFavoriteContacts = bluetoothFavoriteContacts;
+            mLocalFavoriteContacts = localFavoriteContacts;
+            mConnectedDevice = connectedDevice;
+            mPhoneBookContacts = LiveDataFunctions.switchMapNonNull(mConnectedDevice,
+                    phoneBookContactsProvider);
+            mPhoneFavoritesHeader = context.getString(R.string.phone_favorites);
+            mLocalFavoritesHeader = context.getString(R.string.local_favorites);
+            mPhoneBookDownloadSettleMs = context.getResources().getInteger(
+                    R.integer.config_phone_book_download_settle_ms);
+
+            addSource(mConnectedDevice, this::onDeviceChanged);
+            addSource(mPhoneBookContacts, this::onPhoneBookChanged);
+            addSource(mBluetoothFavoriteContacts, contacts -> mergeFavorites());
+            addSource(mLocalFavoriteContacts, contacts -> mergeFavorites());
+        }
+
+        private void onDeviceChanged(@Nullable BluetoothDevice device) {
+            if (Objects.equals(mDevice, device)) {
+                return;
+            }
+            mDevice = device;
+            mSnapshot = null;
+            mIsPhoneBookLoaded = false;
+            mMainHandler.removeCallbacks(mPhoneBookDownloadCompleteRunnable);
+            if (mLoadSnapshotFuture != null) {
+                mLoadSnapshotFuture.cancel(false);
+            }
+            if (device == null) {
+                return;
+            }
+
+            String deviceAddress = device.getAddress();
+            mLoadSnapshotFuture = mExecutorService.submit(() -> {
+                List<FavoriteTile> snapshot = mFavoriteTileCache.load(deviceAddress);
+                mMainHandler.post(() -> {
+                    if (mDevice != null && deviceAddress.equals(mDevice.getAddress())) {
+                        mSnapshot = snapshot;
+                        mergeFavorites();
+                    }
+                });
+            });
+        }
+
+        /**
+         * The contacts of a device are downloaded in batches. Its download is complete once the
+         * phone book didn't change for the settle time, it stays loaded until the device changes.
+         * Every emission restarts the settle time, an empty or null one too: a phone book that
+         * stays empty is loaded as well, so the persisted tiles aren't shown forever.
+         */
+        private void onPhoneBookChanged(@Nullable List<Contact> contacts) {
+            if (!mIsPhoneBookLoaded) {
+                mMainHandler.removeCallbacks(mPhoneBookDownloadCompleteRunnable);
+                mMainHandler.postDelayed(mPhoneBookDownloadCompleteRunnable,
+                        mPhoneBookDownloadSettleMs);
+            }
+            mergeFavorites();
+        }
+
+        private void onPhoneBookDownloaded() {
+            mIsPhoneBookLoaded = true;
+            mergeFavorites();
+        }
+
+        private void mergeFavorites() {
+            if (mRunnableFuture != null) {
+                mRunnableFuture.cancel(false);
+            }
+            int generation = ++mMergeGeneration;
+
+            if (!mIsPhoneBookLoaded) {
+                if (mSnapshot != null && !mSnapshot.isEmpty()) {
+                    setValue(createSnapshotList(mSnapshot));
+                    return;
+                }
+            }
+
+            List<Contact> bluetoothFavoriteContacts = mBluetoothFavoriteContacts.getValue();
+            List<Contact> localFavoriteContacts = mLocalFavoriteContacts.getValue();
+            // Only favorites resolved against the loaded phone book are persisted. An empty phone
+            // book may be a download that didn't start yet, it doesn't overwrite the tiles.
+            List<Contact> phoneBookContacts = mPhoneBookContacts.getValue();
+            String deviceAddress = mDevice != null && mIsPhoneBookLoaded
+                    && phoneBookContacts != null && !phoneBookContacts.isEmpty()
+                    ? mDevice.getAddress() : null;
+            mRunnableFuture = mExecutorService.submit(() -> {
+                List<Object> contactList = new ArrayList<>();
+                if (bluetoothFavoriteContacts != null && !bluetoothFavoriteContacts.isEmpty()) {
+                    contactList.add(new Header(mPhoneFavoritesHeader));
+                    contactList.addAll(bluetoothFavoriteContacts);
+                }
+                contactList.add(new Header(mLocalFavoritesHeader));
+                if (localFavoriteContacts != null) {
+                    contactList.addAll(localFavoriteContacts);
+                }
+                contactList.add(new ActionButton());
+                // A later merge, or the snapshot set meanwhile, wins over this list.
+                mMainHandler.post(() -> {
+                    if (generation == mMergeGeneration) {
+                        setValue(contactList);
+                    }
+                });
+
+                if (deviceAddress != null) {
+                    mFavoriteTileCache.save(deviceAddress, createTiles(contactList));
+                }
+            });
+        }
+
+        private List<Object> createSnapshotList(List<FavoriteTile> snapshot) {
+            List<Object> contactList = new ArrayList<>();
+            String section = null;
+            boolean hasLocalFavoritesHeader = false;
+            for (FavoriteTile tile : snapshot) {
+                if (!tile.getSection().equals(section)) {
+                    section = tile.getSection();
+                    hasLocalFavoritesHeader |= mLocalFavoritesHeader.equals(section);
+                    contactList.add(new Header(section));
+                }
+                contactList.add(tile);
+            }
+            if (!hasLocalFavoritesHeader) {
+                contactList.add(new Header(mLocalFavoritesHeader));
+            }
+            contactList.add(new ActionButton());
+            return contactList;
+        }
+
+        @WorkerThread
+        private List<FavoriteTile> createTiles(List<Object> contactList) {
+            List<FavoriteTile> tiles = new ArrayList<>();
+            String section = null;
+            for (Object item : contactList) {
+                if (item instanceof Header) {
+                    section = ((Header) item).getHeader();
+                } else if (item instanceof Contact) {
+                    Contact contact = (Contact) item;
+                    PhoneNumber number = contact.getNumbers().size() == 1
+                            ? contact.getNumbers().get(0) : contact.getPrimaryPhoneNumber();
+                    tiles.add(new FavoriteTile(section, contact.getDisplayName(),
+                            contact.getDisplayNameAlt(), contact.getInitials(),
+                            FavoriteContactViewHolder.getSecondaryText(mContext, contact),
+                            number == null ? null : number.getRawNumber(),
+                            contact.getLookupKey(), contact.getAccountName(),
+                            contact.getAvatarUri() == null
+                                    ? null : contact.getAvatarUri().toString()));
+                }
+            }
+            return tiles;
+        }
     }
 }
@@ -53,6 +53,14 @@ public class ContactResultViewHolder extends RecyclerView.ViewHolder {
     private final ContactResultsAdapter.OnShowContactDetailListener mOnShowContactDetailListener;
     @Nullable
     private final OnItemClickedListener mOnItemClickedListener;
+    // Config value read once, binding must not touch Resources.
+    private final boolean mShowPostalAddress;
+    // Created once and reads the bound result, so binding doesn't allocate a listener.
+    private final View.OnClickListener mOnContactCardClickListener;
+    private QueryStyle mQueryStyle;
+
+    private ContactResultsLiveData.ContactResultListItem mContactResult;
+    private boolean mIsTypeDownResult;
 
     public ContactResultViewHolder(View view,
             @Nullable ContactResultsAdapter.OnShowContactDetailListener onShowContactDetailListener,
@@ -68,6 +76,8 @@ public class ContactResultViewHolder extends RecyclerView.ViewHolder {
         }
         mOnShowContactDetailListener = onShowContactDetailListener;
         mOnItemClickedListener = onItemClickedListener;
+        mShowPostalAddress = view.getResources().getBoolean(R.bool.config_show_postal_address);
+        mOnContactCardClickListener = this::onContactCardClicked;
     }
 
     /**
@@ -77,19 +87,16 @@ public class ContactResultViewHolder extends RecyclerView.ViewHolder {
     public void bindSearchResult(ContactResultsLiveData.ContactResultListItem contactResult,
             Integer sortMethod) {
         Contact contact = contactResult.getContact();
+        mContactResult = contactResult;
+        mIsTypeDownResult = false;
 
         ViewUtils.setText(mContactName,
                 TelecomUtils.isSortByFirstName(sortMethod) ? contact.getDisplayName()
                         : contact.getDisplayNameAlt());
-        TelecomUtils.setContactBitmapAsync(mContext, mContactPicture, contact, sortMethod);
-
-        if (DialerUtils.hasContactDetail(itemView.getResources(), contact)) {
-            mContactCard.setOnClickListener(
-                    v -> {
-                        if (mOnShowContactDetailListener != null) {
-                            mOnShowContactDetailListener.onShowContactDetail(contact);
-                        }
-                    });
+        DialerUtils.setContactAvatarAsync(mContext, mContactPicture, contact, null, sortMethod);
+
+        if (DialerUtils.hasContactDetail(mShowPostalAddress, contact)) {
+            mContactCard.setOnClickListener(mOnContactCardClickListener);
         } else {
             itemView.setEnabled(false);
         }
@@ -102,26 +109,40 @@ public class ContactResultViewHolder extends RecyclerView.ViewHolder {
     public void bindTypeDownResult(ContactResultsLiveData.ContactResultListItem contactResult,
             Integer sortMethod) {
         Contact contact = contactResult.getContact();
+        mContactResult = contactResult;
+        mIsTypeDownResult = true;
 
-        QueryStyle queryStyle = new QueryStyle(mContext, R.style.TextAppearance_TypeDownListSpan);
+        if (mQueryStyle == null) {
+            mQueryStyle = new QueryStyle(mContext, R.style.TextAppearance_TypeDownListSpan);
+        }
         ViewUtils.setText(mContactNumber,
-                queryStyle.getStringWithQueryInSpecialStyle(contactResult.getNumber(),
+                mQueryStyle.getStringWithQueryInSpecialStyle(contactResult.getNumber(),
                         contactResult.getSearchQuery()));
         ViewUtils.setText(mContactName,
                 TelecomUtils.isSortByFirstName(sortMethod) ? contact.getDisplayName()
                         : contact.getDisplayNameAlt());
-        mContactCard.setOnClickListener(
-                v -> {
-                    if (mOnItemClickedListener != null) {
-                        mOnItemClickedListener.onItemClicked(contactResult);
-                    }
-                    UiCallManager.get().placeCall(mContactNumber.getText().toString());
-                });
-        TelecomUtils.setContactBitmapAsync(mContext, mContactPicture, contact, sortMethod);
+        mContactCard.setOnClickListener(mOnContactCardClickListener);
+        DialerUtils.setContactAvatarAsync(mContext, mContactPicture, contact, null, sortMethod);
+    }
+
+    private void onContactCardClicked(View view) {
+        if (mContactResult == null) {
+            return;
+        }
+
+        if (mIsTypeDownResult) {
+            if (mOnItemClickedListener != null) {
+                mOnItemClickedListener.onItemClicked(mContactResult);
+            }
+            UiCallManager.get().placeCall(mContactNumber.getText().toString());
+        } else if (mOnShowContactDetailListener != null) {
+            mOnShowContactDetailListener.onShowContactDetail(mContactResult.getContact());
+        }
     }
 
     void recycle() {
         itemView.setEnabled(true);
+        mContactResult = null;
         mContactCard.setOnClickListener(null);
         if (mContactPicture != null) {
             Glide.with(mContext).clear(mContactPicture);
@@ -25,9 +25,6 @@ import android.view.View;
 import com.android.car.dialer.R;
 import com.android.car.dialer.livedata.CallHistoryLiveData;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * View that draws one or more symbols for different types of calls (missed calls, outgoing etc).
  * The symbols are set up horizontally. As this view doesn't create subviews, it is better suited
@@ -37,8 +34,10 @@ public class CallTypeIconsView extends View {
     // Limit the icons up to 3 and if there are more than 3 calls, append the call count at the end.
     private static final int MAX_CALL_TYPE_ICONS = 3;
     private static final String CALL_COUNT_FORMAT = "(%d)";
+    private static final int[] NO_CALL_TYPES = new int[0];
 
-    private final List<Integer> mCallTypes = new ArrayList<>();
+    private int[] mCallTypes = NO_CALL_TYPES;
+    private int mCallCount;
     private final IconResources mIconResources;
     private final int mSingleIconSize;
     private int mIconWidth;
@@ -67,36 +66,47 @@ public class CallTypeIconsView extends View {
     }
 
     public void clear() {
-        setText(null);
-        mCallTypes.clear();
-        mIconWidth = 0;
-        mIconHeight = 0;
-        requestLayout();
+        setCallTypes(NO_CALL_TYPES, 0);
     }
 
     /**
-     * Call type icons are added in reverse chronological order that the most recent call will be
-     * the first icon.
+     * Sets the call types to show, in reverse chronological order that the most recent call will
+     * be the first icon. The array is kept without copying and must not be modified afterwards.
+     *
+     * @param recentCallTypes the types of the most recent calls, only the first
+     *                        {@link #MAX_CALL_TYPE_ICONS} are shown.
+     * @param callCount       the total number of calls, shown as text if it exceeds the number of
+     *                        icons.
      */
-    public void add(int callType) {
-        mCallTypes.add(callType);
-        if (mCallTypes.size() > MAX_CALL_TYPE_ICONS) {
-            setText(String.format(CALL_COUNT_FORMAT, mCallTypes.size()));
-            return;
+    public void setCallTypes(int[] recentCallTypes, int callCount) {
+        int iconCount = Math.min(MAX_CALL_TYPE_ICONS, recentCallTypes.length);
+        int iconWidth = iconCount * (mSingleIconSize + mIconResources.iconMargin);
+        int iconHeight = iconCount == 0 ? 0 : mSingleIconSize + mIconResources.iconMargin;
+        // Only request a layout if the measured size changes, see onMeasure().
+        boolean sizeChanged = iconWidth != mIconWidth || iconHeight != mIconHeight
+                || (callCount > MAX_CALL_TYPE_ICONS) != (mCallCount > MAX_CALL_TYPE_ICONS);
+
+        mCallTypes = recentCallTypes;
+        mCallCount = callCount;
+        mIconWidth = iconWidth;
+        mIconHeight = iconHeight;
+        // The count text is formatted lazily, see getCallCountText().
+        mCallCountText = null;
+        if (sizeChanged) {
+            requestLayout();
         }
-
-        setText(null);
-        mIconWidth += mSingleIconSize + mIconResources.iconMargin;
-        mIconHeight = Math.max(mIconHeight, mSingleIconSize + mIconResources.iconMargin);
-        requestLayout();
+        invalidate();
     }
 
     public String getCallCountText() {
+        if (mCallCountText == null && mCallCount > MAX_CALL_TYPE_ICONS) {
+            mCallCountText = String.format(CALL_COUNT_FORMAT, mCallCount);
+        }
         return mCallCountText;
     }
 
     public int getCallType(int index) {
-        return mCallTypes.get(index);
+        return mCallTypes[index];
     }
 
     private Drawable getCallTypeDrawable(int callType) {
@@ -123,7 +133,7 @@ public class CallTypeIconsView extends View {
         int mWidth = mIconWidth;
         int mHeight = Math.max(getMeasuredHeight(), mIconHeight);
         // Add extra end margin if show the count text.
-        if (mCallTypes.size() > MAX_CALL_TYPE_ICONS) {
+        if (mCallCount > MAX_CALL_TYPE_ICONS) {
             mWidth += mIconResources.iconMargin;
         }
         setMeasuredDimension(mWidth, mHeight);
@@ -133,9 +143,9 @@ public class CallTypeIconsView extends View {
     protected void onDraw(Canvas canvas) {
         // Draw up to 3 icons.
         int left = 0;
-        int iconCount = Math.min(MAX_CALL_TYPE_ICONS, mCallTypes.size());
+        int iconCount = Math.min(MAX_CALL_TYPE_ICONS, mCallTypes.length);
         for (int i = 0; i < iconCount; i++) {
-            final Drawable drawable = getCallTypeDrawable(mCallTypes.get(i));
+            final Drawable drawable = getCallTypeDrawable(mCallTypes[i]);
             final int right = left + mSingleIconSize;
             drawable.setBounds(left, mIconResources.iconMargin, right,
                     mSingleIconSize + mIconResources.iconMargin);
@@ -144,10 +154,6 @@ public class CallTypeIconsView extends View {
         }
     }
 
-    private void setText(String text) {
-        mCallCountText = text;
-    }
-
     private static class IconResources {
         public final Drawable incoming;
         public final Drawable outgoing;
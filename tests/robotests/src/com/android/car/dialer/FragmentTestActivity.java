@@ -23,6 +23,7 @@ import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
 
 import com.android.car.dialer.ui.common.DialerBaseFragment;
+import com.android.car.dialer.ui.common.SharedRecycledViewPool;
 
 /**
  * An activity that is used for testing fragments. A unit test starts this activity, adds a fragment
@@ -53,6 +54,12 @@ public class FragmentTestActivity extends FragmentActivity implements
                 .commit();
     }
 
+    @Nullable
+    @Override
+    public SharedRecycledViewPool getSharedRecycledViewPool() {
+        return null;
+    }
+
     public void showDialog(DialogFragment dialogFragment, @Nullable String tag) {
         dialogFragment.show(getSupportFragmentManager(), tag);
     }
@@ -31,10 +31,14 @@ import android.content.Context;
 import android.telecom.CallAudioState;
 
 import com.android.car.dialer.bluetooth.UiBluetoothMonitor;
+import com.android.car.dialer.notification.CallerIdCache;
 import com.android.car.dialer.notification.InCallNotificationController;
 import com.android.car.dialer.notification.MissedCallNotificationController;
 import com.android.car.dialer.telecom.InCallServiceImpl;
+import com.android.car.dialer.telecom.PhoneAccountModel;
+import com.android.car.dialer.telecom.TelecomJournal;
 import com.android.car.dialer.telecom.UiCallManager;
+import com.android.car.dialer.ui.activecall.InCallUiWarmer;
 import com.android.car.dialer.testutils.ShadowCar;
 
 /** Robolectric runtime application for Dialer. Must be Test + application class name. */
@@ -52,9 +56,13 @@ public class TestDialerApplication extends Application {
         super.onCreate();
         shadowOf(this).setSystemService(
                 Context.NOTIFICATION_SERVICE, mock(NotificationManager.class));
+        PhoneAccountModel.init(this);
         UiBluetoothMonitor.init(this);
+        CallerIdCache.init(this);
         InCallNotificationController.init(this);
         MissedCallNotificationController.init(this);
+        TelecomJournal.init(this);
+        InCallUiWarmer.init(this);
 
         mLocalBinder = mock(InCallServiceImpl.LocalBinder.class);
         shadowOf(this).setComponentNameAndServiceForBindService(
@@ -92,6 +100,10 @@ public class TestDialerApplication extends Application {
     public void onTerminate() {
         super.onTerminate();
         InCallNotificationController.tearDown();
+        CallerIdCache.tearDown();
+        InCallUiWarmer.tearDown();
+        TelecomJournal.tearDown();
+        PhoneAccountModel.tearDown();
         MissedCallNotificationController.get().tearDown();
         ShadowCar.setCar(null);
     }
@@ -46,6 +46,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.robolectric.shadows.ShadowLooper;
 
 @RunWith(CarDialerRobolectricTestRunner.class)
 public class CallDetailLiveDataTest {
@@ -109,6 +110,8 @@ public class CallDetailLiveDataTest {
 
         when(mMockCall.getDetails()).thenReturn(updatedDetails);
         mCallbackCaptor.getValue().onDetailsChanged(mMockCall, updatedDetails);
+        // Details changes are published on the next frame.
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
 
         CallDetail observedValue = valueCaptor.getValue();
         assertThat(observedValue.getNumber()).isEqualTo(number);
@@ -40,6 +40,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.robolectric.shadows.ShadowLooper;
 
 @RunWith(CarDialerRobolectricTestRunner.class)
 public class CallStateLiveDataTest {
@@ -96,7 +97,10 @@ public class CallStateLiveDataTest {
         mLifecycleRegistry.handleLifecycleEvent(Lifecycle.Event.ON_START);
 
         assertThat(valueCaptor.getValue()).isEqualTo(Call.STATE_NEW);
+        when(mMockCall.getState()).thenReturn(Call.STATE_ACTIVE);
         mCallbackCaptor.getValue().onStateChanged(mMockCall, Call.STATE_ACTIVE);
+        // State changes are published on the next frame.
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
         assertThat(valueCaptor.getValue()).isEqualTo(Call.STATE_ACTIVE);
     }
 
@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.notification;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.TelecomUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class CallerIdCacheTest {
+    private static final String NUMBER = "6505551234";
+    private static final String DISPLAY_NAME = "Test Name";
+
+    private CallerIdCache mCallerIdCache;
+    private MutableLiveData<List<Contact>> mContactsLiveData;
+    // The queries started by the cache, completed by the tests.
+    private final List<CompletableFuture<CallerIdCache.CallerId>> mQueries = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        mContactsLiveData = new MutableLiveData<>();
+        mCallerIdCache = new CallerIdCache(mContactsLiveData, number -> {
+            CompletableFuture<CallerIdCache.CallerId> query = new CompletableFuture<>();
+            mQueries.add(query);
+            return query;
+        }, Runnable::run);
+    }
+
+    @Test
+    public void testPeek_unknownNumber() {
+        assertThat(mCallerIdCache.peek(NUMBER)).isNull();
+    }
+
+    @Test
+    public void testResolve_sharesTheQueryAndCachesTheResult() throws Exception {
+        CompletableFuture<CallerIdCache.CallerId> first = mCallerIdCache.resolve(NUMBER);
+        CompletableFuture<CallerIdCache.CallerId> second = mCallerIdCache.resolve(NUMBER);
+        assertThat(mQueries).hasSize(1);
+        assertThat(first.isDone()).isFalse();
+
+        CallerIdCache.CallerId callerId = completeQuery(0);
+
+        assertThat(first.get()).isSameInstanceAs(callerId);
+        assertThat(second.get()).isSameInstanceAs(callerId);
+        assertThat(callerId.isResolved()).isTrue();
+        assertThat(mCallerIdCache.peek(NUMBER)).isSameInstanceAs(callerId);
+        assertThat(mCallerIdCache.resolve(NUMBER).isDone()).isTrue();
+        assertThat(mQueries).hasSize(1);
+    }
+
+    @Test
+    public void testResolve_cancelDoesNotCancelOtherCallers() throws Exception {
+        CompletableFuture<CallerIdCache.CallerId> first = mCallerIdCache.resolve(NUMBER);
+        CompletableFuture<CallerIdCache.CallerId> second = mCallerIdCache.resolve(NUMBER);
+        first.cancel(true);
+
+        CallerIdCache.CallerId callerId = completeQuery(0);
+
+        assertThat(second.get()).isSameInstanceAs(callerId);
+        assertThat(mCallerIdCache.peek(NUMBER)).isSameInstanceAs(callerId);
+    }
+
+    @Test
+    public void testRefresh_dropsTheCachedResult() throws Exception {
+        CompletableFuture<CallerIdCache.CallerId> resolved = mCallerIdCache.resolve(NUMBER);
+        completeQuery(0);
+
+        CompletableFuture<CallerIdCache.CallerId> refreshed = mCallerIdCache.refresh(NUMBER);
+        assertThat(mCallerIdCache.peek(NUMBER)).isNull();
+        CallerIdCache.CallerId callerId = completeQuery(1);
+
+        assertThat(refreshed.get()).isSameInstanceAs(callerId);
+        assertThat(refreshed.get()).isNotSameInstanceAs(resolved.get());
+        assertThat(mCallerIdCache.peek(NUMBER)).isSameInstanceAs(callerId);
+    }
+
+    @Test
+    public void testContactsChanged_dropsTheCachedResult() {
+        mCallerIdCache.resolve(NUMBER);
+        completeQuery(0);
+
+        mContactsLiveData.setValue(Collections.emptyList());
+
+        assertThat(mCallerIdCache.peek(NUMBER)).isNull();
+        assertThat(mCallerIdCache.resolve(NUMBER).isDone()).isFalse();
+        assertThat(mQueries).hasSize(2);
+    }
+
+    @Test
+    public void testContactsChanged_doesNotCacheThePendingQuery() {
+        CompletableFuture<CallerIdCache.CallerId> pending = mCallerIdCache.resolve(NUMBER);
+
+        mContactsLiveData.setValue(Collections.emptyList());
+        CallerIdCache.CallerId stale = completeQuery(0);
+
+        assertThat(pending.join()).isSameInstanceAs(stale);
+        assertThat(mCallerIdCache.peek(NUMBER)).isNull();
+    }
+
+    private CallerIdCache.CallerId completeQuery(int index) {
+        CallerIdCache.CallerId callerId = new CallerIdCache.CallerId(NUMBER, DISPLAY_NAME,
+                mock(TelecomUtils.PhoneNumberInfo.class), /* avatarIcon= */ null);
+        mQueries.get(index).complete(callerId);
+        return callerId;
+    }
+}
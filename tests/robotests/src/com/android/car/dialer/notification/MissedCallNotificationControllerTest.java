@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.notification;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.core.util.Pair;
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.R;
+import com.android.car.dialer.livedata.CallHistoryLiveData;
+import com.android.car.telephony.common.PhoneCallLog;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class MissedCallNotificationControllerTest {
+    private static final String ACCOUNT_NAME = "00:11:22:33:44:55";
+    private static final String NUMBER = "6505551234";
+    private static final String OTHER_NUMBER = "6505554321";
+    private static final String TAG = ACCOUNT_NAME + "/" + NUMBER;
+    private static final String OTHER_TAG = ACCOUNT_NAME + "/" + OTHER_NUMBER;
+    private static final long TIMESTAMP = 1000;
+
+    private Context mContext;
+    private MissedCallNotificationController mMissedCallNotificationController;
+    private MutableLiveData<List<PhoneCallLog>> mUnreadMissedCallLiveData;
+    private NotificationManager mMockNotificationManager;
+    private List<String> mAvatarLoadedNumbers;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        // The test application provides a mock notification manager.
+        mMockNotificationManager =
+                (NotificationManager) mContext.getSystemService(Context.NOTIFICATION_SERVICE);
+        clearInvocations(mMockNotificationManager);
+
+        mUnreadMissedCallLiveData = new MutableLiveData<>();
+        mAvatarLoadedNumbers = new ArrayList<>();
+        mMissedCallNotificationController = new MissedCallNotificationController(mContext,
+                mUnreadMissedCallLiveData,
+                number -> {
+                    mAvatarLoadedNumbers.add(number);
+                    return CompletableFuture.completedFuture(new Pair<>(number, null));
+                },
+                number -> CompletableFuture.completedFuture(number),
+                Runnable::run);
+    }
+
+    @Test
+    public void testUnchangedCaller_isNotPostedAgain() {
+        mUnreadMissedCallLiveData.setValue(
+                Collections.singletonList(createCallLog(NUMBER, 1, TIMESTAMP)));
+        mUnreadMissedCallLiveData.setValue(
+                Collections.singletonList(createCallLog(NUMBER, 1, TIMESTAMP)));
+
+        verify(mMockNotificationManager, times(1)).notify(eq(TAG), eq(
+                MissedCallNotificationController.NOTIFICATION_ID), any(Notification.class));
+    }
+
+    @Test
+    public void testChangedCallCount_isPostedAgain() {
+        mUnreadMissedCallLiveData.setValue(
+                Collections.singletonList(createCallLog(NUMBER, 1, TIMESTAMP)));
+        mUnreadMissedCallLiveData.setValue(
+                Collections.singletonList(createCallLog(NUMBER, 2, TIMESTAMP)));
+
+        verify(mMockNotificationManager, times(2)).notify(eq(TAG), eq(
+                MissedCallNotificationController.NOTIFICATION_ID), any(Notification.class));
+    }
+
+    @Test
+    public void testChangedTimestamp_isPostedAgain() {
+        mUnreadMissedCallLiveData.setValue(
+                Collections.singletonList(createCallLog(NUMBER, 1, TIMESTAMP)));
+        mUnreadMissedCallLiveData.setValue(
+                Collections.singletonList(createCallLog(NUMBER, 1, TIMESTAMP + 1)));
+
+        verify(mMockNotificationManager, times(2)).notify(eq(TAG), eq(
+                MissedCallNotificationController.NOTIFICATION_ID), any(Notification.class));
+    }
+
+    @Test
+    public void testRemovedCaller_isCancelled() {
+        mUnreadMissedCallLiveData.setValue(Arrays.asList(
+                createCallLog(NUMBER, 1, TIMESTAMP),
+                createCallLog(OTHER_NUMBER, 1, TIMESTAMP)));
+        mUnreadMissedCallLiveData.setValue(
+                Collections.singletonList(createCallLog(NUMBER, 1, TIMESTAMP)));
+
+        verify(mMockNotificationManager).cancel(OTHER_TAG,
+                MissedCallNotificationController.NOTIFICATION_ID);
+        verify(mMockNotificationManager, never()).cancel(TAG,
+                MissedCallNotificationController.NOTIFICATION_ID);
+        verify(mMockNotificationManager, times(1)).notify(eq(TAG), eq(
+                MissedCallNotificationController.NOTIFICATION_ID), any(Notification.class));
+    }
+
+    @Test
+    public void testCancelledNotification_staysCancelledUntilTheCallsChange() {
+        mUnreadMissedCallLiveData.setValue(
+                Collections.singletonList(createCallLog(NUMBER, 1, TIMESTAMP)));
+
+        mMissedCallNotificationController.cancelMissedCallNotification(TAG);
+        verify(mMockNotificationManager).cancel(TAG,
+                MissedCallNotificationController.NOTIFICATION_ID);
+        // The call log reloads before the calls are marked as read.
+        mUnreadMissedCallLiveData.setValue(
+                Collections.singletonList(createCallLog(NUMBER, 1, TIMESTAMP)));
+        verify(mMockNotificationManager, times(1)).notify(eq(TAG), eq(
+                MissedCallNotificationController.NOTIFICATION_ID), any(Notification.class));
+
+        mUnreadMissedCallLiveData.setValue(
+                Collections.singletonList(createCallLog(NUMBER, 2, TIMESTAMP + 1)));
+        verify(mMockNotificationManager, times(2)).notify(eq(TAG), eq(
+                MissedCallNotificationController.NOTIFICATION_ID), any(Notification.class));
+    }
+
+    @Test
+    public void testGrouping_everyCallerIsPostedAndOnlyTheMostRecentLoadAvatars() {
+        int maxGroupedNotifications = mContext.getResources().getInteger(
+                R.integer.config_max_grouped_missed_call_notifications);
+        List<PhoneCallLog> phoneCallLogs = new ArrayList<>();
+        // The call logs are sorted by the most recent call first.
+        for (int i = 0; i <= maxGroupedNotifications; i++) {
+            phoneCallLogs.add(createCallLog(getNumber(i), 1, TIMESTAMP - i));
+        }
+
+        mUnreadMissedCallLiveData.setValue(phoneCallLogs);
+
+        for (int i = 0; i <= maxGroupedNotifications; i++) {
+            Notification notification = verifyPosted(getTag(i), 1);
+            assertThat(notification.getGroup()).isNotNull();
+        }
+        assertThat(mAvatarLoadedNumbers).hasSize(maxGroupedNotifications);
+        assertThat(mAvatarLoadedNumbers).doesNotContain(getNumber(maxGroupedNotifications));
+
+        // Once a caller with an avatar is read, the next one is posted again with its avatar.
+        mUnreadMissedCallLiveData.setValue(
+                new ArrayList<>(phoneCallLogs.subList(1, phoneCallLogs.size())));
+
+        verify(mMockNotificationManager).cancel(getTag(0),
+                MissedCallNotificationController.NOTIFICATION_ID);
+        verifyPosted(getTag(maxGroupedNotifications), 2);
+        assertThat(mAvatarLoadedNumbers).contains(getNumber(maxGroupedNotifications));
+        for (int i = 1; i < maxGroupedNotifications; i++) {
+            verifyPosted(getTag(i), 1);
+        }
+    }
+
+    @Test
+    public void testSummary_postedForTwoCallersAndCancelledForOne() {
+        mUnreadMissedCallLiveData.setValue(
+                Collections.singletonList(createCallLog(NUMBER, 1, TIMESTAMP)));
+        verifyPosted(MissedCallNotificationController.SUMMARY_TAG, 0);
+
+        mUnreadMissedCallLiveData.setValue(Arrays.asList(
+                createCallLog(NUMBER, 1, TIMESTAMP),
+                createCallLog(OTHER_NUMBER, 2, TIMESTAMP - 1)));
+        Notification summary = verifyPosted(MissedCallNotificationController.SUMMARY_TAG, 1);
+        assertThat(summary.getGroup()).isNotNull();
+        assertThat(summary.flags & Notification.FLAG_GROUP_SUMMARY).isNotEqualTo(0);
+
+        // The summary is only posted again when its content changes.
+        mUnreadMissedCallLiveData.setValue(Arrays.asList(
+                createCallLog(NUMBER, 1, TIMESTAMP),
+                createCallLog(OTHER_NUMBER, 2, TIMESTAMP - 1)));
+        verifyPosted(MissedCallNotificationController.SUMMARY_TAG, 1);
+
+        mUnreadMissedCallLiveData.setValue(
+                Collections.singletonList(createCallLog(NUMBER, 1, TIMESTAMP)));
+        verify(mMockNotificationManager).cancel(MissedCallNotificationController.SUMMARY_TAG,
+                MissedCallNotificationController.NOTIFICATION_ID);
+    }
+
+    @Test
+    public void testSummary_deleteIntentReadsAllMissedCalls() {
+        mUnreadMissedCallLiveData.setValue(Arrays.asList(
+                createCallLog(NUMBER, 1, TIMESTAMP),
+                createCallLog(OTHER_NUMBER, 1, TIMESTAMP - 1)));
+
+        Notification summary = verifyPosted(MissedCallNotificationController.SUMMARY_TAG, 1);
+        Intent deleteIntent = shadowOf(summary.deleteIntent).getSavedIntent();
+        assertThat(deleteIntent.getAction()).isEqualTo(NotificationService.ACTION_READ_MISSED);
+        assertThat(deleteIntent.hasExtra(NotificationService.EXTRA_PHONE_NUMBER)).isFalse();
+        assertThat(deleteIntent.hasExtra(NotificationService.EXTRA_CALL_LOG_ID)).isFalse();
+        assertThat(deleteIntent.getStringExtra(NotificationService.EXTRA_NOTIFICATION_TAG))
+                .isEqualTo(MissedCallNotificationController.SUMMARY_TAG);
+    }
+
+    @Test
+    public void testSummaryDismissed_groupStaysCancelledUntilTheCallsChange() {
+        List<PhoneCallLog> phoneCallLogs = Arrays.asList(
+                createCallLog(NUMBER, 1, TIMESTAMP),
+                createCallLog(OTHER_NUMBER, 1, TIMESTAMP - 1));
+        mUnreadMissedCallLiveData.setValue(phoneCallLogs);
+
+        mMissedCallNotificationController.cancelMissedCallNotification(
+                MissedCallNotificationController.SUMMARY_TAG);
+        // The call log reloads before the calls are marked as read.
+        mUnreadMissedCallLiveData.setValue(phoneCallLogs);
+        verifyPosted(MissedCallNotificationController.SUMMARY_TAG, 1);
+        verifyPosted(TAG, 1);
+        verifyPosted(OTHER_TAG, 1);
+
+        mUnreadMissedCallLiveData.setValue(Arrays.asList(
+                createCallLog(NUMBER, 2, TIMESTAMP + 1),
+                createCallLog(OTHER_NUMBER, 1, TIMESTAMP - 1)));
+        verifyPosted(MissedCallNotificationController.SUMMARY_TAG, 2);
+        verifyPosted(TAG, 2);
+        verifyPosted(OTHER_TAG, 1);
+    }
+
+    /** Verifies the notification of the tag is posted the times, returns the last one. */
+    private Notification verifyPosted(String tag, int times) {
+        ArgumentCaptor<Notification> captor = ArgumentCaptor.forClass(Notification.class);
+        verify(mMockNotificationManager, times(times)).notify(eq(tag),
+                eq(MissedCallNotificationController.NOTIFICATION_ID), captor.capture());
+        return times == 0 ? null : captor.getValue();
+    }
+
+    private static String getNumber(int index) {
+        return "650555000" + index;
+    }
+
+    private static String getTag(int index) {
+        return ACCOUNT_NAME + "/" + getNumber(index);
+    }
+
+    private static PhoneCallLog createCallLog(String number, int callCount, long timestamp) {
+        List<PhoneCallLog.Record> records = new ArrayList<>();
+        for (int i = 0; i < callCount; i++) {
+            records.add(new PhoneCallLog.Record(timestamp - i,
+                    CallHistoryLiveData.CallType.MISSED_TYPE));
+        }
+        PhoneCallLog phoneCallLog = mock(PhoneCallLog.class);
+        when(phoneCallLog.getAccountName()).thenReturn(ACCOUNT_NAME);
+        when(phoneCallLog.getPhoneNumberString()).thenReturn(number);
+        when(phoneCallLog.getAllCallRecords()).thenReturn(records);
+        when(phoneCallLog.getLastCallEndTimestamp()).thenReturn(timestamp);
+        return phoneCallLog;
+    }
+}
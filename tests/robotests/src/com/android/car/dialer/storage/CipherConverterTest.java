@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.storage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/** Tests for {@link CipherConverter}. */
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class CipherConverterTest {
+    private static final int ROW_COUNT = 500;
+    private static final int GCM_IV_LENGTH = 12;
+    private static final String PHONE_NUMBER = "+16502530000";
+
+    @Rule
+    public final SoftwareCipherKeyRule mSoftwareCipherKeyRule = new SoftwareCipherKeyRule();
+
+    private CipherConverter mCipherConverter;
+
+    @Before
+    public void setUp() {
+        mCipherConverter = new CipherConverter();
+    }
+
+    @Test
+    public void testEncrypt_keepsFormat() {
+        byte[] encryptedData = mCipherConverter.encrypt(new CipherWrapper<>(PHONE_NUMBER));
+
+        // Iv length, iv, then the encrypted number followed by the 16 bytes authentication tag.
+        assertThat((int) encryptedData[0]).isEqualTo(GCM_IV_LENGTH);
+        assertThat(encryptedData.length).isEqualTo(1 + GCM_IV_LENGTH + PHONE_NUMBER.length() + 16);
+        assertThat(mCipherConverter.decrypt(encryptedData).get()).isEqualTo(PHONE_NUMBER);
+    }
+
+    @Test
+    public void testDecrypt_invalidData() {
+        assertThat(mCipherConverter.decrypt(new byte[0])).isNull();
+        assertThat(mCipherConverter.decrypt(new byte[]{GCM_IV_LENGTH, 1, 2})).isNull();
+    }
+
+    @Test
+    public void testEncrypt_manyRows_roundTripWithUniqueIvs() {
+        Set<String> ivs = new HashSet<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            byte[] row = mCipherConverter.encrypt(new CipherWrapper<>(PHONE_NUMBER + i));
+
+            assertThat(ivs.add(Arrays.toString(Arrays.copyOfRange(row, 1, 1 + GCM_IV_LENGTH))))
+                    .isTrue();
+            assertThat(mCipherConverter.decrypt(row).get()).isEqualTo(PHONE_NUMBER + i);
+        }
+    }
+
+    @Test
+    public void testEncryptDecrypt_500Rows() {
+        // Warm up the cached key and cipher.
+        mCipherConverter.decrypt(mCipherConverter.encrypt(new CipherWrapper<>(PHONE_NUMBER)));
+
+        long start = System.nanoTime();
+        List<byte[]> rows = new ArrayList<>();
+        for (int i = 0; i < ROW_COUNT; i++) {
+            rows.add(mCipherConverter.encrypt(new CipherWrapper<>(PHONE_NUMBER + i)));
+        }
+        long encryptNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<String> phoneNumbers = new ArrayList<>();
+        for (byte[] row : rows) {
+            phoneNumbers.add(mCipherConverter.decrypt(row).get());
+        }
+        long decryptNanos = System.nanoTime() - start;
+        System.out.println("Encrypted " + ROW_COUNT + " rows in " + encryptNanos / 1000
+                + " us, decrypted them in " + decryptNanos / 1000 + " us");
+
+        for (int i = 0; i < ROW_COUNT; i++) {
+            assertThat(phoneNumbers.get(i)).isEqualTo(PHONE_NUMBER + i);
+        }
+    }
+}
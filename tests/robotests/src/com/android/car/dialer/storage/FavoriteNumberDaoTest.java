@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.storage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+import androidx.room.Room;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/** Tests for {@link FavoriteNumberDao}. */
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class FavoriteNumberDaoTest {
+    private static final String TABLE_NAME = "favorite_number_entity";
+    private static final String PHONE_NUMBER = "+16502530000";
+
+    @Rule
+    public final SoftwareCipherKeyRule mSoftwareCipherKeyRule = new SoftwareCipherKeyRule();
+
+    private FavoriteNumberDatabase mDatabase;
+    private FavoriteNumberDao mFavoriteNumberDao;
+    private int mInvalidationCount;
+
+    @Before
+    public void setUp() {
+        // Invalidations are dispatched on the calling thread, right after each transaction.
+        mDatabase = Room.inMemoryDatabaseBuilder(RuntimeEnvironment.application,
+                FavoriteNumberDatabase.class)
+                .allowMainThreadQueries()
+                .setQueryExecutor(Runnable::run)
+                .build();
+        mFavoriteNumberDao = mDatabase.favoriteNumberDao();
+    }
+
+    @After
+    public void tearDown() {
+        mDatabase.close();
+    }
+
+    @Test
+    public void testDeleteAndUpdateAll_notifiesObserversOnce() {
+        mFavoriteNumberDao.insertAll(Arrays.asList(createFavoriteNumber(PHONE_NUMBER + 1),
+                createFavoriteNumber(PHONE_NUMBER + 2), createFavoriteNumber(PHONE_NUMBER + 3)));
+        List<FavoriteNumberEntity> favoriteNumbers = mFavoriteNumberDao.getAll();
+        FavoriteNumberEntity staleFavoriteNumber = favoriteNumbers.get(1);
+        staleFavoriteNumber.setPhoneNumberIndex("rewritten-index");
+        mDatabase.getInvalidationTracker().addObserver(
+                new InvalidationTracker.Observer(TABLE_NAME) {
+                    @Override
+                    public void onInvalidated(@NonNull Set<String> tables) {
+                        mInvalidationCount++;
+                    }
+                });
+
+        mFavoriteNumberDao.deleteAndUpdateAll(Collections.singletonList(favoriteNumbers.get(0)),
+                Collections.singletonList(staleFavoriteNumber));
+
+        assertThat(mInvalidationCount).isEqualTo(1);
+        List<FavoriteNumberEntity> remaining = mFavoriteNumberDao.getAll();
+        assertThat(remaining).hasSize(2);
+        assertThat(remaining.get(0).getPhoneNumberIndex()).isEqualTo("rewritten-index");
+    }
+
+    private static FavoriteNumberEntity createFavoriteNumber(String phoneNumber) {
+        FavoriteNumberEntity favoriteNumber = new FavoriteNumberEntity();
+        favoriteNumber.setPhoneNumber(new CipherWrapper<>(phoneNumber));
+        return favoriteNumber;
+    }
+}
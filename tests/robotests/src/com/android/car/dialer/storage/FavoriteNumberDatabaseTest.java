@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.storage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+import javax.crypto.KeyGenerator;
+
+/** Tests for the migrations of {@link FavoriteNumberDatabase}. */
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class FavoriteNumberDatabaseTest {
+    private static final String PHONE_NUMBER = "+16502530000";
+
+    @Rule
+    public final SoftwareCipherKeyRule mSoftwareCipherKeyRule = new SoftwareCipherKeyRule();
+
+    private PhoneNumberBlindIndex mPhoneNumberBlindIndex;
+    private SupportSQLiteOpenHelper mOpenHelper;
+    private SupportSQLiteDatabase mDatabase;
+
+    @Before
+    public void setUp() throws Exception {
+        Context context = RuntimeEnvironment.application;
+        mPhoneNumberBlindIndex = new PhoneNumberBlindIndex(context,
+                KeyGenerator.getInstance("HmacSHA256").generateKey());
+
+        // The schema of version 1, before the blind index was added.
+        mOpenHelper = new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration.builder(context)
+                        .name(null)
+                        .callback(new SupportSQLiteOpenHelper.Callback(1) {
+                            @Override
+                            public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                                db.execSQL("CREATE TABLE favorite_number_entity ("
+                                        + "mIndex INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                                        + "mContactLookupKey TEXT, "
+                                        + "mContactId INTEGER NOT NULL, "
+                                        + "mPhoneNumber BLOB, "
+                                        + "mAccountName TEXT, "
+                                        + "mAccountType TEXT)");
+                            }
+
+                            @Override
+                            public void onUpgrade(@NonNull SupportSQLiteDatabase db,
+                                    int oldVersion, int newVersion) {
+                            }
+                        })
+                        .build());
+        mDatabase = mOpenHelper.getWritableDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        mOpenHelper.close();
+    }
+
+    @Test
+    public void testMigration1To2_computesTheBlindIndex() {
+        insertFavoriteNumber(1, new CipherConverter().encrypt(new CipherWrapper<>(PHONE_NUMBER)));
+        insertFavoriteNumber(2, null);
+
+        FavoriteNumberDatabase.createMigration1To2(mPhoneNumberBlindIndex).migrate(mDatabase);
+
+        try (Cursor cursor = mDatabase.query(
+                "SELECT mPhoneNumberIndex FROM favorite_number_entity ORDER BY mIndex")) {
+            assertThat(cursor.moveToNext()).isTrue();
+            assertThat(cursor.getString(0))
+                    .isEqualTo(mPhoneNumberBlindIndex.compute(PHONE_NUMBER));
+            assertThat(cursor.moveToNext()).isTrue();
+            assertThat(cursor.isNull(0)).isTrue();
+        }
+    }
+
+    private void insertFavoriteNumber(int index, byte[] encryptedPhoneNumber) {
+        ContentValues values = new ContentValues();
+        values.put("mIndex", index);
+        values.put("mContactId", index);
+        values.put("mPhoneNumber", encryptedPhoneNumber);
+        mDatabase.insert("favorite_number_entity", SQLiteDatabase.CONFLICT_NONE, values);
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.storage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.provider.ContactsContract;
+
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.InMemoryPhoneBook;
+import com.android.car.telephony.common.PhoneNumber;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.Robolectric;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.crypto.KeyGenerator;
+
+/** Tests for {@link FavoriteNumberRepository}. */
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class FavoriteNumberRepositoryTest {
+    private static final String ACCOUNT_NAME = "00:11:22:33:44:55";
+    private static final String OTHER_ACCOUNT_NAME = "66:77:88:99:AA:BB";
+    private static final String LOOKUP_KEY = "lookup-key";
+    private static final String OTHER_LOOKUP_KEY = "other-lookup-key";
+    private static final String PHONE_NUMBER = "6502530000";
+    private static final String OTHER_PHONE_NUMBER = "6502530001";
+    private static final String STALE_INDEX = "stale-index";
+
+    @Rule
+    public final SoftwareCipherKeyRule mSoftwareCipherKeyRule = new SoftwareCipherKeyRule();
+
+    private Context mContext;
+    private FavoriteNumberRepository mFavoriteNumberRepository;
+    private PhoneNumberBlindIndex mPhoneNumberBlindIndex;
+    private PhoneNumber mPhoneNumber;
+    private MutableLiveData<List<FavoriteNumberEntity>> mFavoriteNumbers;
+    @Mock
+    private FavoriteNumberDao mMockFavoriteNumberDao;
+    @Mock
+    private Contact mMockContact;
+    @Captor
+    private ArgumentCaptor<List<FavoriteNumberEntity>> mEntitiesCaptor;
+    @Captor
+    private ArgumentCaptor<List<FavoriteNumberEntity>> mUpdatedEntitiesCaptor;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+        InMemoryPhoneBook.init(mContext);
+
+        mPhoneNumberBlindIndex = new PhoneNumberBlindIndex(mContext,
+                KeyGenerator.getInstance("HmacSHA256").generateKey());
+
+        mFavoriteNumbers = new MutableLiveData<>();
+        when(mMockFavoriteNumberDao.loadAll()).thenReturn(mFavoriteNumbers);
+        when(mMockContact.getLookupKey()).thenReturn(LOOKUP_KEY);
+        mPhoneNumber = PhoneNumber.newInstance(mContext, PHONE_NUMBER, 0, null, false, 0,
+                ACCOUNT_NAME, null, 0);
+
+        mFavoriteNumberRepository = new FavoriteNumberRepository(mContext,
+                mMockFavoriteNumberDao, mPhoneNumberBlindIndex,
+                MoreExecutors.newDirectExecutorService());
+    }
+
+    @After
+    public void tearDown() {
+        InMemoryPhoneBook.tearDown();
+    }
+
+    @Test
+    public void testRemoveFromFavorite_indexHit_deletesWithoutMatchingAllEntries() {
+        FavoriteNumberEntity favoriteNumber = createFavoriteNumber(LOOKUP_KEY, PHONE_NUMBER,
+                mPhoneNumberBlindIndex.compute(PHONE_NUMBER));
+        when(mMockFavoriteNumberDao.findByNumber(favoriteNumber.getPhoneNumberIndex(),
+                ACCOUNT_NAME)).thenReturn(Collections.singletonList(favoriteNumber));
+
+        mFavoriteNumberRepository.removeFromFavorite(mMockContact, mPhoneNumber);
+
+        verify(mMockFavoriteNumberDao).deleteAndUpdateAll(mEntitiesCaptor.capture(),
+                mUpdatedEntitiesCaptor.capture());
+        assertThat(mEntitiesCaptor.getValue()).containsExactly(favoriteNumber);
+        assertThat(mUpdatedEntitiesCaptor.getValue()).isEmpty();
+        verify(mMockFavoriteNumberDao, never()).getAll();
+    }
+
+    @Test
+    public void testRemoveFromFavorite_severalNumbers_deletesThemInOneTransaction() {
+        PhoneNumber otherPhoneNumber = PhoneNumber.newInstance(mContext, OTHER_PHONE_NUMBER, 0,
+                null, false, 0, ACCOUNT_NAME, null, 0);
+        FavoriteNumberEntity favoriteNumber = createFavoriteNumber(LOOKUP_KEY, PHONE_NUMBER,
+                mPhoneNumberBlindIndex.compute(PHONE_NUMBER));
+        FavoriteNumberEntity otherFavoriteNumber = createFavoriteNumber(LOOKUP_KEY,
+                OTHER_PHONE_NUMBER, mPhoneNumberBlindIndex.compute(OTHER_PHONE_NUMBER));
+        when(mMockFavoriteNumberDao.findByNumber(favoriteNumber.getPhoneNumberIndex(),
+                ACCOUNT_NAME)).thenReturn(Collections.singletonList(favoriteNumber));
+        when(mMockFavoriteNumberDao.findByNumber(otherFavoriteNumber.getPhoneNumberIndex(),
+                ACCOUNT_NAME)).thenReturn(Collections.singletonList(otherFavoriteNumber));
+
+        mFavoriteNumberRepository.removeFromFavorite(mMockContact,
+                Arrays.asList(mPhoneNumber, otherPhoneNumber));
+
+        verify(mMockFavoriteNumberDao).deleteAndUpdateAll(mEntitiesCaptor.capture(),
+                mUpdatedEntitiesCaptor.capture());
+        assertThat(mEntitiesCaptor.getValue())
+                .containsExactly(favoriteNumber, otherFavoriteNumber);
+        verify(mMockFavoriteNumberDao, never()).deleteAll(anyList());
+    }
+
+    @Test
+    public void testRemoveFromFavorite_staleIndex_deletesAndRewritesTheIndexes() {
+        FavoriteNumberEntity favoriteNumber = createFavoriteNumber(LOOKUP_KEY, PHONE_NUMBER,
+                STALE_INDEX);
+        FavoriteNumberEntity otherFavoriteNumber = createFavoriteNumber(OTHER_LOOKUP_KEY,
+                OTHER_PHONE_NUMBER, STALE_INDEX);
+        when(mMockFavoriteNumberDao.findByNumber(mPhoneNumberBlindIndex.compute(PHONE_NUMBER),
+                ACCOUNT_NAME)).thenReturn(Collections.emptyList());
+        when(mMockFavoriteNumberDao.getAll())
+                .thenReturn(Arrays.asList(favoriteNumber, otherFavoriteNumber));
+
+        mFavoriteNumberRepository.removeFromFavorite(mMockContact, mPhoneNumber);
+
+        verify(mMockFavoriteNumberDao).deleteAndUpdateAll(mEntitiesCaptor.capture(),
+                mUpdatedEntitiesCaptor.capture());
+        assertThat(mEntitiesCaptor.getValue()).containsExactly(favoriteNumber);
+        assertThat(mUpdatedEntitiesCaptor.getValue()).contains(otherFavoriteNumber);
+        assertThat(otherFavoriteNumber.getPhoneNumberIndex())
+                .isEqualTo(mPhoneNumberBlindIndex.compute(OTHER_PHONE_NUMBER));
+    }
+
+    @Test
+    public void testRemoveFromFavorite_indexMissOfAnotherContact_keepsTheEntry() {
+        FavoriteNumberEntity otherFavoriteNumber = createFavoriteNumber(OTHER_LOOKUP_KEY,
+                PHONE_NUMBER, mPhoneNumberBlindIndex.compute(PHONE_NUMBER));
+        when(mMockFavoriteNumberDao.findByNumber(otherFavoriteNumber.getPhoneNumberIndex(),
+                ACCOUNT_NAME)).thenReturn(Collections.singletonList(otherFavoriteNumber));
+        when(mMockFavoriteNumberDao.getAll())
+                .thenReturn(Collections.singletonList(otherFavoriteNumber));
+
+        mFavoriteNumberRepository.removeFromFavorite(mMockContact, mPhoneNumber);
+
+        verify(mMockFavoriteNumberDao, never()).deleteAndUpdateAll(anyList(), anyList());
+    }
+
+    @Test
+    public void testFavoriteContacts_queriesEachDeviceOnce() {
+        PhoneContactsProvider provider = Robolectric.setupContentProvider(
+                PhoneContactsProvider.class, ContactsContract.AUTHORITY);
+        List<FavoriteNumberEntity> favoriteNumbers = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            FavoriteNumberEntity favoriteNumber = createFavoriteNumber("lookup-key-" + i,
+                    PHONE_NUMBER, /* phoneNumberIndex= */null);
+            favoriteNumber.setAccountName(i % 2 == 0 ? ACCOUNT_NAME : OTHER_ACCOUNT_NAME);
+            favoriteNumbers.add(favoriteNumber);
+        }
+
+        mFavoriteNumbers.setValue(favoriteNumbers);
+
+        assertThat(provider.mQueriedAccounts).containsExactly(ACCOUNT_NAME, OTHER_ACCOUNT_NAME);
+        assertThat(provider.mLookupKeysByAccount.get(ACCOUNT_NAME)).hasSize(25);
+        assertThat(provider.mLookupKeysByAccount.get(OTHER_ACCOUNT_NAME)).hasSize(25);
+        assertThat(provider.mProjections).containsExactly(
+                FavoriteNumberRepository.PHONE_PROJECTION,
+                FavoriteNumberRepository.PHONE_PROJECTION);
+    }
+
+    private FavoriteNumberEntity createFavoriteNumber(String lookupKey, String phoneNumber,
+            String phoneNumberIndex) {
+        FavoriteNumberEntity favoriteNumber = new FavoriteNumberEntity();
+        favoriteNumber.setContactLookupKey(lookupKey);
+        favoriteNumber.setPhoneNumber(new CipherWrapper<>(phoneNumber));
+        favoriteNumber.setPhoneNumberIndex(phoneNumberIndex);
+        favoriteNumber.setAccountName(ACCOUNT_NAME);
+        return favoriteNumber;
+    }
+
+    /**
+     * Returns a phone number row for every lookup key of a query by account and lookup keys, and
+     * records these queries. Other queries, like the one loading the phone book, get no rows.
+     */
+    public static class PhoneContactsProvider extends ContentProvider {
+        private static final String ACCOUNT_SELECTION =
+                ContactsContract.RawContacts.ACCOUNT_NAME + " = ?";
+
+        private final List<String> mQueriedAccounts = new ArrayList<>();
+        private final Map<String, List<String>> mLookupKeysByAccount = new HashMap<>();
+        private final List<String[]> mProjections = new ArrayList<>();
+
+        @Override
+        public boolean onCreate() {
+            return true;
+        }
+
+        @Override
+        public Cursor query(Uri uri, String[] projection, String selection,
+                String[] selectionArgs, String sortOrder) {
+            MatrixCursor cursor = new MatrixCursor(
+                    projection != null ? projection : FavoriteNumberRepository.PHONE_PROJECTION);
+            if (selection == null || !selection.startsWith(ACCOUNT_SELECTION)) {
+                return cursor;
+            }
+            mProjections.add(projection);
+            String accountName = selectionArgs[0];
+            List<String> lookupKeys = Arrays.asList(selectionArgs)
+                    .subList(1, selectionArgs.length);
+            mQueriedAccounts.add(accountName);
+            mLookupKeysByAccount.put(accountName, lookupKeys);
+
+            for (String lookupKey : lookupKeys) {
+                cursor.newRow()
+                        .add(ContactsContract.Data.LOOKUP_KEY, lookupKey)
+                        .add(ContactsContract.Data.MIMETYPE,
+                                ContactsContract.CommonDataKinds.Phone.CONTENT_ITEM_TYPE)
+                        .add(ContactsContract.Data.DISPLAY_NAME_PRIMARY, lookupKey)
+                        .add(ContactsContract.RawContacts.ACCOUNT_NAME, accountName)
+                        .add(ContactsContract.CommonDataKinds.Phone.NUMBER, PHONE_NUMBER);
+            }
+            return cursor;
+        }
+
+        @Override
+        public String getType(Uri uri) {
+            return null;
+        }
+
+        @Override
+        public Uri insert(Uri uri, ContentValues values) {
+            return null;
+        }
+
+        @Override
+        public int delete(Uri uri, String selection, String[] selectionArgs) {
+            return 0;
+        }
+
+        @Override
+        public int update(Uri uri, ContentValues values, String selection,
+                String[] selectionArgs) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.storage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/** Tests for {@link FavoriteTileCache}. */
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class FavoriteTileCacheTest {
+    private static final String DEVICE_ADDRESS = "00:11:22:33:44:55";
+    private static final String OTHER_DEVICE_ADDRESS = "66:77:88:99:AA:BB";
+
+    private FavoriteTileCache mFavoriteTileCache;
+
+    @Rule
+    public final SoftwareCipherKeyRule mSoftwareCipherKeyRule = new SoftwareCipherKeyRule();
+
+    @Before
+    public void setUp() {
+        mFavoriteTileCache = new FavoriteTileCache(RuntimeEnvironment.application);
+    }
+
+    @Test
+    public void testSaveAndLoad() {
+        FavoriteTile tile = new FavoriteTile("Phone favorites", "Jane Doe", "Doe, Jane", "JD",
+                "Mobile", "+16502530000", "lookup-key", DEVICE_ADDRESS, null);
+        FavoriteTile tileWithoutNumber = new FavoriteTile("Local favorites", "John Roe",
+                "Roe, John", null, "Multiple", null, null, null, null);
+        mFavoriteTileCache.save(DEVICE_ADDRESS, Arrays.asList(tile, tileWithoutNumber));
+
+        List<FavoriteTile> tiles = mFavoriteTileCache.load(DEVICE_ADDRESS);
+
+        assertThat(tiles).hasSize(2);
+        assertThat(tiles.get(0).getSection()).isEqualTo("Phone favorites");
+        assertThat(tiles.get(0).getDisplayName()).isEqualTo("Jane Doe");
+        assertThat(tiles.get(0).getDisplayNameAlt()).isEqualTo("Doe, Jane");
+        assertThat(tiles.get(0).getInitials()).isEqualTo("JD");
+        assertThat(tiles.get(0).getLabel()).isEqualTo("Mobile");
+        assertThat(tiles.get(0).getNumber()).isEqualTo("+16502530000");
+        assertThat(tiles.get(0).getLookupKey()).isEqualTo("lookup-key");
+        assertThat(tiles.get(0).getAccountName()).isEqualTo(DEVICE_ADDRESS);
+        assertThat(tiles.get(0).getAvatar()).isNull();
+        assertThat(tiles.get(1).getNumber()).isNull();
+        assertThat(tiles.get(1).getLookupKey()).isNull();
+        assertThat(mFavoriteTileCache.load(OTHER_DEVICE_ADDRESS)).isEmpty();
+    }
+
+    @Test
+    public void testSaveAndLoad_contactWithoutName() {
+        FavoriteTile tile = new FavoriteTile("Phone favorites", null, null, null, "Mobile",
+                "+16502530000", "lookup-key", DEVICE_ADDRESS, null);
+        mFavoriteTileCache.save(DEVICE_ADDRESS, Collections.singletonList(tile));
+
+        List<FavoriteTile> tiles = mFavoriteTileCache.load(DEVICE_ADDRESS);
+
+        assertThat(tiles).hasSize(1);
+        assertThat(tiles.get(0).getDisplayName()).isNull();
+        assertThat(tiles.get(0).getDisplayNameAlt()).isNull();
+        assertThat(tiles.get(0).getNumber()).isEqualTo("+16502530000");
+    }
+
+    @Test
+    public void testLoad_keyChanged() throws Exception {
+        mFavoriteTileCache.save(DEVICE_ADDRESS, Collections.singletonList(new FavoriteTile(
+                "Phone favorites", "Jane Doe", "Doe, Jane", null, null, null, null, null, null)));
+        mSoftwareCipherKeyRule.rotateKey();
+
+        assertThat(mFavoriteTileCache.load(DEVICE_ADDRESS)).isEmpty();
+    }
+
+    @Test
+    public void testCleanup() {
+        FavoriteTile tile = new FavoriteTile("Phone favorites", "Jane Doe", "Doe, Jane", null, null,
+                null, null, null, null);
+        mFavoriteTileCache.save(DEVICE_ADDRESS, Collections.singletonList(tile));
+        mFavoriteTileCache.save(OTHER_DEVICE_ADDRESS, Collections.singletonList(tile));
+
+        mFavoriteTileCache.cleanup(Collections.singleton(DEVICE_ADDRESS));
+
+        assertThat(mFavoriteTileCache.load(DEVICE_ADDRESS)).hasSize(1);
+        assertThat(mFavoriteTileCache.load(OTHER_DEVICE_ADDRESS)).isEmpty();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.storage;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.crypto.KeyGenerator;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class PhoneNumberBlindIndexTest {
+    private static final String PHONE_NUMBER = "6502530000";
+    private static final String OTHER_PHONE_NUMBER = "6502530001";
+
+    private PhoneNumberBlindIndex mPhoneNumberBlindIndex;
+
+    @Before
+    public void setUp() throws Exception {
+        mPhoneNumberBlindIndex = new PhoneNumberBlindIndex(RuntimeEnvironment.application,
+                KeyGenerator.getInstance("HmacSHA256").generateKey());
+    }
+
+    @Test
+    public void testCompute_reusedMac_sameNumberHasTheSameIndex() {
+        String index = mPhoneNumberBlindIndex.compute(PHONE_NUMBER);
+        String otherIndex = mPhoneNumberBlindIndex.compute(OTHER_PHONE_NUMBER);
+
+        assertThat(index).isNotNull();
+        assertThat(otherIndex).isNotEqualTo(index);
+        assertThat(mPhoneNumberBlindIndex.compute(PHONE_NUMBER)).isEqualTo(index);
+    }
+
+    @Test
+    public void testCompute_otherThread_sameNumberHasTheSameIndex() throws Exception {
+        String index = mPhoneNumberBlindIndex.compute(PHONE_NUMBER);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            assertThat(executorService.submit(
+                    () -> mPhoneNumberBlindIndex.compute(PHONE_NUMBER)).get()).isEqualTo(index);
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompute_emptyNumber_returnsNull() {
+        assertThat(mPhoneNumberBlindIndex.compute("")).isNull();
+        assertThat(mPhoneNumberBlindIndex.compute(null)).isNull();
+    }
+}
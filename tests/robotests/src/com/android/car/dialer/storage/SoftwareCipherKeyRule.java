@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.storage;
+
+import org.junit.rules.ExternalResource;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.KeyGenerator;
+
+/**
+ * Sets a software key on {@link CipherConverter} for the duration of a test. The key store isn't
+ * available in tests.
+ */
+public class SoftwareCipherKeyRule extends ExternalResource {
+    private static final String KEY_ALGORITHM = "AES";
+    private static final int KEY_SIZE = 256;
+
+    @Override
+    protected void before() throws GeneralSecurityException {
+        rotateKey();
+    }
+
+    @Override
+    protected void after() {
+        CipherConverter.setSecretKey(null);
+    }
+
+    /** Replaces the key with a new one, like the key store key being regenerated. */
+    public void rotateKey() throws GeneralSecurityException {
+        KeyGenerator keyGenerator = KeyGenerator.getInstance(KEY_ALGORITHM);
+        keyGenerator.init(KEY_SIZE);
+        CipherConverter.setSecretKey(keyGenerator.generateKey());
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.bluetooth.BluetoothDevice;
+import android.bluetooth.BluetoothHeadsetClient;
+import android.bluetooth.BluetoothProfile;
+import android.content.Intent;
+import android.telecom.CallAudioState;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.bluetooth.BluetoothHeadsetClientProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class AudioRouteStateTest {
+    private static final String ADDRESS = "00:11:22:33:44:55";
+
+    private AudioRouteState mAudioRouteState;
+    private List<BluetoothDevice> mConnectedDevices;
+    @Mock
+    private BluetoothHeadsetClientProvider mMockBluetoothHeadsetClientProvider;
+    @Mock
+    private BluetoothHeadsetClient mMockBluetoothHeadsetClient;
+    @Mock
+    private BluetoothDevice mMockBluetoothDevice;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mMockBluetoothHeadsetClientProvider.get()).thenReturn(mMockBluetoothHeadsetClient);
+        when(mMockBluetoothDevice.getAddress()).thenReturn(ADDRESS);
+        mConnectedDevices = Collections.singletonList(mMockBluetoothDevice);
+        when(mMockBluetoothHeadsetClient.getAudioState(mMockBluetoothDevice))
+                .thenReturn(BluetoothHeadsetClient.STATE_AUDIO_DISCONNECTED);
+
+        mAudioRouteState = new AudioRouteState(mMockBluetoothHeadsetClientProvider);
+    }
+
+    @Test
+    public void testStartTracking_queriesOnlyTheAudioStateOnce() {
+        mAudioRouteState.startTracking();
+        mAudioRouteState.onHfpDeviceListChanged(mConnectedDevices);
+        mAudioRouteState.startTracking();
+        mAudioRouteState.onHfpDeviceListChanged(mConnectedDevices);
+
+        assertThat(mAudioRouteState.getBluetoothAudioRoute())
+                .isEqualTo(CallAudioState.ROUTE_EARPIECE);
+        verify(mMockBluetoothHeadsetClient, never()).getConnectedDevices();
+        verify(mMockBluetoothHeadsetClient).getAudioState(mMockBluetoothDevice);
+        assertThat(mAudioRouteState.getBinderCallCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAudioStateBroadcast_updatesTheRouteWithoutBinderCalls() {
+        mAudioRouteState.startTracking();
+        mAudioRouteState.onHfpDeviceListChanged(mConnectedDevices);
+        Intent intent = new Intent(BluetoothHeadsetClient.ACTION_AUDIO_STATE_CHANGED);
+        intent.putExtra(BluetoothDevice.EXTRA_DEVICE, mMockBluetoothDevice);
+        intent.putExtra(BluetoothProfile.EXTRA_STATE, BluetoothHeadsetClient.STATE_AUDIO_CONNECTED);
+
+        mAudioRouteState.onHfpAudioStateChanged(intent);
+
+        assertThat(mAudioRouteState.getBluetoothAudioRoute())
+                .isEqualTo(CallAudioState.ROUTE_BLUETOOTH);
+        verify(mMockBluetoothHeadsetClient, times(1)).getAudioState(mMockBluetoothDevice);
+    }
+
+    @Test
+    public void testCallAudioRouteChanged_refreshesTheCachedRoute() {
+        mAudioRouteState.startTracking();
+        mAudioRouteState.onHfpDeviceListChanged(mConnectedDevices);
+        mAudioRouteState.onCallAudioStateChanged(new CallAudioState(false,
+                CallAudioState.ROUTE_EARPIECE, CallAudioState.ROUTE_ALL));
+        assertThat(mAudioRouteState.getBluetoothAudioRoute())
+                .isEqualTo(CallAudioState.ROUTE_EARPIECE);
+        when(mMockBluetoothHeadsetClient.getAudioState(mMockBluetoothDevice))
+                .thenReturn(BluetoothHeadsetClient.STATE_AUDIO_CONNECTED);
+
+        mAudioRouteState.onCallAudioStateChanged(new CallAudioState(false,
+                CallAudioState.ROUTE_BLUETOOTH, CallAudioState.ROUTE_ALL));
+
+        assertThat(mAudioRouteState.getBluetoothAudioRoute())
+                .isEqualTo(CallAudioState.ROUTE_BLUETOOTH);
+        verify(mMockBluetoothHeadsetClient, times(2)).getAudioState(mMockBluetoothDevice);
+    }
+
+    @Test
+    public void testCallAudioMuteChanged_keepsTheCachedRoute() {
+        mAudioRouteState.startTracking();
+        mAudioRouteState.onHfpDeviceListChanged(mConnectedDevices);
+        mAudioRouteState.onCallAudioStateChanged(new CallAudioState(false,
+                CallAudioState.ROUTE_EARPIECE, CallAudioState.ROUTE_ALL));
+
+        mAudioRouteState.onCallAudioStateChanged(new CallAudioState(true,
+                CallAudioState.ROUTE_EARPIECE, CallAudioState.ROUTE_ALL));
+
+        verify(mMockBluetoothHeadsetClient, times(1)).getAudioState(mMockBluetoothDevice);
+    }
+
+    @Test
+    public void testGetBluetoothAudioRoute_countsOnlyTheReplacedBinderCalls() {
+        mAudioRouteState.startTracking();
+        mAudioRouteState.onHfpDeviceListChanged(mConnectedDevices);
+        mAudioRouteState.getBluetoothAudioRoute();
+        assertThat(mAudioRouteState.getAvoidedBinderCallCount()).isEqualTo(2);
+
+        mAudioRouteState.onHfpDeviceListChanged(Collections.emptyList());
+        mAudioRouteState.getBluetoothAudioRoute();
+        assertThat(mAudioRouteState.getAvoidedBinderCallCount()).isEqualTo(3);
+
+        when(mMockBluetoothHeadsetClientProvider.get()).thenReturn(null);
+        mAudioRouteState.getBluetoothAudioRoute();
+        assertThat(mAudioRouteState.getAvoidedBinderCallCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testAudioStateBroadcastWithoutExtras_queriesTheRoute() {
+        mAudioRouteState.startTracking();
+        mAudioRouteState.onHfpDeviceListChanged(mConnectedDevices);
+        when(mMockBluetoothHeadsetClient.getAudioState(mMockBluetoothDevice))
+                .thenReturn(BluetoothHeadsetClient.STATE_AUDIO_CONNECTED);
+
+        mAudioRouteState.onHfpAudioStateChanged(
+                new Intent(BluetoothHeadsetClient.ACTION_AUDIO_STATE_CHANGED));
+
+        assertThat(mAudioRouteState.getBluetoothAudioRoute())
+                .isEqualTo(CallAudioState.ROUTE_BLUETOOTH);
+    }
+
+    @Test
+    public void testDeviceDisconnected_routesToEarpiece() {
+        mAudioRouteState.startTracking();
+        mAudioRouteState.onHfpDeviceListChanged(mConnectedDevices);
+
+        mAudioRouteState.onHfpDeviceListChanged(Collections.emptyList());
+
+        assertThat(mAudioRouteState.getBluetoothAudioRoute())
+                .isEqualTo(CallAudioState.ROUTE_EARPIECE);
+    }
+
+    @Test
+    public void testStopTracking() {
+        mAudioRouteState.startTracking();
+        mAudioRouteState.startTracking();
+
+        mAudioRouteState.stopTracking();
+        assertThat(mAudioRouteState.isTracking()).isTrue();
+        mAudioRouteState.stopTracking();
+        assertThat(mAudioRouteState.isTracking()).isFalse();
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.shadows.ShadowLooper;
+
+/**
+ * Tests for {@link CallEventCoalescer}.
+ */
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class CallEventCoalescerTest {
+    private static final int BURST_SIZE = 50;
+
+    private CallEventCoalescer mCallEventCoalescer;
+    private int mStatePublishCount;
+    private int mDetailPublishCount;
+    private final Runnable mPublishState = () -> mStatePublishCount++;
+    private final Runnable mPublishDetail = () -> mDetailPublishCount++;
+
+    @Before
+    public void setUp() {
+        mCallEventCoalescer = CallEventCoalescer.get();
+    }
+
+    @Test
+    public void testBurst_publishesOncePerFrame() {
+        long rawEventCount = mCallEventCoalescer.getRawEventCount();
+        long publishedEventCount = mCallEventCoalescer.getPublishedEventCount();
+
+        for (int i = 0; i < BURST_SIZE; i++) {
+            mCallEventCoalescer.post(mPublishState);
+            mCallEventCoalescer.post(mPublishDetail);
+        }
+        assertThat(mStatePublishCount).isEqualTo(0);
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertThat(mStatePublishCount).isEqualTo(1);
+        assertThat(mDetailPublishCount).isEqualTo(1);
+        assertThat(mCallEventCoalescer.getRawEventCount() - rawEventCount)
+                .isEqualTo(2 * BURST_SIZE);
+        assertThat(mCallEventCoalescer.getPublishedEventCount() - publishedEventCount)
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void testCancel() {
+        mCallEventCoalescer.post(mPublishState);
+        mCallEventCoalescer.post(mPublishDetail);
+        mCallEventCoalescer.cancel(mPublishState);
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertThat(mStatePublishCount).isEqualTo(0);
+        assertThat(mDetailPublishCount).isEqualTo(1);
+    }
+}
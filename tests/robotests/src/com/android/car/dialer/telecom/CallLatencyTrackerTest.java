@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.telecom.Call;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class CallLatencyTrackerTest {
+    private CallLatencyTracker mCallLatencyTracker;
+    @Mock
+    private Call mMockCall;
+    @Mock
+    private Call mMockOtherCall;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mCallLatencyTracker = new CallLatencyTracker();
+    }
+
+    @Test
+    public void testMilestonesAreRecordedOncePerCall() {
+        mCallLatencyTracker.onCallAdded(mMockCall);
+        mCallLatencyTracker.onCallRouted(mMockCall, CallLatencyTracker.ROUTE_NOTIFICATION);
+        mCallLatencyTracker.mark(mMockCall, CallLatencyTracker.MILESTONE_NOTIFICATION_POSTED);
+        mCallLatencyTracker.mark(mMockCall, CallLatencyTracker.MILESTONE_NOTIFICATION_POSTED);
+
+        assertThat(mCallLatencyTracker.getRouteCount(CallLatencyTracker.ROUTE_NOTIFICATION))
+                .isEqualTo(1);
+        assertThat(mCallLatencyTracker.getCount(CallLatencyTracker.MILESTONE_ROUTED))
+                .isEqualTo(1);
+        assertThat(mCallLatencyTracker.getCount(
+                CallLatencyTracker.MILESTONE_NOTIFICATION_POSTED)).isEqualTo(1);
+    }
+
+    @Test
+    public void testPendingCalls_firstFrameStopsTracking() {
+        mCallLatencyTracker.onCallAdded(mMockCall);
+        mCallLatencyTracker.onCallAdded(mMockOtherCall);
+        mCallLatencyTracker.onCallRemoved(mMockOtherCall);
+
+        mCallLatencyTracker.markPendingCalls(CallLatencyTracker.MILESTONE_ACTIVITY_CREATED);
+        mCallLatencyTracker.markPendingCalls(CallLatencyTracker.MILESTONE_FIRST_FRAME);
+        mCallLatencyTracker.markPendingCalls(CallLatencyTracker.MILESTONE_FIRST_FRAME);
+        mCallLatencyTracker.mark(mMockCall, CallLatencyTracker.MILESTONE_CALLER_ID_RESOLVED);
+
+        assertThat(mCallLatencyTracker.getCount(CallLatencyTracker.MILESTONE_ACTIVITY_CREATED))
+                .isEqualTo(1);
+        assertThat(mCallLatencyTracker.getCount(CallLatencyTracker.MILESTONE_FIRST_FRAME))
+                .isEqualTo(1);
+        assertThat(mCallLatencyTracker.getCount(
+                CallLatencyTracker.MILESTONE_CALLER_ID_RESOLVED)).isEqualTo(0);
+    }
+
+    @Test
+    public void testDump() {
+        mCallLatencyTracker.onCallAdded(mMockCall);
+        mCallLatencyTracker.onCallRouted(mMockCall, CallLatencyTracker.ROUTE_FULL_SCREEN);
+
+        StringWriter stringWriter = new StringWriter();
+        mCallLatencyTracker.dump(new PrintWriter(stringWriter));
+
+        assertThat(stringWriter.toString()).contains("full screen=1");
+        assertThat(stringWriter.toString()).contains("routed: n=1");
+        assertThat(stringWriter.toString()).contains("first frame drawn: n=0");
+    }
+}
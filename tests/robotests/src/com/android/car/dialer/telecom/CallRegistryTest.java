@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.telecom.Call;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+/**
+ * Tests for {@link CallRegistry}.
+ */
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class CallRegistryTest {
+    private static final String ACTIVE_CALL_ID = "TC@1";
+    private static final String RINGING_CALL_ID = "TC@2";
+
+    private CallRegistry mCallRegistry;
+
+    @Mock
+    private Call mMockActiveCall;
+    @Mock
+    private Call.Details mMockActiveCallDetails;
+    @Mock
+    private Call mMockRingingCall;
+    @Mock
+    private Call.Details mMockRingingCallDetails;
+    @Mock
+    private Call mMockConferenceCall;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mCallRegistry = CallRegistry.get();
+
+        when(mMockActiveCall.getState()).thenReturn(Call.STATE_ACTIVE);
+        when(mMockActiveCall.getDetails()).thenReturn(mMockActiveCallDetails);
+        when(mMockActiveCallDetails.getTelecomCallId()).thenReturn(ACTIVE_CALL_ID);
+        when(mMockRingingCall.getState()).thenReturn(Call.STATE_RINGING);
+        when(mMockRingingCall.getDetails()).thenReturn(mMockRingingCallDetails);
+        when(mMockRingingCallDetails.getTelecomCallId()).thenReturn(RINGING_CALL_ID);
+        when(mMockConferenceCall.getState()).thenReturn(Call.STATE_ACTIVE);
+        when(mMockConferenceCall.getParent()).thenReturn(mMockActiveCall);
+    }
+
+    @After
+    public void tearDown() {
+        mCallRegistry.clear();
+    }
+
+    @Test
+    public void testSnapshot() {
+        mCallRegistry.onCallAdded(mMockActiveCall);
+        mCallRegistry.onCallAdded(mMockRingingCall);
+        mCallRegistry.onCallAdded(mMockConferenceCall);
+
+        CallRegistry.Snapshot snapshot = mCallRegistry.getSnapshot();
+        assertThat(snapshot.getCalls()).containsExactly(mMockActiveCall, mMockRingingCall,
+                mMockConferenceCall).inOrder();
+        assertThat(snapshot.getOngoingCalls()).containsExactly(mMockActiveCall,
+                mMockConferenceCall).inOrder();
+        assertThat(snapshot.getIncomingCall()).isEqualTo(mMockRingingCall);
+        assertThat(snapshot.getConferenceCalls()).containsExactly(mMockConferenceCall);
+        assertThat(mCallRegistry.getSnapshotLiveData().getValue()).isSameInstanceAs(snapshot);
+    }
+
+    @Test
+    public void testFindCall() {
+        mCallRegistry.onCallAdded(mMockActiveCall);
+        mCallRegistry.onCallAdded(mMockRingingCall);
+
+        assertThat(mCallRegistry.findCall(RINGING_CALL_ID)).isEqualTo(mMockRingingCall);
+
+        mCallRegistry.onCallRemoved(mMockRingingCall);
+        assertThat(mCallRegistry.findCall(RINGING_CALL_ID)).isNull();
+        assertThat(mCallRegistry.findCall(ACTIVE_CALL_ID)).isEqualTo(mMockActiveCall);
+    }
+
+    @Test
+    public void testStateChange_onlyPublishesChangedLists() {
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(
+                Call.Callback.class);
+        mCallRegistry.onCallAdded(mMockActiveCall);
+        verify(mMockActiveCall).registerCallback(callbackCaptor.capture());
+        CallRegistry.Snapshot snapshot = mCallRegistry.getSnapshot();
+
+        when(mMockActiveCall.getState()).thenReturn(Call.STATE_HOLDING);
+        callbackCaptor.getValue().onStateChanged(mMockActiveCall, Call.STATE_HOLDING);
+
+        assertThat(mCallRegistry.getSnapshot()).isSameInstanceAs(snapshot);
+    }
+
+    @Test
+    public void testDeclinedCall_staysIncomingUntilRemoved() {
+        ArgumentCaptor<Call.Callback> callbackCaptor = ArgumentCaptor.forClass(
+                Call.Callback.class);
+        mCallRegistry.onCallAdded(mMockRingingCall);
+        verify(mMockRingingCall).registerCallback(callbackCaptor.capture());
+
+        when(mMockRingingCall.getState()).thenReturn(Call.STATE_DISCONNECTED);
+        callbackCaptor.getValue().onStateChanged(mMockRingingCall, Call.STATE_DISCONNECTED);
+        assertThat(mCallRegistry.getSnapshot().getIncomingCall()).isEqualTo(mMockRingingCall);
+        assertThat(mCallRegistry.getSnapshot().getOngoingCalls()).isEmpty();
+
+        mCallRegistry.onCallRemoved(mMockRingingCall);
+        assertThat(mCallRegistry.getSnapshot().getIncomingCall()).isNull();
+    }
+}
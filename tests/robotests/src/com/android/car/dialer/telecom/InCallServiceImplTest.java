@@ -22,6 +22,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.robolectric.Shadows.shadowOf;
@@ -36,6 +37,7 @@ import android.telecom.CallAudioState;
 import com.android.car.dialer.CarDialerRobolectricTestRunner;
 import com.android.car.dialer.ui.activecall.InCallActivity;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -89,6 +91,11 @@ public class InCallServiceImplTest {
         when(mMockCallDetails.getTelecomCallId()).thenReturn(TELECOM_CALL_ID);
     }
 
+    @After
+    public void tearDown() {
+        CallRegistry.get().clear();
+    }
+
     @Test
     public void onActiveCallAdded_startInCallActivity() {
         when(mMockTelecomCall.getState()).thenReturn(Call.STATE_ACTIVE);
@@ -125,9 +132,10 @@ public class InCallServiceImplTest {
         verify(mActiveCallListChangedCallback).onTelecomCallAdded(callCaptor.capture());
         assertThat(callCaptor.getValue()).isEqualTo(mMockTelecomCall);
 
+        // One callback for the call registry, one for the heads up notification.
         ArgumentCaptor<Call.Callback> callbackListCaptor = ArgumentCaptor.forClass(
                 Call.Callback.class);
-        verify(mMockTelecomCall).registerCallback(callbackListCaptor.capture());
+        verify(mMockTelecomCall, times(2)).registerCallback(callbackListCaptor.capture());
 
         NotificationManager notificationManager = (NotificationManager) mContext.getSystemService(
                 Context.NOTIFICATION_SERVICE);
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.Application;
+import android.bluetooth.BluetoothHeadsetClient;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.telecom.PhoneAccount;
+import android.telecom.PhoneAccountHandle;
+import android.telecom.TelecomManager;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.Constants;
+import com.android.car.dialer.testutils.BroadcastReceiverVerifier;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowContextImpl;
+
+import java.util.Collections;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class PhoneAccountModelTest {
+    private static final String ADDRESS = "00:11:22:33:44:55";
+
+    private PhoneAccountModel mPhoneAccountModel;
+    private PhoneAccountHandle mPhoneAccountHandle;
+    @Mock
+    private TelecomManager mMockTelecomManager;
+    @Mock
+    private PhoneAccount mMockPhoneAccount;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        Context context = RuntimeEnvironment.application;
+        ShadowContextImpl shadowContext = Shadow.extract(((Application) context).getBaseContext());
+        shadowContext.setSystemService(Context.TELECOM_SERVICE, mMockTelecomManager);
+
+        mPhoneAccountHandle = new PhoneAccountHandle(new ComponentName("com.android.bluetooth",
+                Constants.HFP_CLIENT_CONNECTION_SERVICE_CLASS_NAME), ADDRESS);
+        when(mMockTelecomManager.getCallCapablePhoneAccounts())
+                .thenReturn(Collections.singletonList(mPhoneAccountHandle));
+        when(mMockTelecomManager.getPhoneAccount(mPhoneAccountHandle))
+                .thenReturn(mMockPhoneAccount);
+        when(mMockPhoneAccount.getCapabilities())
+                .thenReturn(PhoneAccount.CAPABILITY_CALL_PROVIDER);
+
+        mPhoneAccountModel = PhoneAccountModel.get();
+        mPhoneAccountModel.invalidate();
+    }
+
+    @Test
+    public void testLookups_loadTheAccountsOnce() {
+        assertThat(mPhoneAccountModel.getHfpPhoneAccountHandle(ADDRESS))
+                .isEqualTo(mPhoneAccountHandle);
+        assertThat(mPhoneAccountModel.getPhoneAccount(mPhoneAccountHandle))
+                .isEqualTo(mMockPhoneAccount);
+        assertThat(mPhoneAccountModel.hasCapability(PhoneAccount.CAPABILITY_CALL_PROVIDER))
+                .isTrue();
+        assertThat(mPhoneAccountModel.hasCapability(
+                PhoneAccount.CAPABILITY_PLACE_EMERGENCY_CALLS)).isFalse();
+
+        verify(mMockTelecomManager, times(1)).getCallCapablePhoneAccounts();
+    }
+
+    @Test
+    public void testSetUserSelectedOutgoingPhoneAccount() {
+        assertThat(mPhoneAccountModel.isBluetoothCall()).isFalse();
+
+        mPhoneAccountModel.setUserSelectedOutgoingPhoneAccount(mPhoneAccountHandle);
+
+        verify(mMockTelecomManager).setUserSelectedOutgoingPhoneAccount(mPhoneAccountHandle);
+        assertThat(mPhoneAccountModel.isBluetoothCall()).isTrue();
+    }
+
+    @Test
+    public void testHfpConnectionChanged_readsTheExternallySelectedAccount() {
+        assertThat(mPhoneAccountModel.isBluetoothCall()).isFalse();
+        when(mMockTelecomManager.getUserSelectedOutgoingPhoneAccount())
+                .thenReturn(mPhoneAccountHandle);
+
+        new BroadcastReceiverVerifier(RuntimeEnvironment.application)
+                .getBroadcastReceiverFor(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED)
+                .onReceive(mock(Context.class),
+                        new Intent(BluetoothHeadsetClient.ACTION_CONNECTION_STATE_CHANGED));
+
+        assertThat(mPhoneAccountModel.isBluetoothCall()).isTrue();
+        verify(mMockTelecomManager, times(1)).getCallCapablePhoneAccounts();
+    }
+
+    @Test
+    public void testInvalidateUserSelectedOutgoingPhoneAccount_readsItOnTheNextLookup() {
+        assertThat(mPhoneAccountModel.getUserSelectedOutgoingPhoneAccount()).isNull();
+        assertThat(mPhoneAccountModel.getUserSelectedOutgoingPhoneAccount()).isNull();
+        verify(mMockTelecomManager, times(1)).getUserSelectedOutgoingPhoneAccount();
+        when(mMockTelecomManager.getUserSelectedOutgoingPhoneAccount())
+                .thenReturn(mPhoneAccountHandle);
+
+        mPhoneAccountModel.invalidateUserSelectedOutgoingPhoneAccount();
+
+        assertThat(mPhoneAccountModel.getUserSelectedOutgoingPhoneAccount())
+                .isEqualTo(mPhoneAccountHandle);
+        verify(mMockTelecomManager, times(2)).getUserSelectedOutgoingPhoneAccount();
+        verify(mMockTelecomManager, times(1)).getCallCapablePhoneAccounts();
+    }
+
+    @Test
+    public void testAccountRegistered_reloadsTheAccounts() {
+        assertThat(mPhoneAccountModel.getHfpPhoneAccountHandle(ADDRESS))
+                .isEqualTo(mPhoneAccountHandle);
+        when(mMockTelecomManager.getCallCapablePhoneAccounts())
+                .thenReturn(Collections.emptyList());
+
+        new BroadcastReceiverVerifier(RuntimeEnvironment.application)
+                .getBroadcastReceiverFor(TelecomManager.ACTION_PHONE_ACCOUNT_UNREGISTERED)
+                .onReceive(mock(Context.class),
+                        new Intent(TelecomManager.ACTION_PHONE_ACCOUNT_UNREGISTERED));
+
+        assertThat(mPhoneAccountModel.getHfpPhoneAccountHandle(ADDRESS)).isNull();
+        verify(mMockTelecomManager, times(2)).getCallCapablePhoneAccounts();
+    }
+}
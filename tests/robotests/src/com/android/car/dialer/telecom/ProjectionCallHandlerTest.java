@@ -15,7 +15,7 @@
  */
 package com.android.car.dialer.telecom;
 
-import static com.android.car.dialer.telecom.ProjectionCallHandler.HFP_CLIENT_SCHEME;
+import static com.android.car.dialer.telecom.PhoneAccountModel.HFP_CLIENT_SCHEME;
 import static com.android.car.dialer.telecom.ProjectionCallHandler.PROJECTION_STATUS_EXTRA_DEVICE_STATE;
 import static com.android.car.dialer.telecom.ProjectionCallHandler.PROJECTION_STATUS_EXTRA_HANDLES_PHONE_UI;
 
@@ -23,15 +23,18 @@ import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import android.app.Application;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.car.CarProjectionManager;
 import android.car.projection.ProjectionStatus;
 import android.content.ComponentName;
 import android.content.Context;
+import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
 import android.os.Parcelable;
@@ -47,7 +50,11 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowContextImpl;
+import org.robolectric.shadows.ShadowLooper;
 
+import java.util.Arrays;
 import java.util.Collections;
 
 @RunWith(RobolectricTestRunner.class)
@@ -90,6 +97,14 @@ public class ProjectionCallHandlerTest {
         mTelecomManager.registerPhoneAccount(mHfpAccount);
         mTelecomManager.registerPhoneAccount(mNonHfpAccount);
         mTelecomManager.registerPhoneAccount(mAccountWithNoAddress);
+        // The unregistered accounts are skipped by the PhoneAccountModel.
+        when(mTelecomManager.getCallCapablePhoneAccounts()).thenReturn(Arrays.asList(
+                mHfpAccount.getAccountHandle(),
+                mNonHfpAccount.getAccountHandle(),
+                mAccountWithNoAddress.getAccountHandle()));
+        ShadowContextImpl shadowContext = Shadow.extract(((Application) mContext).getBaseContext());
+        shadowContext.setSystemService(Context.TELECOM_SERVICE, mTelecomManager);
+        PhoneAccountModel.get().invalidate();
 
         mProjectionCallHandler = new ProjectionCallHandler(mContext, mTelecomManager,
                 car -> mCarProjectionManager);
@@ -268,6 +283,28 @@ public class ProjectionCallHandlerTest {
         assertThat(mProjectionCallHandler.onTelecomCallAdded(call)).isFalse();
     }
 
+    @Test
+    public void calls_fromSameAccount_lookUpThePhoneAccountOnce() {
+        sendProjectionStatus(suppressableStatus());
+
+        assertThat(shouldSuppressCallFor(mHfpAccount)).isTrue();
+        assertThat(shouldSuppressCallFor(mHfpAccount)).isTrue();
+
+        verify(mTelecomManager, times(1)).getPhoneAccount(mHfpAccount.getAccountHandle());
+    }
+
+    @Test
+    public void phoneAccountChanged_looksUpThePhoneAccountAgain() {
+        sendProjectionStatus(suppressableStatus());
+        assertThat(shouldSuppressCallFor(mHfpAccount)).isTrue();
+
+        mTelecomManager.unregisterPhoneAccount(mHfpAccount.getAccountHandle());
+        mContext.sendBroadcast(new Intent(TelecomManager.ACTION_PHONE_ACCOUNT_UNREGISTERED));
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertThat(shouldSuppressCallFor(mHfpAccount)).isFalse();
+    }
+
     private Call createCall(PhoneAccount account) {
         Call.Details details = mock(Call.Details.class);
         when(details.getAccountHandle()).thenReturn(account.getAccountHandle());
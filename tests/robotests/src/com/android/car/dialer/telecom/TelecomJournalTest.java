@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.telecom;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.when;
+
+import android.telecom.Call;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class TelecomJournalTest {
+    private static final String TELECOM_CALL_ID = "TC@1";
+
+    @Mock
+    private Call mMockCall;
+    @Mock
+    private Call.Details mMockDetails;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(mMockCall.getDetails()).thenReturn(mMockDetails);
+        when(mMockDetails.getTelecomCallId()).thenReturn(TELECOM_CALL_ID);
+    }
+
+    @Test
+    public void testRecord() {
+        TelecomJournal telecomJournal = new TelecomJournal(null);
+        telecomJournal.record(mMockCall, TelecomJournal.EVENT_CALL_ADDED, Call.STATE_RINGING);
+        telecomJournal.record(mMockCall, TelecomJournal.EVENT_STATE_CHANGED, Call.STATE_ACTIVE);
+
+        List<TelecomJournal.Record> records = telecomJournal.getRecords();
+        assertThat(records).hasSize(3);
+        assertThat(records.get(0).getEvent()).isEqualTo(TelecomJournal.EVENT_OPENED);
+        assertThat(records.get(1).getEvent()).isEqualTo(TelecomJournal.EVENT_CALL_ADDED);
+        assertThat(records.get(1).getCallKey()).isEqualTo(TELECOM_CALL_ID.hashCode());
+        assertThat(records.get(2).getEvent()).isEqualTo(TelecomJournal.EVENT_STATE_CHANGED);
+        assertThat(records.get(2).getValue()).isEqualTo(Call.STATE_ACTIVE);
+    }
+
+    @Test
+    public void testRecord_overwritesTheOldestRecords() {
+        TelecomJournal telecomJournal = new TelecomJournal(null);
+        for (int i = 0; i < TelecomJournal.CAPACITY; i++) {
+            telecomJournal.record(mMockCall, TelecomJournal.EVENT_STATE_CHANGED, i);
+        }
+
+        List<TelecomJournal.Record> records = telecomJournal.getRecords();
+        assertThat(records).hasSize(TelecomJournal.CAPACITY);
+        assertThat(records.get(0).getValue()).isEqualTo(0);
+        assertThat(records.get(TelecomJournal.CAPACITY - 1).getValue())
+                .isEqualTo(TelecomJournal.CAPACITY - 1);
+    }
+
+    @Test
+    public void testRecordsSurviveReopening() {
+        File file = new File(RuntimeEnvironment.application.getNoBackupFilesDir(), "journal");
+        new TelecomJournal(file).record(mMockCall, TelecomJournal.EVENT_ROUTED,
+                CallLatencyTracker.ROUTE_NOTIFICATION);
+
+        List<TelecomJournal.Record> records = new TelecomJournal(file).getRecords();
+        assertThat(records).hasSize(3);
+        assertThat(records.get(1).getEvent()).isEqualTo(TelecomJournal.EVENT_ROUTED);
+        assertThat(records.get(1).getValue()).isEqualTo(CallLatencyTracker.ROUTE_NOTIFICATION);
+        assertThat(records.get(2).getEvent()).isEqualTo(TelecomJournal.EVENT_OPENED);
+    }
+
+    @Test
+    public void testRecordsBeforeMapping_areAppendedToTheJournal() {
+        File file = new File(RuntimeEnvironment.application.getNoBackupFilesDir(), "journal");
+        new TelecomJournal(file).record(mMockCall, TelecomJournal.EVENT_ROUTED,
+                CallLatencyTracker.ROUTE_NOTIFICATION);
+        List<Runnable> mappingTasks = new ArrayList<>();
+
+        TelecomJournal telecomJournal = new TelecomJournal(file, mappingTasks::add, Runnable::run);
+        telecomJournal.record(mMockCall, TelecomJournal.EVENT_CALL_ADDED, Call.STATE_RINGING);
+        assertThat(telecomJournal.getRecords()).hasSize(2);
+        assertThat(mappingTasks).hasSize(1);
+        mappingTasks.get(0).run();
+        telecomJournal.record(mMockCall, TelecomJournal.EVENT_CALL_REMOVED, Call.STATE_ACTIVE);
+
+        List<TelecomJournal.Record> records = new TelecomJournal(file).getRecords();
+        assertThat(records).hasSize(6);
+        assertThat(records.get(1).getEvent()).isEqualTo(TelecomJournal.EVENT_ROUTED);
+        assertThat(records.get(2).getEvent()).isEqualTo(TelecomJournal.EVENT_OPENED);
+        assertThat(records.get(3).getEvent()).isEqualTo(TelecomJournal.EVENT_CALL_ADDED);
+        assertThat(records.get(4).getEvent()).isEqualTo(TelecomJournal.EVENT_CALL_REMOVED);
+        assertThat(records.get(5).getEvent()).isEqualTo(TelecomJournal.EVENT_OPENED);
+    }
+
+    @Test
+    public void testDecode_notAJournal() {
+        assertThat(TelecomJournal.decode(ByteBuffer.allocate(64))).isEmpty();
+    }
+}
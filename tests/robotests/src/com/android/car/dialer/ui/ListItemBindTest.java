@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.util.Pair;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.R;
+import com.android.car.dialer.livedata.CallHistoryLiveData;
+import com.android.car.dialer.ui.calllog.CallLogAdapter;
+import com.android.car.dialer.ui.common.entity.UiCallLog;
+import com.android.car.dialer.ui.contact.ContactListAdapter;
+import com.android.car.dialer.ui.contact.ContactListItem;
+import com.android.car.dialer.ui.contact.ContactListViewHolder;
+import com.android.car.dialer.widget.CallTypeIconsView;
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.PhoneCallLog;
+import com.android.car.telephony.common.PhoneNumber;
+import com.android.car.telephony.common.TelecomUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Checks that {@link RecyclerView.Adapter#onBindViewHolder} of the list items reuses the listeners
+ * installed when the view holder is created and only reads the compact row data.
+ */
+@Config(qualifiers = "h610dp")
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class ListItemBindTest {
+    private static final String PHONE_NUMBER = "6502530000";
+    private static final int BIND_COUNT = 10000;
+
+    private Context mContext;
+    private FrameLayout mParent;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mParent = new FrameLayout(mContext);
+    }
+
+    @Test
+    public void contactListItem_rebind_reusesClickListeners() {
+        List<Contact> shownContacts = new ArrayList<>();
+        ContactListAdapter adapter = new ContactListAdapter(mContext, shownContacts::add);
+        List<ContactListItem> items = ContactListItem.createList(mContext,
+                Arrays.asList(createContact("Alice"), createContact("Bob")),
+                TelecomUtils.SORT_BY_FIRST_NAME);
+        adapter.setContactList(new Pair<>(TelecomUtils.SORT_BY_FIRST_NAME, items));
+        RecyclerView.ViewHolder holder = adapter.createViewHolder(mParent,
+                ContactListAdapter.TYPE_CONTACT);
+        View callActionView = holder.itemView.findViewById(R.id.call_action_id);
+        View showContactDetailView = holder.itemView.findViewById(R.id.show_contact_detail_id);
+
+        adapter.bindViewHolder(holder, 0);
+        View.OnClickListener callListener = shadowOf(callActionView).getOnClickListener();
+        View.OnClickListener showContactDetailListener =
+                shadowOf(showContactDetailView).getOnClickListener();
+        adapter.bindViewHolder(holder, 1);
+
+        assertThat(callListener).isNotNull();
+        assertThat(shadowOf(callActionView).getOnClickListener()).isSameInstanceAs(callListener);
+        assertThat(shadowOf(showContactDetailView).getOnClickListener())
+                .isSameInstanceAs(showContactDetailListener);
+        // The listener installed once acts on the contact bound last.
+        showContactDetailView.performClick();
+        assertThat(shownContacts).containsExactly(items.get(1).getContact());
+    }
+
+    @Test
+    public void contactListItem_bind_showsThePrecomputedRow() {
+        Integer sortMethod = TelecomUtils.SORT_BY_FIRST_NAME;
+        List<ContactListItem> items = ContactListItem.createList(mContext,
+                Arrays.asList(createContact("Alice"), createContact("Amy"),
+                        createContact("Bob")), sortMethod);
+        ContactListAdapter adapter = new ContactListAdapter(mContext, contact -> {});
+        adapter.setContactList(new Pair<>(sortMethod, items));
+        ContactListViewHolder holder = (ContactListViewHolder) adapter.createViewHolder(mParent,
+                ContactListAdapter.TYPE_CONTACT);
+
+        assertThat(items.get(0).getHeader()).isEqualTo("A");
+        assertThat(items.get(1).getHeader()).isNull();
+        assertThat(items.get(2).getHeader()).isEqualTo("B");
+
+        adapter.bindViewHolder(holder, 1);
+        TextView titleView = holder.itemView.findViewById(R.id.title);
+        TextView textView = holder.itemView.findViewById(R.id.text);
+        assertThat(titleView.getText().toString()).isEqualTo("Amy");
+        assertThat(textView.getText().toString()).isEqualTo(items.get(1).getLabel().toString());
+    }
+
+    @Test
+    public void contactListItem_bind_usesThePrecomputedAvatarKey() {
+        Integer sortMethod = TelecomUtils.SORT_BY_LAST_NAME;
+        Contact contact = mock(Contact.class);
+        when(contact.getDisplayName()).thenReturn("Alice Smith");
+        when(contact.getNumbers()).thenReturn(Collections.emptyList());
+        when(contact.getInitialsBasedOnDisplayOrder(false)).thenReturn("SA");
+        List<ContactListItem> items = ContactListItem.createList(mContext,
+                Collections.nCopies(BIND_COUNT, contact), sortMethod);
+        ContactListAdapter adapter = new ContactListAdapter(mContext, c -> {});
+        adapter.setContactList(new Pair<>(sortMethod, items));
+        RecyclerView.ViewHolder holder = adapter.createViewHolder(mParent,
+                ContactListAdapter.TYPE_CONTACT);
+
+        for (int i = 0; i < BIND_COUNT; i++) {
+            adapter.bindViewHolder(holder, i);
+        }
+
+        assertThat(items.get(0).getAvatarKey()).isEqualTo("SA");
+        // The initials are computed once per row with the list, none of the binds derives them.
+        verify(contact, times(BIND_COUNT)).getInitialsBasedOnDisplayOrder(false);
+        verify(contact, never()).getInitialsBasedOnDisplayOrder(true);
+    }
+
+    @Test
+    public void callLogItem_bindReadsOnlyTheRecentCallTypes() {
+        UiCallLog uiCallLog = createUiCallLog(createCallRecords(200));
+        uiCallLog.setRelativeTime("1 day ago");
+
+        CallLogAdapter adapter = new CallLogAdapter(mContext, contact -> {});
+        adapter.setSortMethod(TelecomUtils.SORT_BY_FIRST_NAME);
+        adapter.setUiCallLogs(Collections.singletonList(uiCallLog));
+        RecyclerView.ViewHolder holder = adapter.createViewHolder(mParent,
+                CallLogAdapter.EntryType.TYPE_CALLLOG);
+        adapter.bindViewHolder(holder, 0);
+
+        CallTypeIconsView callTypeIconsView = holder.itemView.findViewById(R.id.call_type_icons);
+        TextView callCountTextView = holder.itemView.findViewById(R.id.call_count_text);
+        // The icons view shows the shared array of the row, at most 3 icons, instead of a copy
+        // of the history.
+        assertThat(uiCallLog.getRecentCallTypes()).hasLength(UiCallLog.MAX_RECENT_CALL_TYPES);
+        for (int i = 0; i < UiCallLog.MAX_RECENT_CALL_TYPES; i++) {
+            assertThat(callTypeIconsView.getCallType(i))
+                    .isEqualTo(uiCallLog.getRecentCallTypes()[i]);
+        }
+        assertThat(callCountTextView.getText().toString()).isEqualTo("(200)");
+    }
+
+    @Test
+    public void callLogRow_sizeDoesNotGrowWithHistory() {
+        List<PhoneCallLog.Record> shortHistory = createCallRecords(2);
+        List<PhoneCallLog.Record> longHistory = createCallRecords(200);
+
+        assertThat(createUiCallLog(shortHistory).getRecentCallTypes()).hasLength(2);
+        UiCallLog uiCallLog = createUiCallLog(longHistory);
+        assertThat(uiCallLog.getCallCount()).isEqualTo(200);
+        assertThat(uiCallLog.getRecentCallTypes()).hasLength(UiCallLog.MAX_RECENT_CALL_TYPES);
+        assertThat(uiCallLog.getMostRecentCallEndTimestamp())
+                .isEqualTo(longHistory.get(0).getCallEndTimestamp());
+        assertThat(uiCallLog.getMostRecentCallType())
+                .isEqualTo(CallHistoryLiveData.CallType.INCOMING_TYPE);
+    }
+
+    private static List<PhoneCallLog.Record> createCallRecords(int callCount) {
+        List<PhoneCallLog.Record> records = new ArrayList<>();
+        for (int i = 0; i < callCount; i++) {
+            records.add(new PhoneCallLog.Record(System.currentTimeMillis() - i,
+                    CallHistoryLiveData.CallType.INCOMING_TYPE));
+        }
+        return records;
+    }
+
+    private static UiCallLog createUiCallLog(List<PhoneCallLog.Record> records) {
+        return new UiCallLog(PHONE_NUMBER, PHONE_NUMBER, PHONE_NUMBER, /* contact= */null,
+                records);
+    }
+
+    private Contact createContact(String displayName) {
+        PhoneNumber phoneNumber = PhoneNumber.newInstance(mContext, PHONE_NUMBER, 0, "Work",
+                false, 0, null, null, 0);
+        Contact contact = mock(Contact.class, withSettings().stubOnly());
+        when(contact.getDisplayName()).thenReturn(displayName);
+        when(contact.getPhonebookLabel()).thenReturn(displayName.substring(0, 1));
+        when(contact.getNumbers()).thenReturn(Collections.singletonList(phoneNumber));
+        return contact;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.activecall;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.telecom.Call;
+import android.view.View;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.R;
+import com.android.car.dialer.TestDialerApplication;
+import com.android.car.dialer.telecom.CallRegistry;
+import com.android.car.dialer.telecom.UiCallManager;
+import com.android.car.telephony.common.InMemoryPhoneBook;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.Robolectric;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class InCallUiWarmerTest {
+    private InCallUiWarmer mInCallUiWarmer;
+    @Mock
+    private Call mMockCall;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        Context context = RuntimeEnvironment.application;
+        ((TestDialerApplication) context).setupInCallServiceImpl();
+        ((TestDialerApplication) context).initUiCallManager();
+        InMemoryPhoneBook.init(context);
+
+        // Inflates the prepared layouts right away instead of on a background thread.
+        InCallUiWarmer.tearDown();
+        InCallUiWarmer.init(context, Runnable::run, Runnable::run);
+        mInCallUiWarmer = InCallUiWarmer.get();
+    }
+
+    @After
+    public void tearDown() {
+        CallRegistry.get().clear();
+        UiCallManager.get().tearDown();
+        InMemoryPhoneBook.tearDown();
+    }
+
+    @Test
+    public void testWarmUp_preparedObjectsAreHandedOutOnce() {
+        mInCallUiWarmer.warmUp();
+        getPreparedView();
+
+        assertThat(mInCallUiWarmer.takeView(R.layout.ringing_call_controller_bar_fragment))
+                .isNotNull();
+        assertThat(mInCallUiWarmer.takeView(R.layout.ringing_call_controller_bar_fragment))
+                .isNull();
+        assertThat(mInCallUiWarmer.takeDefaultAvatar())
+                .isNotSameInstanceAs(mInCallUiWarmer.takeDefaultAvatar());
+    }
+
+    @Test
+    public void testConfigurationChanged_preparedViewIsDropped() {
+        mInCallUiWarmer.warmUp();
+        getPreparedView();
+
+        RuntimeEnvironment.setQualifiers("+land");
+
+        assertThat(mInCallUiWarmer.takeView(R.layout.ringing_call_controller_bar_fragment))
+                .isNull();
+    }
+
+    @Test
+    public void testIncomingCallPage_reusesThePreparedView() {
+        mInCallUiWarmer.warmUp();
+        View preparedView = getPreparedView();
+        when(mMockCall.getState()).thenReturn(Call.STATE_RINGING);
+        CallRegistry.get().onCallAdded(mMockCall);
+
+        InCallActivity inCallActivity = Robolectric.buildActivity(InCallActivity.class)
+                .setup().get();
+        ShadowLooper.runUiThreadTasks();
+
+        assertThat(inCallActivity.isFinishing()).isFalse();
+        assertThat(inCallActivity.findViewById(R.id.answer_call_button))
+                .isSameInstanceAs(preparedView.findViewById(R.id.answer_call_button));
+        assertThat(mInCallUiWarmer.peekView(R.layout.ringing_call_controller_bar_fragment))
+                .isNotSameInstanceAs(preparedView);
+    }
+
+    @Test
+    public void testIncomingCallPage_firstFrameWithinBudget() {
+        mInCallUiWarmer.warmUp();
+        getPreparedView();
+        when(mMockCall.getState()).thenReturn(Call.STATE_RINGING);
+        CallRegistry.get().onCallAdded(mMockCall);
+
+        long startTime = System.nanoTime();
+        InCallActivity inCallActivity = Robolectric.buildActivity(InCallActivity.class)
+                .setup().get();
+        ShadowLooper.runUiThreadTasks();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+
+        assertThat(inCallActivity.isFinishing()).isFalse();
+        assertThat(inCallActivity.findViewById(R.id.answer_call_button)).isNotNull();
+        assertThat(elapsedMs).isAtMost(InCallUiWarmer.FIRST_FRAME_BUDGET_MS);
+    }
+
+    private View getPreparedView() {
+        View preparedView = mInCallUiWarmer.peekView(R.layout.ringing_call_controller_bar_fragment);
+        assertThat(preparedView).isNotNull();
+        return preparedView;
+    }
+}
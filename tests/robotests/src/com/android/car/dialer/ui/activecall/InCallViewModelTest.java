@@ -19,7 +19,11 @@ package com.android.car.dialer.ui.activecall;
 import static com.google.common.truth.Truth.assertThat;
 
 import static org.junit.Assert.assertArrayEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.app.Application;
@@ -35,6 +39,7 @@ import androidx.core.util.Pair;
 import com.android.car.dialer.CarDialerRobolectricTestRunner;
 import com.android.car.dialer.TestDialerApplication;
 import com.android.car.dialer.bluetooth.UiBluetoothMonitor;
+import com.android.car.dialer.telecom.CallRegistry;
 import com.android.car.dialer.telecom.InCallServiceImpl;
 import com.android.car.dialer.telecom.UiCallManager;
 import com.android.car.telephony.common.CallDetail;
@@ -48,6 +53,7 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -110,7 +116,9 @@ public class InCallViewModelTest {
         mListForMockCalls.add(mMockDialingCall);
         mListForMockCalls.add(mMockHoldingCall);
         mListForMockCalls.add(mMockRingingCall);
-        when(mInCallService.getCalls()).thenReturn(mListForMockCalls);
+        for (Call call : mListForMockCalls) {
+            CallRegistry.get().onCallAdded(call);
+        }
         UiCallManager.set(mMockUiCallManager);
         when(mMockUiCallManager.getAudioRoute()).thenReturn(CallAudioState.ROUTE_BLUETOOTH);
 
@@ -128,6 +136,7 @@ public class InCallViewModelTest {
     public void tearDown() {
         UiBluetoothMonitor.get().tearDown();
         UiCallManager.set(null);
+        CallRegistry.get().clear();
     }
 
     @Test
@@ -146,6 +155,8 @@ public class InCallViewModelTest {
         when(mMockActiveCall.getState()).thenReturn(Call.STATE_HOLDING);
         when(mMockHoldingCall.getState()).thenReturn(Call.STATE_ACTIVE);
         callback.onStateChanged(mMockActiveCall, Call.STATE_HOLDING);
+        // Call events are published on the next frame.
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
 
         List<Call> callListInOrder =
                 Arrays.asList(mMockDialingCall, mMockHoldingCall, mMockActiveCall);
@@ -153,6 +164,22 @@ public class InCallViewModelTest {
         assertArrayEquals(callListInOrder.toArray(), viewModelCallList.toArray());
     }
 
+    @Test
+    public void testStateChange_doesNotReregisterCallbacks() {
+        Call.Callback callback = mCallbackCaptor.getValue();
+
+        for (int i = 0; i < 10; i++) {
+            when(mMockActiveCall.getState()).thenReturn(
+                    i % 2 == 0 ? Call.STATE_HOLDING : Call.STATE_ACTIVE);
+            callback.onStateChanged(mMockActiveCall, mMockActiveCall.getState());
+        }
+
+        // Registered once by the call registry and once by the view model.
+        verify(mMockActiveCall, times(2)).registerCallback(any(Call.Callback.class));
+        verify(mMockDialingCall, never()).unregisterCallback(any(Call.Callback.class));
+        verify(mMockHoldingCall, never()).unregisterCallback(any(Call.Callback.class));
+    }
+
     @Test
     public void testGetIncomingCall() {
         Call incomingCall = mInCallViewModel.getIncomingCall().getValue();
@@ -27,8 +27,10 @@ import com.android.car.dialer.CarDialerRobolectricTestRunner;
 import com.android.car.dialer.FragmentTestActivity;
 import com.android.car.dialer.R;
 import com.android.car.dialer.TestDialerApplication;
+import com.android.car.dialer.telecom.CallRegistry;
 import com.android.car.dialer.telecom.InCallServiceImpl;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -37,8 +39,6 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.Robolectric;
 import org.robolectric.RuntimeEnvironment;
 
-import java.util.Collections;
-
 @RunWith(CarDialerRobolectricTestRunner.class)
 public class IncomingCallFragmentTest {
     private IncomingCallFragment mIncomingCallFragment;
@@ -52,9 +52,9 @@ public class IncomingCallFragmentTest {
         MockitoAnnotations.initMocks(this);
 
         when(mMockCall.getState()).thenReturn(Call.STATE_RINGING);
-        when(mMockInCallServiceImpl.getCalls()).thenReturn(Collections.singletonList(mMockCall));
         ((TestDialerApplication) RuntimeEnvironment.application).setupInCallServiceImpl(
                 mMockInCallServiceImpl);
+        CallRegistry.get().onCallAdded(mMockCall);
 
         FragmentTestActivity fragmentTestActivity = Robolectric.buildActivity(
                 FragmentTestActivity.class).create().start().resume().get();
@@ -62,6 +62,11 @@ public class IncomingCallFragmentTest {
         fragmentTestActivity.setFragment(mIncomingCallFragment);
     }
 
+    @After
+    public void tearDown() {
+        CallRegistry.get().clear();
+    }
+
     @Test
     public void testCallStateIsRinging() {
         TextView callStateView = mIncomingCallFragment.getView().findViewById(
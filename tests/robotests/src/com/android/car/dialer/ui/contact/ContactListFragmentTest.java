@@ -52,6 +52,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.Robolectric;
+import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 import org.robolectric.shadows.ShadowAlertDialog;
 import org.robolectric.shadows.ShadowLooper;
@@ -91,11 +92,13 @@ public class ContactListFragmentTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
 
-        MutableLiveData<FutureData<Pair<Integer, List<Contact>>>> contactList =
+        MutableLiveData<FutureData<Pair<Integer, List<ContactListItem>>>> contactList =
                 new MutableLiveData<>();
         contactList.setValue(
                 new FutureData<>(false, new Pair<>(TelecomUtils.SORT_BY_LAST_NAME,
-                        Arrays.asList(mMockContact1, mMockContact2, mMockContact3))));
+                        ContactListItem.createList(RuntimeEnvironment.application,
+                                Arrays.asList(mMockContact1, mMockContact2, mMockContact3),
+                                TelecomUtils.SORT_BY_LAST_NAME))));
         ShadowAndroidViewModelFactory.add(ContactListViewModel.class, mMockContactListViewModel);
         when(mMockContactListViewModel.getAllContacts()).thenReturn(contactList);
         MutableLiveData<FutureData<Contact>> contactDetail = new MutableLiveData<>();
@@ -90,7 +90,7 @@ public class ContactListViewHolderTest {
     @Test
     public void testDisplayName() {
         when(mMockContact.getDisplayName()).thenReturn(DISPLAY_NAME);
-        mContactListViewHolder.bind(mMockContact, false, "", TelecomUtils.SORT_BY_FIRST_NAME);
+        bindContact();
 
         assertThat(((TextView) mItemView.findViewById(R.id.title)).getText()).isEqualTo(
                 DISPLAY_NAME);
@@ -101,7 +101,7 @@ public class ContactListViewHolderTest {
         PhoneNumber phoneNumber = PhoneNumber.newInstance(mContext, PHONE_NUMBER_1, 0, LABEL_1,
                 false, 0, null, null, 0);
         when(mMockContact.getNumbers()).thenReturn(Arrays.asList(phoneNumber));
-        mContactListViewHolder.bind(mMockContact, false, "", TelecomUtils.SORT_BY_FIRST_NAME);
+        bindContact();
 
         assertThat(((TextView) mItemView.findViewById(R.id.text)).getText()).isEqualTo(LABEL_1);
     }
@@ -111,7 +111,7 @@ public class ContactListViewHolderTest {
         PhoneNumber phoneNumber = PhoneNumber.newInstance(mContext, PHONE_NUMBER_1, TYPE, null,
                 false, 0, null, null, 0);
         when(mMockContact.getNumbers()).thenReturn(Arrays.asList(phoneNumber));
-        mContactListViewHolder.bind(mMockContact, false, "", TelecomUtils.SORT_BY_FIRST_NAME);
+        bindContact();
 
         assertThat(((TextView) mItemView.findViewById(R.id.text)).getText()).isEqualTo(
                 mContext.getResources().getText(
@@ -125,7 +125,7 @@ public class ContactListViewHolderTest {
         PhoneNumber phoneNumber = mock(PhoneNumber.class);
         when(phoneNumber.getLabel()).thenReturn(null);
         when(mMockContact.getNumbers()).thenReturn(Arrays.asList(phoneNumber));
-        mContactListViewHolder.bind(mMockContact, false, "", TelecomUtils.SORT_BY_FIRST_NAME);
+        bindContact();
 
         assertThat(((TextView) mItemView.findViewById(R.id.text)).getText()).isEqualTo("");
     }
@@ -138,7 +138,7 @@ public class ContactListViewHolderTest {
                 false, 0, null, null, 0);
         when(mMockContact.getNumbers()).thenReturn(Arrays.asList(phoneNumber1, phoneNumber2));
         when(mMockContact.hasPrimaryPhoneNumber()).thenReturn(false);
-        mContactListViewHolder.bind(mMockContact, false, "", TelecomUtils.SORT_BY_FIRST_NAME);
+        bindContact();
 
         assertThat(((TextView) mItemView.findViewById(R.id.text)).getText()).isEqualTo(
                 mContext.getString(R.string.type_multiple));
@@ -153,7 +153,7 @@ public class ContactListViewHolderTest {
         when(mMockContact.getNumbers()).thenReturn(Arrays.asList(phoneNumber1, phoneNumber2));
         when(mMockContact.hasPrimaryPhoneNumber()).thenReturn(true);
         when(mMockContact.getPrimaryPhoneNumber()).thenReturn(phoneNumber2);
-        mContactListViewHolder.bind(mMockContact, false, "", TelecomUtils.SORT_BY_FIRST_NAME);
+        bindContact();
 
         assertThat(((TextView) mItemView.findViewById(R.id.text)).getText()).isEqualTo(
                 mContext.getString(R.string.primary_number_description, LABEL_2));
@@ -168,7 +168,7 @@ public class ContactListViewHolderTest {
         when(mMockContact.getNumbers()).thenReturn(Arrays.asList(phoneNumber1, phoneNumber2));
         when(mMockContact.hasPrimaryPhoneNumber()).thenReturn(true);
         when(mMockContact.getPrimaryPhoneNumber()).thenReturn(phoneNumber2);
-        mContactListViewHolder.bind(mMockContact, false, "", TelecomUtils.SORT_BY_FIRST_NAME);
+        bindContact();
 
         assertThat(((TextView) mItemView.findViewById(R.id.text)).getText()).isEqualTo(
                 mContext.getString(R.string.primary_number_description,
@@ -187,7 +187,7 @@ public class ContactListViewHolderTest {
         when(mMockContact.getNumbers()).thenReturn(Arrays.asList(phoneNumber1, phoneNumber2));
         when(mMockContact.hasPrimaryPhoneNumber()).thenReturn(true);
         when(mMockContact.getPrimaryPhoneNumber()).thenReturn(phoneNumber2);
-        mContactListViewHolder.bind(mMockContact, false, "", TelecomUtils.SORT_BY_FIRST_NAME);
+        bindContact();
 
         assertThat(((TextView) mItemView.findViewById(R.id.text)).getText()).isEqualTo(
                 mContext.getString(R.string.primary_number_description, "null"));
@@ -199,7 +199,7 @@ public class ContactListViewHolderTest {
         PhoneNumber phoneNumber = PhoneNumber.newInstance(mContext, PHONE_NUMBER_1, 0, LABEL_1,
                 false, 0, null, null, 0);
         when(mMockContact.getNumbers()).thenReturn(Arrays.asList(phoneNumber));
-        mContactListViewHolder.bind(mMockContact, false, "", TelecomUtils.SORT_BY_FIRST_NAME);
+        bindContact();
 
         View callActionView = mItemView.findViewById(R.id.call_action_id);
         assertThat(callActionView.hasOnClickListeners()).isTrue();
@@ -220,7 +220,7 @@ public class ContactListViewHolderTest {
                 false, 0, null, null, 0);
         when(mMockContact.getNumbers()).thenReturn(Arrays.asList(phoneNumber1, phoneNumber2));
         when(mMockContact.hasPrimaryPhoneNumber()).thenReturn(false);
-        mContactListViewHolder.bind(mMockContact, false, "", TelecomUtils.SORT_BY_FIRST_NAME);
+        bindContact();
 
         assertThat(ShadowAlertDialog.getLatestAlertDialog()).isNull();
         View callActionView = mItemView.findViewById(R.id.call_action_id);
@@ -241,7 +241,7 @@ public class ContactListViewHolderTest {
         when(mMockContact.getNumbers()).thenReturn(Arrays.asList(phoneNumber1, phoneNumber2));
         when(mMockContact.hasPrimaryPhoneNumber()).thenReturn(true);
         when(mMockContact.getPrimaryPhoneNumber()).thenReturn(phoneNumber2);
-        mContactListViewHolder.bind(mMockContact, false, "", TelecomUtils.SORT_BY_FIRST_NAME);
+        bindContact();
 
         View callActionView = mItemView.findViewById(R.id.call_action_id);
         assertThat(callActionView.hasOnClickListeners()).isTrue();
@@ -257,7 +257,7 @@ public class ContactListViewHolderTest {
     public void testClickShowContactDetailView_hasContactDetail_showContactDetail() {
         PhoneNumber phoneNumber = mock(PhoneNumber.class);
         when(mMockContact.getNumbers()).thenReturn(Arrays.asList(phoneNumber));
-        mContactListViewHolder.bind(mMockContact, false, "", TelecomUtils.SORT_BY_FIRST_NAME);
+        bindContact();
 
         View showContactDetailActionView = mItemView.findViewById(R.id.show_contact_detail_id);
         assertThat(showContactDetailActionView.hasOnClickListeners()).isTrue();
@@ -273,7 +273,7 @@ public class ContactListViewHolderTest {
     public void testClickShowContactDetailView_hasAddressButNoPhoneNumber_dependOnConfig() {
         PostalAddress postalAddress = mock(PostalAddress.class);
         when(mMockContact.getPostalAddresses()).thenReturn(Arrays.asList(postalAddress));
-        mContactListViewHolder.bind(mMockContact, false, "", TelecomUtils.SORT_BY_FIRST_NAME);
+        bindContact();
 
         View showContactDetailActionView = mItemView.findViewById(R.id.show_contact_detail_id);
 
@@ -299,7 +299,7 @@ public class ContactListViewHolderTest {
 
     @Test
     public void testClickShowContactDetailView_NoContactDetail_ContactDetailButtonNotEnabled() {
-        mContactListViewHolder.bind(mMockContact, false, "", TelecomUtils.SORT_BY_FIRST_NAME);
+        bindContact();
 
         View showContactDetailActionView = mItemView.findViewById(R.id.show_contact_detail_id);
 
@@ -308,4 +308,9 @@ public class ContactListViewHolderTest {
                 mItemView.getResources().getBoolean(
                         R.bool.config_show_contact_detail_button_for_empty_contact));
     }
+
+    private void bindContact() {
+        mContactListViewHolder.bind(ContactListItem.create(mContext, mMockContact,
+                TelecomUtils.SORT_BY_FIRST_NAME, /* header= */null));
+    }
 }
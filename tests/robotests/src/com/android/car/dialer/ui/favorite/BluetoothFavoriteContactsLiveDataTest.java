@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.favorite;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.database.CursorWrapper;
+import android.database.MatrixCursor;
+import android.provider.ContactsContract;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.telephony.common.Contact;
+import com.android.car.telephony.common.PhoneNumber;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class BluetoothFavoriteContactsLiveDataTest {
+    private static final String ACCOUNT_NAME = "00:11:22:33:44:55";
+    private static final String PHONE_NUMBER = "6502530000";
+    private static final String OTHER_PHONE_NUMBER = "6502530001";
+
+    private Context mContext;
+    private BluetoothFavoriteContactsLiveData mLiveData;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mLiveData = new BluetoothFavoriteContactsLiveData(mContext);
+    }
+
+    @Test
+    public void testConvertToEntity_readsOnlyTheProjectedColumns() {
+        MatrixCursor cursor = createCursor();
+        addRow(cursor, 1, "lookup-jane", "Jane Doe", PHONE_NUMBER);
+        ColumnRecordingCursor recordingCursor = new ColumnRecordingCursor(cursor);
+
+        List<Contact> contacts = mLiveData.convertToEntity(recordingCursor);
+
+        assertThat(Arrays.asList(
+                BluetoothFavoriteContactsLiveData.FavoriteQueryParam.PROJECTION))
+                .containsAtLeastElementsIn(recordingCursor.mReadColumns);
+        assertThat(contacts).hasSize(1);
+        Contact contact = contacts.get(0);
+        assertThat(contact.getDisplayName()).isEqualTo("Jane Doe");
+        assertThat(contact.getLookupKey()).isEqualTo("lookup-jane");
+        assertThat(contact.getAccountName()).isEqualTo(ACCOUNT_NAME);
+        assertThat(contact.getNumbers()).hasSize(1);
+        assertThat(contact.getNumbers().get(0).getRawNumber()).isEqualTo(PHONE_NUMBER);
+    }
+
+    @Test
+    public void testConvertToEntity_dropsDuplicatedRows() {
+        MatrixCursor cursor = createCursor();
+        addRow(cursor, 1, "lookup-jane", "Jane Doe", PHONE_NUMBER);
+        addRow(cursor, 2, "lookup-jane", "Jane Doe", PHONE_NUMBER);
+        addRow(cursor, 3, "lookup-jane", "Jane Doe", OTHER_PHONE_NUMBER);
+        addRow(cursor, 4, "lookup-john", "John Roe", PHONE_NUMBER);
+
+        List<Contact> contacts = mLiveData.convertToEntity(cursor);
+
+        assertThat(contacts).hasSize(3);
+        assertThat(contacts.get(0).getNumbers().get(0).getRawNumber()).isEqualTo(PHONE_NUMBER);
+        assertThat(contacts.get(1).getNumbers().get(0).getRawNumber())
+                .isEqualTo(OTHER_PHONE_NUMBER);
+        assertThat(contacts.get(2).getLookupKey()).isEqualTo("lookup-john");
+    }
+
+    @Test
+    public void testPhoneNumber_equalNumbersHaveEqualHashCodes() {
+        PhoneNumber phoneNumber = PhoneNumber.newInstance(mContext, PHONE_NUMBER, 0, null,
+                false, 1, ACCOUNT_NAME, null, 0);
+        PhoneNumber samePhoneNumber = PhoneNumber.newInstance(mContext, PHONE_NUMBER, 0, null,
+                false, 2, ACCOUNT_NAME, null, 0);
+        PhoneNumber otherPhoneNumber = PhoneNumber.newInstance(mContext, OTHER_PHONE_NUMBER, 0,
+                null, false, 3, ACCOUNT_NAME, null, 0);
+
+        assertThat(samePhoneNumber).isEqualTo(phoneNumber);
+        assertThat(samePhoneNumber.hashCode()).isEqualTo(phoneNumber.hashCode());
+        assertThat(otherPhoneNumber).isNotEqualTo(phoneNumber);
+        Set<PhoneNumber> phoneNumbers = new HashSet<>(
+                Arrays.asList(phoneNumber, samePhoneNumber, otherPhoneNumber));
+        assertThat(phoneNumbers).hasSize(2);
+    }
+
+    private static MatrixCursor createCursor() {
+        return new MatrixCursor(BluetoothFavoriteContactsLiveData.FavoriteQueryParam.PROJECTION);
+    }
+
+    private static void addRow(MatrixCursor cursor, long id, String lookupKey,
+            String displayName, String number) {
+        cursor.newRow()
+                .add(ContactsContract.Data._ID, id)
+                .add(ContactsContract.Data.CONTACT_ID, id)
+                .add(ContactsContract.Data.RAW_CONTACT_ID, id)
+                .add(ContactsContract.Data.LOOKUP_KEY, lookupKey)
+                .add(ContactsContract.Data.MIMETYPE,
+                        ContactsContract.CommonDataKinds.Phone.CONTENT_ITEM_TYPE)
+                .add(ContactsContract.Data.STARRED, 1)
+                .add(ContactsContract.Data.DISPLAY_NAME_PRIMARY, displayName)
+                .add(ContactsContract.Data.DISPLAY_NAME_ALTERNATIVE, displayName)
+                .add(ContactsContract.Data.PHONEBOOK_LABEL_PRIMARY, displayName.substring(0, 1))
+                .add(ContactsContract.Data.PHONEBOOK_LABEL_ALTERNATIVE,
+                        displayName.substring(0, 1))
+                .add(ContactsContract.Data.IS_PRIMARY, 0)
+                .add(ContactsContract.Data.IS_SUPER_PRIMARY, 0)
+                .add(ContactsContract.Data.DATA_VERSION, 0)
+                .add(ContactsContract.RawContacts.ACCOUNT_NAME, ACCOUNT_NAME)
+                .add(ContactsContract.CommonDataKinds.Phone.NUMBER, number)
+                .add(ContactsContract.CommonDataKinds.Phone.TYPE,
+                        ContactsContract.CommonDataKinds.Phone.TYPE_MOBILE);
+    }
+
+    /** Records the columns looked up by name, which are the columns the reader expects. */
+    private static class ColumnRecordingCursor extends CursorWrapper {
+        private final Set<String> mReadColumns = new HashSet<>();
+
+        ColumnRecordingCursor(MatrixCursor cursor) {
+            super(cursor);
+        }
+
+        @Override
+        public int getColumnIndex(String columnName) {
+            mReadColumns.add(columnName);
+            return super.getColumnIndex(columnName);
+        }
+
+        @Override
+        public int getColumnIndexOrThrow(String columnName) {
+            mReadColumns.add(columnName);
+            return super.getColumnIndexOrThrow(columnName);
+        }
+    }
+}
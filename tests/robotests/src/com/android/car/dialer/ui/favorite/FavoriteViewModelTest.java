@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2020 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.car.dialer.ui.favorite;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.bluetooth.BluetoothDevice;
+import android.content.Context;
+
+import androidx.lifecycle.MutableLiveData;
+
+import com.android.car.dialer.CarDialerRobolectricTestRunner;
+import com.android.car.dialer.storage.FavoriteTile;
+import com.android.car.dialer.storage.FavoriteTileCache;
+import com.android.car.telephony.common.Contact;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(CarDialerRobolectricTestRunner.class)
+public class FavoriteViewModelTest {
+    private static final String DEVICE_ADDRESS = "00:11:22:33:44:55";
+
+    private final MutableLiveData<BluetoothDevice> mConnectedDevice = new MutableLiveData<>();
+    private final MutableLiveData<List<Contact>> mPhoneBookContacts = new MutableLiveData<>();
+    private FavoriteViewModel.MergedFavoritesLiveData mMergedFavoritesLiveData;
+    private FavoriteTile mFavoriteTile;
+    @Mock
+    private BluetoothDevice mMockBluetoothDevice;
+    @Mock
+    private FavoriteTileCache mMockFavoriteTileCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        Context context = RuntimeEnvironment.application;
+        ShadowLooper.pauseMainLooper();
+
+        when(mMockBluetoothDevice.getAddress()).thenReturn(DEVICE_ADDRESS);
+        mFavoriteTile = new FavoriteTile("Phone favorites", "Jane Doe", "Doe, Jane", "JD",
+                "Mobile", "+16502530000", "lookup-key", DEVICE_ADDRESS, null);
+        when(mMockFavoriteTileCache.load(DEVICE_ADDRESS))
+                .thenReturn(Collections.singletonList(mFavoriteTile));
+
+        mMergedFavoritesLiveData = new FavoriteViewModel.MergedFavoritesLiveData(context,
+                new MutableLiveData<>(), new MutableLiveData<>(), mConnectedDevice,
+                device -> mPhoneBookContacts, mMockFavoriteTileCache,
+                MoreExecutors.newDirectExecutorService());
+        mMergedFavoritesLiveData.observeForever(favorites -> {});
+        mConnectedDevice.setValue(mMockBluetoothDevice);
+        ShadowLooper.runUiThreadTasks();
+    }
+
+    @Test
+    public void testPhoneBookDownloading_showsThePersistedTiles() {
+        mPhoneBookContacts.setValue(Collections.emptyList());
+        ShadowLooper.runUiThreadTasks();
+
+        assertThat(mMergedFavoritesLiveData.getValue()).contains(mFavoriteTile);
+    }
+
+    @Test
+    public void testEmptyPhoneBookSettled_replacesThePersistedTiles() {
+        mPhoneBookContacts.setValue(Collections.emptyList());
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertThat(mMergedFavoritesLiveData.getValue()).isNotEmpty();
+        assertThat(mMergedFavoritesLiveData.getValue()).doesNotContain(mFavoriteTile);
+        // The download may not have started, the tiles are kept for the next connection.
+        verify(mMockFavoriteTileCache, never()).save(any(), anyList());
+    }
+
+    @Test
+    public void testNullPhoneBookSettled_replacesThePersistedTiles() {
+        mPhoneBookContacts.setValue(null);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        assertThat(mMergedFavoritesLiveData.getValue()).doesNotContain(mFavoriteTile);
+    }
+}